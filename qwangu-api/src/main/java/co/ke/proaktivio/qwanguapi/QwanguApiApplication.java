@@ -1,10 +1,12 @@
 package co.ke.proaktivio.qwanguapi;
 
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @SpringBootApplication
+@EnableConfigurationProperties(ApartmentProperties.class)
 public class QwanguApiApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,131 @@
+package co.ke.proaktivio.qwanguapi.caches;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentChange;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Read-through cache for single apartment lookups by id and by exact name within an owner. Lookups
+ * for the same key that arrive while a load is in flight share that load. Absent apartments are
+ * not cached. Ids are unique across owners, so a lookup by id only returns an apartment of the
+ * owner asking for it.
+ * <p>
+ * A write only carries the id of the apartment, so the name each cached apartment was looked up by
+ * is kept by its id and dropped with it.
+ */
+@Component
+public class ApartmentCache implements MeterBinder {
+    private final AsyncCache<String, Apartment> byId;
+    private final AsyncCache<NameKey, Apartment> byName;
+    private final Map<String, Named> names = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ApartmentCache(ApartmentProperties properties) {
+        ApartmentProperties.Cache cache = properties.getCache();
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(cache.getMaximumSize())
+                .expireAfterWrite(cache.getExpireAfterWrite())
+                .recordStats()
+                .buildAsync();
+        this.byName = Caffeine.newBuilder()
+                .maximumSize(cache.getMaximumSize())
+                .expireAfterWrite(cache.getExpireAfterWrite())
+                .recordStats()
+                // a later load of the same apartment is another instance and keeps its own entry
+                .<NameKey, Apartment>removalListener((key, apartment, cause) -> {
+                    if (apartment != null)
+                        names.computeIfPresent(apartment.getId(), (id, named) -> named.apartment() == apartment ? null : named);
+                })
+                .buildAsync();
+    }
+
+    public Mono<Apartment> findById(String owner, String id, BiFunction<String, String, Mono<Apartment>> loader) {
+        return Mono.defer(() -> Mono.fromFuture(byId.get(id, (key, executor) -> loader.apply(key, owner).toFuture())))
+                .filter(apartment -> owner.equals(apartment.getOwner()));
+    }
+
+    public Mono<Apartment> findByName(String owner, String name, BiFunction<String, String, Mono<Apartment>> loader) {
+        return Mono.defer(() -> {
+            NameKey key = new NameKey(owner, name);
+            long seen = invalidations.get();
+            CompletableFuture<Apartment> loaded = byName.get(key,
+                    (k, executor) -> loader.apply(k.owner(), k.name()).toFuture());
+            loaded.thenAccept(apartment -> remember(key, apartment, seen));
+            return Mono.fromFuture(loaded);
+        });
+    }
+
+    public void invalidate(String id) {
+        invalidations.incrementAndGet();
+        byId.synchronous().invalidate(id);
+        Named named = names.remove(id);
+        if (named != null)
+            byName.synchronous().invalidate(named.key());
+    }
+
+    public void invalidateAll(Collection<String> ids) {
+        invalidations.incrementAndGet();
+        Set<String> invalidated = Set.copyOf(ids);
+        byId.synchronous().invalidateAll(invalidated);
+        List<NameKey> keys = new ArrayList<>();
+        for (String id : invalidated) {
+            Named named = names.remove(id);
+            if (named != null)
+                keys.add(named.key());
+        }
+        byName.synchronous().invalidateAll(keys);
+    }
+
+    public void invalidateName(String owner, String name) {
+        byName.synchronous().invalidate(new NameKey(owner, name));
+    }
+
+    public void invalidate(ApartmentChange change) {
+        invalidate(change.getId());
+        if (change.getApartment() != null)
+            invalidateName(change.getApartment().getOwner(), change.getApartment().getName());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new CaffeineCacheMetrics<>(byId.synchronous(), "apartments", Tags.of("key", "id")).bindTo(registry);
+        new CaffeineCacheMetrics<>(byName.synchronous(), "apartments", Tags.of("key", "name")).bindTo(registry);
+    }
+
+    /**
+     * Keeps the name an apartment was found by. A write may invalidate its id while the lookup is still
+     * in flight, before the name is known here, so a load that saw any invalidation since it started is
+     * not kept.
+     */
+    private void remember(NameKey key, Apartment apartment, long seen) {
+        if (apartment == null)
+            return;
+        names.put(apartment.getId(), new Named(key, apartment));
+        if (invalidations.get() != seen)
+            byName.synchronous().invalidate(key);
+    }
+
+    private record NameKey(String owner, String name) {
+    }
+
+    private record Named(NameKey key, Apartment apartment) {
+    }
+}
@@ -0,0 +1,43 @@
+package co.ke.proaktivio.qwanguapi.caches;
+
+import co.ke.proaktivio.qwanguapi.configurations.OnChangeStreamSourceCondition;
+import co.ke.proaktivio.qwanguapi.services.ApartmentChangeSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * Keeps the {@link ApartmentCache} coherent with writes made by other nodes, when changes are read from
+ * the Mongo change stream. Writes made through this node invalidate the cache directly, so the in-process
+ * source, which only sees those, is not subscribed to.
+ */
+@Log4j2
+@Component
+@Conditional(OnChangeStreamSourceCondition.class)
+@RequiredArgsConstructor
+public class ApartmentCacheInvalidator implements InitializingBean, DisposableBean {
+    private final ApartmentCache cache;
+    private final ApartmentChangeSource changeSource;
+    private Disposable subscription;
+
+    @Override
+    public void afterPropertiesSet() {
+        subscription = changeSource.changes()
+                .doOnError(e -> log.warn("Apartment change source failed, resubscribing", e))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe(cache::invalidate);
+    }
+
+    @Override
+    public void destroy() {
+        if (subscription != null)
+            subscription.dispose();
+    }
+}
@@ -0,0 +1,20 @@
+package co.ke.proaktivio.qwanguapi.configurations;
+
+import co.ke.proaktivio.qwanguapi.services.ApartmentChangeSource;
+import co.ke.proaktivio.qwanguapi.services.implementations.MongoChangeStreamApartmentChangeSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+@Configuration
+public class ApartmentChangeConfiguration {
+
+    @Bean
+    @Primary
+    @Conditional(OnChangeStreamSourceCondition.class)
+    public ApartmentChangeSource mongoChangeStreamApartmentChangeSource(ReactiveMongoTemplate template) {
+        return new MongoChangeStreamApartmentChangeSource(template);
+    }
+}
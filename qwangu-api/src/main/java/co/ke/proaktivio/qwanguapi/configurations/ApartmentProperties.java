@@ -0,0 +1,230 @@
+package co.ke.proaktivio.qwanguapi.configurations;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "qwangu.apartments")
+public class ApartmentProperties {
+    /**
+     * Owner given at startup to apartments and tombstones written before apartments were partitioned by owner.
+     */
+    private String defaultOwner = "default";
+    private final Import bulkImport = new Import();
+    private final Export export = new Export();
+    private final Cache cache = new Cache();
+    private final Changes changes = new Changes();
+    private final Search search = new Search();
+    private final CreateCoalescing createCoalescing = new CreateCoalescing();
+    private final Idempotency idempotency = new Idempotency();
+    private final Admission admission = new Admission();
+    private final Sync sync = new Sync();
+
+    @Data
+    public static class Import {
+        /**
+         * Number of apartments written per unordered bulk write by imports, and per batch by bulk updates and deletes.
+         */
+        private int batchSize = 500;
+        /**
+         * Number of updates or deletes of a bulk update or delete batch in flight at the same time.
+         */
+        private int concurrency = 16;
+    }
+
+    @Data
+    public static class Export {
+        /**
+         * Number of apartments the Mongo cursor fetches per batch while exporting.
+         */
+        private int batchSize = 1000;
+    }
+
+    @Data
+    public static class Cache {
+        /**
+         * Maximum number of apartments held per lookup key (id and name).
+         */
+        private long maximumSize = 10_000;
+        /**
+         * How long a cached apartment is served before it is read from Mongo again.
+         */
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Changes {
+        /**
+         * Where apartment changes are read from. IN_PROCESS only sees writes made through this node,
+         * CHANGE_STREAM sees writes made by every node but requires a replica set.
+         */
+        private Source source = Source.IN_PROCESS;
+        /**
+         * Number of changes buffered for each change feed subscriber before the overflow policy applies.
+         */
+        private int subscriberBufferSize = 256;
+        /**
+         * What happens to a change feed subscriber that falls a full buffer behind.
+         */
+        private Overflow overflow = Overflow.DROP_OLDEST;
+        /**
+         * Interval between keep-alive comments sent on an idle change feed.
+         */
+        private Duration heartbeat = Duration.ofSeconds(15);
+
+        public enum Source {
+            IN_PROCESS,CHANGE_STREAM
+        }
+
+        public enum Overflow {
+            DROP_OLDEST,DROP_LATEST,DISCONNECT
+        }
+    }
+
+    @Data
+    public static class Search {
+        /**
+         * Number of apartments a name search returns when the client does not ask for a limit.
+         */
+        private int defaultLimit = 10;
+        /**
+         * Largest number of apartments a single name search returns.
+         */
+        private int maxLimit = 50;
+    }
+
+    @Data
+    public static class CreateCoalescing {
+        /**
+         * Whether concurrent creates are gathered into bulk inserts instead of being inserted one by one.
+         */
+        private boolean enabled = false;
+        /**
+         * Largest number of creates written by a single bulk insert.
+         */
+        private int maxBatchSize = 100;
+        /**
+         * Longest time a create waits for others to join its batch.
+         */
+        private Duration maxLinger = Duration.ofMillis(5);
+        /**
+         * Number of batches being written at the same time.
+         */
+        private int maxConcurrentBatches = 4;
+    }
+
+    @Data
+    public static class Idempotency {
+        /**
+         * How long the response to a write sent with an idempotency key is replayed to retries.
+         */
+        private Duration ttl = Duration.ofHours(24);
+        /**
+         * How long a key stays claimed by a write that never completes, for instance because its node stopped.
+         */
+        private Duration inProgressTimeout = Duration.ofMinutes(1);
+        /**
+         * Longest time a retry waits for the write that claimed its key before it is answered with a conflict.
+         */
+        private Duration wait = Duration.ofSeconds(10);
+        /**
+         * Interval at which a retry checks whether a write running on another node has completed.
+         */
+        private Duration pollInterval = Duration.ofMillis(100);
+    }
+
+    @Data
+    public static class Admission {
+        /**
+         * Whether requests to the apartment API are shed once the concurrency limit or a client's rate is exceeded.
+         */
+        private boolean enabled = true;
+        /**
+         * Value of the Retry-After header sent with a request shed because the concurrency limit was reached.
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+        private final Limit reads = new Limit(100, 10, 1000, Duration.ofMillis(250));
+        private final Limit writes = new Limit(50, 5, 500, Duration.ofMillis(500));
+        private final Clients clients = new Clients();
+
+        @Data
+        @AllArgsConstructor
+        public static class Limit {
+            /**
+             * Number of requests allowed in flight before any latency has been observed.
+             */
+            private int initialLimit;
+            /**
+             * Lowest the limit is lowered to, however slow requests become.
+             */
+            private int minLimit;
+            /**
+             * Highest the limit is raised to, however fast requests complete.
+             */
+            private int maxLimit;
+            /**
+             * Latency above which a request counts as a sign of overload and lowers the limit.
+             */
+            private Duration latencyThreshold;
+            /**
+             * Factor the limit is multiplied by on every sign of overload.
+             */
+            private double backoffRatio = 0.9;
+
+            public Limit(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold) {
+                this(initialLimit, minLimit, maxLimit, latencyThreshold, 0.9);
+            }
+        }
+
+        @Data
+        public static class Clients {
+            /**
+             * Whether each client is limited to a rate of requests on top of the shared concurrency limit.
+             */
+            private boolean enabled = false;
+            /**
+             * Request header identifying the client. Requests without it are limited by remote address.
+             */
+            private String header = "X-Client-Id";
+            /**
+             * Requests per second each client is allowed on average.
+             */
+            private int rate = 50;
+            /**
+             * Requests a client is allowed in a burst above its rate.
+             */
+            private int burst = 100;
+            /**
+             * Maximum number of clients tracked at once, the least recently seen are forgotten first.
+             */
+            private long maximumSize = 10_000;
+            /**
+             * How long a client that sends nothing is remembered.
+             */
+            private Duration expireAfterAccess = Duration.ofMinutes(10);
+        }
+    }
+
+    @Data
+    public static class Sync {
+        /**
+         * Number of changes a sync returns when the client does not ask for a page size.
+         */
+        private int defaultPageSize = 500;
+        /**
+         * Largest number of changes a single sync returns.
+         */
+        private int maxPageSize = 1000;
+        /**
+         * How far behind the current time a sync stops, so writes that have not committed yet are not skipped.
+         */
+        private Duration settleWindow = Duration.ofSeconds(5);
+        /**
+         * How long deleted apartments are remembered. A client that has not synced for longer starts over.
+         */
+        private Duration tombstoneRetention = Duration.ofDays(30);
+    }
+}
@@ -0,0 +1,40 @@
+package co.ke.proaktivio.qwanguapi.configurations;
+
+import co.ke.proaktivio.qwanguapi.codecs.CollectingCborEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Adds CBOR and Smile next to JSON, so service-to-service clients can negotiate a binary encoding
+ * with {@code Accept} and {@code Content-Type}. Both mappers are built from the application's
+ * Jackson settings, so dates and nulls are written the same way as in JSON.
+ */
+@Configuration
+public class CodecConfiguration {
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    @Bean
+    public CodecCustomizer binaryCodecCustomizer(ObjectMapper jsonMapper, Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper smileMapper = builder.factory(new SmileFactory()).build();
+        ObjectMapper cborMapper = builder.factory(new CBORFactory()).build();
+        return configurer -> {
+            // without explicit media types the Jackson codecs fall back to the JSON ones
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, APPLICATION_SMILE));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, APPLICATION_SMILE));
+            // custom codecs are asked before the default ones, JSON goes first so it stays the answer to Accept: */*
+            configurer.customCodecs().register(new Jackson2JsonEncoder(jsonMapper));
+            configurer.customCodecs().register(new CollectingCborEncoder(cborMapper));
+            configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+        };
+    }
+}
@@ -0,0 +1,114 @@
+package co.ke.proaktivio.qwanguapi.configurations;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Driver settings applied on top of {@code spring.data.mongodb}, which only covers where to connect.
+ */
+@Data
+@ConfigurationProperties(prefix = "qwangu.mongodb")
+public class MongoClientProperties {
+    private final Pool pool = new Pool();
+    /**
+     * How long establishing a connection may take.
+     */
+    private Duration connectTimeout = Duration.ofSeconds(10);
+    /**
+     * How long a socket read may block, zero meaning forever.
+     */
+    private Duration readTimeout = Duration.ofSeconds(30);
+    /**
+     * How long an operation waits for a suitable server, for instance a primary during an election.
+     */
+    private Duration serverSelectionTimeout = Duration.ofSeconds(5);
+    /**
+     * Wire compressors offered to the server, in order of preference. snappy and zstd need their
+     * libraries on the classpath, zlib is built into the JDK.
+     */
+    private List<Compressor> compressors = new ArrayList<>(List.of(Compressor.ZLIB));
+    private final ReadOnly readOnly = new ReadOnly();
+    private final Indexes indexes = new Indexes();
+
+    public enum Compressor {
+        SNAPPY,ZLIB,ZSTD
+    }
+
+    @Data
+    public static class Pool {
+        /**
+         * Connections kept open per server even when idle.
+         */
+        private int minSize = 0;
+        /**
+         * Most connections open per server. Reactive calls do not hold a thread, so this bounds
+         * concurrent operations rather than threads.
+         */
+        private int maxSize = 100;
+        /**
+         * How long an operation waits for a connection once the pool is exhausted.
+         */
+        private Duration maxWaitTime = Duration.ofSeconds(2);
+        /**
+         * How long a connection may stay idle before it is closed, zero meaning forever.
+         */
+        private Duration maxConnectionIdleTime = Duration.ZERO;
+        /**
+         * Most connections being established per server at the same time.
+         */
+        private int maxConnecting = 2;
+    }
+
+    @Data
+    public static class ReadOnly {
+        /**
+         * Members the read-only template reads from. Listings tolerate slightly stale data, so they
+         * can be served by secondaries.
+         */
+        private ReadPreference readPreference = ReadPreference.SECONDARY_PREFERRED;
+        /**
+         * Most a secondary may lag behind the primary and still be read from. At least 90 seconds
+         * when set, ignored when reading from the primary.
+         */
+        private Duration maxStaleness = Duration.ofSeconds(90);
+
+        public enum ReadPreference {
+            PRIMARY("primary"),
+            PRIMARY_PREFERRED("primaryPreferred"),
+            SECONDARY("secondary"),
+            SECONDARY_PREFERRED("secondaryPreferred"),
+            NEAREST("nearest");
+
+            private final String mode;
+
+            ReadPreference(String mode) {
+                this.mode = mode;
+            }
+
+            public String getMode() {
+                return mode;
+            }
+        }
+    }
+
+    @Data
+    public static class Indexes {
+        /**
+         * Whether missing indexes are built once the application is ready. When off they are only
+         * reported, for clusters where indexes are built by hand.
+         */
+        private boolean build = true;
+        /**
+         * Times checking or building an index is retried, for instance while no server can be reached.
+         */
+        private int maxRetries = 5;
+        /**
+         * Delay before the first retry, doubled on every further one.
+         */
+        private Duration retryBackoff = Duration.ofSeconds(5);
+    }
+}
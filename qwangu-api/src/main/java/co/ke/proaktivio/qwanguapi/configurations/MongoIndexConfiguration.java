@@ -0,0 +1,74 @@
+package co.ke.proaktivio.qwanguapi.configurations;
+
+import co.ke.proaktivio.qwanguapi.indexes.IndexManager;
+import co.ke.proaktivio.qwanguapi.indexes.ManagedIndex;
+import co.ke.proaktivio.qwanguapi.migrations.ApartmentOwnerBackfill;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.models.ApartmentTombstone;
+import co.ke.proaktivio.qwanguapi.models.IdempotencyRecord;
+import co.ke.proaktivio.qwanguapi.repositories.CustomApartmentRepositoryImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Declares every index the application relies on. {@code auto-index-creation} is off, so they are
+ * built by the {@link IndexManager} once the application is ready rather than during startup.
+ * Only indexes that writes depend on for correctness are critical. Apartments and tombstones
+ * written before they had an owner are given the default owner first.
+ * <p>
+ * Apartment indexes lead with the owner, which is also the intended shard key: every query names
+ * one owner, and the unique index on owner and name can be enforced by each shard on its own.
+ */
+@Configuration
+public class MongoIndexConfiguration {
+
+    @Bean
+    public IndexManager indexManager(ReactiveMongoTemplate template, MongoClientProperties properties,
+                                     ApartmentProperties apartmentProperties, MeterRegistry registry) {
+        return new IndexManager(template, properties, List.of(
+                // creates and renames rely on it to reject duplicate names, names were unique across owners before
+                new ManagedIndex(Apartment.class, new Index()
+                        .on("owner", Sort.Direction.ASC)
+                        .on("name", Sort.Direction.ASC)
+                        .unique()
+                        .named("owner_name"), true, "name"),
+                // an owner's listings, cursors and exports are sorted and paged by _id
+                new ManagedIndex(Apartment.class, new Index()
+                        .on("owner", Sort.Direction.ASC)
+                        .on("_id", Sort.Direction.ASC)
+                        .named("owner_id"), false),
+                // listings filtered by name are sorted and paged by _id, the unique index alone would need an in-memory sort
+                new ManagedIndex(Apartment.class, new Index()
+                        .on("owner", Sort.Direction.ASC)
+                        .on("name", Sort.Direction.ASC)
+                        .on("_id", Sort.Direction.ASC)
+                        .named("owner_name_id"), false, "name_id"),
+                new ManagedIndex(Apartment.class, CustomApartmentRepositoryImpl.NAME_SEARCH_INDEX, false, "name_ci"),
+                new ManagedIndex(Apartment.class, new Index()
+                        .on("owner", Sort.Direction.ASC)
+                        .on("modified", Sort.Direction.ASC)
+                        .on("_id", Sort.Direction.ASC)
+                        .named("owner_modified_id"), false, "modified_id"),
+                new ManagedIndex(ApartmentTombstone.class, new Index()
+                        .on("owner", Sort.Direction.ASC)
+                        .on("deleted", Sort.Direction.ASC)
+                        .on("_id", Sort.Direction.ASC)
+                        .named("owner_deleted_id"), false, "deleted_id"),
+                new ManagedIndex(ApartmentTombstone.class, new Index()
+                        .on("expiresAt", Sort.Direction.ASC)
+                        .expire(Duration.ZERO)
+                        .named("expiresAt"), false),
+                new ManagedIndex(IdempotencyRecord.class, new Index()
+                        .on("expiresAt", Sort.Direction.ASC)
+                        .expire(Duration.ZERO)
+                        .named("expiresAt"), false)
+        ), new ApartmentOwnerBackfill(template, apartmentProperties).backfill(), registry);
+    }
+}
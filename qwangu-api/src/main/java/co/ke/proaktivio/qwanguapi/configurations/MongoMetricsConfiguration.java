@@ -0,0 +1,16 @@
+package co.ke.proaktivio.qwanguapi.configurations;
+
+import co.ke.proaktivio.qwanguapi.metrics.MongoCommandDocumentsListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MongoMetricsConfiguration {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoCommandDocumentsCustomizer(MeterRegistry registry) {
+        return builder -> builder.addCommandListener(new MongoCommandDocumentsListener(registry));
+    }
+}
@@ -0,0 +1,25 @@
+package co.ke.proaktivio.qwanguapi.configurations;
+
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * Matches when apartment changes are read from the Mongo change stream. The source is bound the way
+ * {@link ApartmentProperties} binds it, so every spelling the properties accept selects the same beans.
+ */
+public class OnChangeStreamSourceCondition extends SpringBootCondition {
+    static final String PROPERTY = "qwangu.apartments.changes.source";
+
+    @Override
+    public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        ApartmentProperties.Changes.Source source = Binder.get(context.getEnvironment())
+                .bind(PROPERTY, ApartmentProperties.Changes.Source.class)
+                .orElse(ApartmentProperties.Changes.Source.IN_PROCESS);
+        return source == ApartmentProperties.Changes.Source.CHANGE_STREAM ?
+                ConditionOutcome.match("%s is %s".formatted(PROPERTY, source)) :
+                ConditionOutcome.noMatch("%s is %s".formatted(PROPERTY, source));
+    }
+}
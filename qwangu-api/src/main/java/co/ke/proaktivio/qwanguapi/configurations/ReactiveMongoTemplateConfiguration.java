@@ -1,22 +1,84 @@
 package co.ke.proaktivio.qwanguapi.configurations;
 
-import com.mongodb.reactivestreams.client.MongoClient;
-import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
+import com.mongodb.MongoCompressor;
+import com.mongodb.ReadPreference;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
 
-//@Configuration
-//@RequiredArgsConstructor
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tunes the Mongo client and provides two templates: the primary one, used by the repositories
+ * and by every write, and a read-only one for listings that tolerate replication lag, routed to
+ * the members chosen by {@code qwangu.mongodb.read-only}.
+ */
+@Configuration
+@EnableConfigurationProperties(MongoClientProperties.class)
 public class ReactiveMongoTemplateConfiguration {
+    public static final String READ_ONLY_TEMPLATE = "readOnlyReactiveMongoTemplate";
+    // the smallest staleness a server accepts, anything lower fails every read at server selection
+    private static final Duration MIN_MAX_STALENESS = Duration.ofSeconds(90);
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoClientTuningCustomizer(MongoClientProperties properties) {
+        MongoClientProperties.Pool pool = properties.getPool();
+        List<MongoCompressor> compressors = properties.getCompressors().stream()
+                .map(ReactiveMongoTemplateConfiguration::compressor)
+                .toList();
+        return builder -> builder
+                .applyToConnectionPoolSettings(settings -> settings
+                        .minSize(pool.getMinSize())
+                        .maxSize(pool.getMaxSize())
+                        .maxWaitTime(pool.getMaxWaitTime().toMillis(), TimeUnit.MILLISECONDS)
+                        .maxConnectionIdleTime(pool.getMaxConnectionIdleTime().toMillis(), TimeUnit.MILLISECONDS)
+                        .maxConnecting(pool.getMaxConnecting()))
+                .applyToSocketSettings(settings -> settings
+                        .connectTimeout((int) properties.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                        .readTimeout((int) properties.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS))
+                .applyToClusterSettings(settings -> settings
+                        .serverSelectionTimeout(properties.getServerSelectionTimeout().toMillis(), TimeUnit.MILLISECONDS))
+                .compressorList(compressors);
+    }
+
+    @Bean
+    @Primary
+    public ReactiveMongoTemplate reactiveMongoTemplate(ReactiveMongoDatabaseFactory factory, MongoConverter converter) {
+        return new ReactiveMongoTemplate(factory, converter);
+    }
+
+    @Bean(READ_ONLY_TEMPLATE)
+    public ReactiveMongoTemplate readOnlyReactiveMongoTemplate(ReactiveMongoDatabaseFactory factory, MongoConverter converter,
+                                                               MongoClientProperties properties) {
+        ReactiveMongoTemplate template = new ReactiveMongoTemplate(factory, converter);
+        template.setReadPreference(readPreference(properties.getReadOnly()));
+        return template;
+    }
+
+    static ReadPreference readPreference(MongoClientProperties.ReadOnly readOnly) {
+        MongoClientProperties.ReadOnly.ReadPreference preference = readOnly.getReadPreference();
+        Duration maxStaleness = readOnly.getMaxStaleness();
+        // the primary is never stale, a staleness bound is rejected for it
+        if (preference == MongoClientProperties.ReadOnly.ReadPreference.PRIMARY || maxStaleness == null)
+            return ReadPreference.valueOf(preference.getMode());
+        if (maxStaleness.compareTo(MIN_MAX_STALENESS) < 0)
+            throw new IllegalArgumentException("Max staleness %s is not valid. Should be at least %s!"
+                    .formatted(maxStaleness, MIN_MAX_STALENESS));
+        return ReadPreference.valueOf(preference.getMode(), List.of(), maxStaleness.toSeconds(), TimeUnit.SECONDS);
+    }
 
-//    private final MongoClient mongoClient;
-//    @Value( "${spring.data.mongodb.database}" )
-//    private String databaseName;
-//
-//    @Bean
-//    public ReactiveMongoTemplate reactiveMongoTemplate() {
-//        return new ReactiveMongoTemplate(mongoClient, databaseName);
-//    }
+    private static MongoCompressor compressor(MongoClientProperties.Compressor compressor) {
+        return switch (compressor) {
+            case SNAPPY -> MongoCompressor.createSnappyCompressor();
+            case ZLIB -> MongoCompressor.createZlibCompressor();
+            case ZSTD -> MongoCompressor.createZstdCompressor();
+        };
+    }
 }
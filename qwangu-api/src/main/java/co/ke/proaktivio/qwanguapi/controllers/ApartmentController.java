@@ -2,58 +2,249 @@ package co.ke.proaktivio.qwanguapi.controllers;
 
 import co.ke.proaktivio.qwanguapi.exceptions.CustomBadRequestException;
 import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentBulkDelete;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentBulkResult;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentChange;
 import co.ke.proaktivio.qwanguapi.pojos.ApartmentDto;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentField;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentPatch;
+import co.ke.proaktivio.qwanguapi.pojos.Cursor;
+import co.ke.proaktivio.qwanguapi.pojos.CursorPage;
 import co.ke.proaktivio.qwanguapi.pojos.OrderType;
+import co.ke.proaktivio.qwanguapi.pojos.SyncPage;
+import co.ke.proaktivio.qwanguapi.pojos.SyncToken;
 import co.ke.proaktivio.qwanguapi.services.ApartmentService;
+import co.ke.proaktivio.qwanguapi.services.implementations.ApartmentChangeBroadcaster;
 import co.ke.proaktivio.qwanguapi.utils.CustomUtils;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.ZoneId;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping(value = "v1/apartments")
 @RequiredArgsConstructor
 public class ApartmentController {
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    /**
+     * The landlord a request acts for. Every request is scoped to one owner.
+     */
+    public static final String OWNER_ID = "X-Owner-Id";
+    private static final CustomBadRequestException AFTER_AND_BEFORE =
+            new CustomBadRequestException("Only one of after or before can be provided!");
+    private static final CustomBadRequestException EMPTY_PATCH =
+            new CustomBadRequestException("Apartment patch has nothing to update!");
+    private static final CustomBadRequestException IDS_OR_NAME_PREFIX =
+            new CustomBadRequestException("Exactly one of ids or namePrefix must be provided!");
     private final ApartmentService apartmentService;
+    private final ApartmentChangeBroadcaster changeBroadcaster;
 
     @PostMapping
-    public Mono<Apartment> create(@RequestBody ApartmentDto dto) {
-        return apartmentService.create(dto);
+    public Mono<Apartment> create(@RequestHeader(OWNER_ID) String ownerId,
+                                  @RequestBody ApartmentDto dto,
+                                  @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return apartmentService.create(CustomUtils.convertToOwner(ownerId), dto, CustomUtils.convertToIdempotencyKey(idempotencyKey));
+    }
+
+    @PostMapping(value = "/import",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ApartmentBulkResult> importAll(@RequestHeader(OWNER_ID) String ownerId,
+                                               @RequestBody Flux<ApartmentDto> dtos) {
+        return apartmentService.importAll(CustomUtils.convertToOwner(ownerId), dtos);
     }
 
     @PutMapping("/{id}")
-    public Mono<Apartment> update(@PathVariable String id,
-                                  @RequestBody ApartmentDto dto) {
-        return apartmentService.update(id, dto);
+    public Mono<ResponseEntity<Apartment>> update(@RequestHeader(OWNER_ID) String ownerId,
+                                                  @PathVariable String id,
+                                                  @RequestBody ApartmentDto dto,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                  @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        String owner = CustomUtils.convertToOwner(ownerId);
+        Optional<Long> version = CustomUtils.convertToVersion(ifMatch, id);
+        Optional<String> optionalIdempotencyKey = CustomUtils.convertToIdempotencyKey(idempotencyKey);
+
+        return apartmentService.update(owner, id, dto, version, optionalIdempotencyKey)
+                .map(this::toResponse);
+    }
+
+    @PatchMapping(value = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Apartment>> patch(@RequestHeader(OWNER_ID) String ownerId,
+                                                 @PathVariable String id,
+                                                 @RequestBody ApartmentPatch patch,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                 @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        String owner = CustomUtils.convertToOwner(ownerId);
+        Optional<Long> version = CustomUtils.convertToVersion(ifMatch, id);
+        Optional<String> optionalIdempotencyKey = CustomUtils.convertToIdempotencyKey(idempotencyKey);
+        if (patch.isEmpty())
+            throw EMPTY_PATCH;
+
+        return apartmentService.patch(owner, id, patch, version, optionalIdempotencyKey)
+                .map(this::toResponse);
+    }
+
+    @PatchMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ApartmentBulkResult> patchAll(@RequestHeader(OWNER_ID) String ownerId,
+                                              @RequestBody Flux<ApartmentPatch> patches) {
+        return apartmentService.patchAll(CustomUtils.convertToOwner(ownerId), patches);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Apartment>> findById(@RequestHeader(OWNER_ID) String ownerId,
+                                                    @PathVariable String id) {
+        // the response entity handler answers If-None-Match and If-Modified-Since with a 304 before any body is written
+        return apartmentService.findById(CustomUtils.convertToOwner(ownerId), id)
+                .map(this::toResponse);
     }
 
-    @GetMapping
-    public Flux<Apartment> find(@RequestParam(required = false) String id,
+    @GetMapping(params = "page")
+    public Flux<Apartment> find(@RequestHeader(OWNER_ID) String ownerId,
+                                @RequestParam(required = false) String id,
                                 @RequestParam(required = false) String name,
                                 @RequestParam String page,
                                 @RequestParam String pageSize,
-                                @RequestParam OrderType order) {
+                                @RequestParam OrderType order,
+                                @RequestParam(required = false) String fields) {
+        String owner = CustomUtils.convertToOwner(ownerId);
         Optional<String> optionalId = CustomUtils.convertToOptional(id);
         Optional<String> optionalName = CustomUtils.convertToOptional(name);
         Integer finalPage = CustomUtils.convertToInteger(page, "Page");
         Integer finalPageSize = CustomUtils.convertToInteger(pageSize, "Page size");
+        Set<ApartmentField> finalFields = CustomUtils.convertToFields(fields);
 
         return apartmentService.findPaginated(
+                owner,
                 optionalId,
                 optionalName,
                 finalPage - 1,
                 finalPageSize,
-                order
+                order,
+                finalFields
+        );
+    }
+
+    @GetMapping(params = "!page")
+    public Mono<CursorPage<Apartment>> findByCursor(@RequestHeader(OWNER_ID) String ownerId,
+                                                    @RequestParam(required = false) String name,
+                                                    @RequestParam(required = false) String after,
+                                                    @RequestParam(required = false) String before,
+                                                    @RequestParam String pageSize,
+                                                    @RequestParam(required = false) OrderType order,
+                                                    @RequestParam(required = false) String fields) {
+        String owner = CustomUtils.convertToOwner(ownerId);
+        Optional<String> optionalName = CustomUtils.convertToOptional(name);
+        Optional<Cursor> optionalAfter = CustomUtils.convertToOptional(after).map(a -> Cursor.decode(a, "After"));
+        Optional<Cursor> optionalBefore = CustomUtils.convertToOptional(before).map(b -> Cursor.decode(b, "Before"));
+        if (optionalAfter.isPresent() && optionalBefore.isPresent())
+            throw AFTER_AND_BEFORE;
+        Integer finalPageSize = CustomUtils.convertToInteger(pageSize, "Page size");
+        Set<ApartmentField> finalFields = CustomUtils.convertToFields(fields);
+
+        return apartmentService.findByCursor(
+                owner,
+                optionalName,
+                optionalAfter,
+                optionalBefore,
+                finalPageSize,
+                order == null ? OrderType.ASC : order,
+                finalFields
         );
     }
 
+    @GetMapping("/search")
+    public Flux<Apartment> search(@RequestHeader(OWNER_ID) String ownerId,
+                                  @RequestParam String q,
+                                  @RequestParam(required = false) String limit) {
+        String owner = CustomUtils.convertToOwner(ownerId);
+        String query = CustomUtils.convertToOptional(q)
+                .orElseThrow(() -> new CustomBadRequestException("Search query is not valid!"));
+        Optional<Integer> optionalLimit = CustomUtils.convertToOptional(limit)
+                .map(l -> CustomUtils.convertToInteger(l, "Limit"));
+
+        return apartmentService.search(owner, query, optionalLimit);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Apartment> export(@RequestHeader(OWNER_ID) String ownerId,
+                                  @RequestParam(required = false) String name,
+                                  @RequestParam(required = false) String after) {
+        return apartmentService.export(
+                CustomUtils.convertToOwner(ownerId),
+                CustomUtils.convertToOptional(name),
+                CustomUtils.convertToOptional(after)
+        );
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Apartment>> exportEvents(@RequestHeader(OWNER_ID) String ownerId,
+                                                         @RequestParam(required = false) String name,
+                                                         @RequestParam(required = false) String after,
+                                                         @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        // each event id is the apartment _id, so a reconnecting EventSource resumes from its Last-Event-ID
+        return apartmentService.export(
+                        CustomUtils.convertToOwner(ownerId),
+                        CustomUtils.convertToOptional(name),
+                        CustomUtils.convertToOptional(lastEventId).or(() -> CustomUtils.convertToOptional(after))
+                )
+                .map(apartment -> ServerSentEvent.builder(apartment)
+                        .id(apartment.getId())
+                        .build());
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ApartmentChange>> changes(@RequestHeader(OWNER_ID) String ownerId) {
+        return changeBroadcaster.subscribe(CustomUtils.convertToOwner(ownerId));
+    }
+
+    @GetMapping("/sync")
+    public Mono<SyncPage> sync(@RequestHeader(OWNER_ID) String ownerId,
+                               @RequestParam(required = false) String token,
+                               @RequestParam(required = false) String pageSize) {
+        String owner = CustomUtils.convertToOwner(ownerId);
+        Optional<SyncToken> optionalToken = CustomUtils.convertToOptional(token).map(t -> SyncToken.decode(t, "Token"));
+        Optional<Integer> optionalPageSize = CustomUtils.convertToOptional(pageSize)
+                .map(p -> CustomUtils.convertToInteger(p, "Page size"));
+
+        return apartmentService.sync(owner, optionalToken, optionalPageSize);
+    }
+
     @DeleteMapping("/{id}")
-    public Mono<String> deleteById(@PathVariable String id) {
-        return apartmentService.deleteById(id);
+    public Mono<String> deleteById(@RequestHeader(OWNER_ID) String ownerId,
+                                   @PathVariable String id) {
+        return apartmentService.deleteById(CustomUtils.convertToOwner(ownerId), id);
+    }
+
+    @PostMapping(value = "/delete", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ApartmentBulkResult> deleteAll(@RequestHeader(OWNER_ID) String ownerId,
+                                               @RequestBody ApartmentBulkDelete delete) {
+        String owner = CustomUtils.convertToOwner(ownerId);
+        boolean byIds = delete.getIds() != null;
+        boolean byNamePrefix = CustomUtils.convertToOptional(delete.getNamePrefix()).isPresent();
+        if (byIds == byNamePrefix)
+            throw IDS_OR_NAME_PREFIX;
+
+        return apartmentService.deleteAll(owner, delete);
+    }
+
+    private ResponseEntity<Apartment> toResponse(Apartment apartment) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        Optional.ofNullable(CustomUtils.toETag(apartment.getVersion()))
+                .ifPresent(builder::eTag);
+        Optional.ofNullable(apartment.getModified())
+                .map(modified -> modified.atZone(ZoneId.systemDefault()))
+                .ifPresent(builder::lastModified);
+        return builder.body(apartment);
     }
 }
@@ -1,8 +1,9 @@
 package co.ke.proaktivio.qwanguapi.exceptions;
 
-public class CustomAlreadyExistsException extends RuntimeException {
+import org.springframework.http.HttpStatus;
 
+public class CustomAlreadyExistsException extends CustomException {
     public CustomAlreadyExistsException(String message) {
-        super(message);
+        super(HttpStatus.CONFLICT, message);
     }
 }
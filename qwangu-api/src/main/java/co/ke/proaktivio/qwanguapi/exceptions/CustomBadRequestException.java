@@ -1,7 +1,9 @@
 package co.ke.proaktivio.qwanguapi.exceptions;
 
-public class CustomBadRequestException extends RuntimeException {
+import org.springframework.http.HttpStatus;
+
+public class CustomBadRequestException extends CustomException {
     public CustomBadRequestException(String message) {
-        super(message);
+        super(HttpStatus.BAD_REQUEST, message);
     }
 }
@@ -0,0 +1,9 @@
+package co.ke.proaktivio.qwanguapi.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+public class CustomConflictException extends CustomException {
+    public CustomConflictException(String message) {
+        super(HttpStatus.CONFLICT, message);
+    }
+}
@@ -0,0 +1,19 @@
+package co.ke.proaktivio.qwanguapi.exceptions;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * An expected outcome reported to the client with its status, rather than a failure. These are
+ * raised on hot paths (a missing apartment, a taken name), so no stack trace is captured and
+ * suppression is disabled, which also makes an instance safe to preallocate and share.
+ */
+@Getter
+public abstract class CustomException extends RuntimeException {
+    private final HttpStatus status;
+
+    protected CustomException(HttpStatus status, String message) {
+        super(message, null, false, false);
+        this.status = status;
+    }
+}
@@ -1,7 +1,9 @@
 package co.ke.proaktivio.qwanguapi.exceptions;
 
-public class CustomNotFoundException extends RuntimeException {
+import org.springframework.http.HttpStatus;
+
+public class CustomNotFoundException extends CustomException {
     public CustomNotFoundException(String message) {
-        super(message);
+        super(HttpStatus.NOT_FOUND, message);
     }
 }
@@ -0,0 +1,9 @@
+package co.ke.proaktivio.qwanguapi.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+public class CustomPreconditionFailedException extends CustomException {
+    public CustomPreconditionFailedException(String message) {
+        super(HttpStatus.PRECONDITION_FAILED, message);
+    }
+}
@@ -0,0 +1,67 @@
+package co.ke.proaktivio.qwanguapi.filters;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to observed latency: it grows by one for every fast request that
+ * found the limit in use, and shrinks by the backoff ratio for every request slower than the
+ * threshold or failed by the database. Requests over the limit are refused instead of queued.
+ */
+public class AimdLimiter {
+    private final ApartmentProperties.Admission.Limit properties;
+    private final long latencyThresholdNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    public AimdLimiter(ApartmentProperties.Admission.Limit properties) {
+        this.properties = properties;
+        this.latencyThresholdNanos = properties.getLatencyThreshold().toNanos();
+        this.limit = properties.getInitialLimit();
+    }
+
+    /**
+     * Takes a permit, returning the number of requests in flight with it, or a negative value when
+     * the limit has been reached.
+     */
+    public int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit)
+                return -1;
+            if (inFlight.compareAndSet(current, current + 1))
+                return current + 1;
+        }
+    }
+
+    /**
+     * Gives back a permit taken while {@code inFlight} requests were running and adjusts the limit
+     * to how the request went. A request that was cancelled says nothing about the database and
+     * leaves the limit as it is.
+     */
+    public void release(int inFlight, long latencyNanos, Outcome outcome) {
+        this.inFlight.decrementAndGet();
+        if (outcome == Outcome.IGNORED)
+            return;
+        synchronized (this) {
+            if (outcome == Outcome.DROPPED || latencyNanos > latencyThresholdNanos)
+                limit = Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio());
+            // a limit that was never approached has not been shown to be safe, so it is not raised
+            else if (inFlight * 2 >= limit)
+                limit = Math.min(properties.getMaxLimit(), limit + 1);
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public enum Outcome {
+        SUCCESS,DROPPED,IGNORED
+    }
+}
@@ -0,0 +1,144 @@
+package co.ke.proaktivio.qwanguapi.filters;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sheds requests to the apartment API before they reach the controller. Reads and writes each
+ * have an {@link AimdLimiter}, and a request over the limit is answered with a 503 straight away
+ * instead of waiting on a slow database. Optionally each client is also held to a request rate,
+ * with a 429 once it is exceeded. Both answers carry a {@code Retry-After} and are raised as errors,
+ * so they get the same problem body as any other error.
+ */
+@Component
+public class ApartmentAdmissionFilter implements WebFilter, Ordered {
+    static final String PATH = "/v1/apartments";
+    // streams stay open for as long as the client wants, holding a permit would read as overload
+    private static final Set<String> STREAMS = Set.of(PATH + "/import", PATH + "/export", PATH + "/changes");
+    // bulk writes run as long as their body, the same as an import, but share their paths with ordinary requests
+    private static final Set<String> BULK_WRITES = Set.of(HttpMethod.PATCH + " " + PATH, HttpMethod.POST + " " + PATH + "/delete");
+
+    private final ApartmentProperties.Admission properties;
+    private final Lane reads;
+    private final Lane writes;
+    private final Cache<String, TokenBucket> clients;
+
+    public ApartmentAdmissionFilter(ApartmentProperties properties, MeterRegistry registry) {
+        this.properties = properties.getAdmission();
+        this.reads = lane("read", new AimdLimiter(this.properties.getReads()), registry);
+        this.writes = lane("write", new AimdLimiter(this.properties.getWrites()), registry);
+        this.clients = Caffeine.newBuilder()
+                .maximumSize(this.properties.getClients().getMaximumSize())
+                .expireAfterAccess(this.properties.getClients().getExpireAfterAccess())
+                .build();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().pathWithinApplication().value();
+        HttpMethod method = request.getMethod();
+        if (!properties.isEnabled() || !(path.equals(PATH) || path.startsWith(PATH + "/")) || STREAMS.contains(path) ||
+                BULK_WRITES.contains(method + " " + path))
+            return chain.filter(exchange);
+
+        Lane lane = method == HttpMethod.GET || method == HttpMethod.HEAD ? reads : writes;
+        if (properties.getClients().isEnabled()) {
+            ApartmentProperties.Admission.Clients client = properties.getClients();
+            long wait = clients.get(clientKey(request), key -> new TokenBucket(client.getRate(), client.getBurst(), System.nanoTime()))
+                    .tryConsume(System.nanoTime());
+            if (wait > 0) {
+                lane.rateLimited().increment();
+                return reject(exchange, HttpStatus.TOO_MANY_REQUESTS, Duration.ofNanos(wait));
+            }
+        }
+        int inFlight = lane.limiter().tryAcquire();
+        if (inFlight < 0) {
+            lane.limited().increment();
+            return reject(exchange, HttpStatus.SERVICE_UNAVAILABLE, properties.getRetryAfter());
+        }
+
+        long start = System.nanoTime();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        return chain.filter(exchange)
+                .doOnError(error::set)
+                .doFinally(signal -> lane.limiter().release(inFlight, System.nanoTime() - start, outcome(signal, error.get())));
+    }
+
+    @Override
+    public int getOrder() {
+        // runs after the http server metrics filter, so shed requests are still recorded
+        return Ordered.HIGHEST_PRECEDENCE + 10;
+    }
+
+    private String clientKey(ServerHttpRequest request) {
+        String header = request.getHeaders().getFirst(properties.getClients().getHeader());
+        if (StringUtils.hasText(header))
+            return header;
+        return Optional.ofNullable(request.getRemoteAddress())
+                .map(address -> address.getAddress() != null ?
+                        address.getAddress().getHostAddress() :
+                        address.getHostString())
+                .orElse("unknown");
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange, HttpStatus status, Duration retryAfter) {
+        ServerHttpResponse response = exchange.getResponse();
+        // the status is set up front so the metrics filter records the shed request with it
+        response.setStatusCode(status);
+        long seconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        return Mono.error(new ResponseStatusException(status, "Too many requests, retry after %d seconds!".formatted(seconds)));
+    }
+
+    private static AimdLimiter.Outcome outcome(SignalType signal, Throwable error) {
+        if (signal == SignalType.CANCEL)
+            return AimdLimiter.Outcome.IGNORED;
+        // only failures of the database itself are a sign of overload, a 404 or a conflict is not
+        if (error instanceof DataAccessResourceFailureException || error instanceof TransientDataAccessException ||
+                error instanceof TimeoutException)
+            return AimdLimiter.Outcome.DROPPED;
+        return AimdLimiter.Outcome.SUCCESS;
+    }
+
+    private static Lane lane(String type, AimdLimiter limiter, MeterRegistry registry) {
+        Gauge.builder("qwangu.apartments.admission.limit", limiter, AimdLimiter::getLimit)
+                .tag("type", type)
+                .register(registry);
+        Gauge.builder("qwangu.apartments.admission.in.flight", limiter, AimdLimiter::getInFlight)
+                .tag("type", type)
+                .register(registry);
+        return new Lane(limiter,
+                registry.counter("qwangu.apartments.admission.rejected", "type", type, "reason", "limit"),
+                registry.counter("qwangu.apartments.admission.rejected", "type", type, "reason", "rate"));
+    }
+
+    private record Lane(AimdLimiter limiter, Counter limited, Counter rateLimited) {
+    }
+}
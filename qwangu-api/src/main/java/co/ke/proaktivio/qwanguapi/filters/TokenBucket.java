@@ -0,0 +1,35 @@
+package co.ke.proaktivio.qwanguapi.filters;
+
+/**
+ * Rate limit of a single client: tokens refill continuously at {@code rate} per second up to
+ * {@code burst}, and every request takes one.
+ */
+class TokenBucket {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final double rate;
+    private final double burst;
+    private double tokens;
+    private long refilled;
+
+    TokenBucket(int rate, int burst, long now) {
+        this.rate = rate;
+        this.burst = burst;
+        this.tokens = burst;
+        this.refilled = now;
+    }
+
+    /**
+     * Takes a token, returning zero when one was available, or else the nanoseconds until the next
+     * token is due.
+     */
+    synchronized long tryConsume(long now) {
+        tokens = Math.min(burst, tokens + (now - refilled) * rate / NANOS_PER_SECOND);
+        refilled = now;
+        if (tokens >= 1) {
+            tokens--;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) * NANOS_PER_SECOND / rate);
+    }
+}
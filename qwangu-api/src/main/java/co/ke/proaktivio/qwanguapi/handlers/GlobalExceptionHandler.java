@@ -0,0 +1,71 @@
+package co.ke.proaktivio.qwanguapi.handlers;
+
+import co.ke.proaktivio.qwanguapi.exceptions.CustomException;
+import co.ke.proaktivio.qwanguapi.pojos.Problem;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.reactive.result.view.ViewResolver;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebExceptionHandler;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Answers expected outcomes with their own status and an {@code application/problem+json} body,
+ * so clients can tell a missing apartment or a bad parameter from a server error and do not retry it.
+ * Ordered before Boot's default handler, so errors raised by filters, codecs and routing, not only by
+ * controllers, are answered in the same shape.
+ */
+@Log4j2
+@Component
+@Order(-2)
+public class GlobalExceptionHandler implements WebExceptionHandler {
+    private final ServerResponse.Context context;
+
+    public GlobalExceptionHandler(ServerCodecConfigurer codecs) {
+        List<HttpMessageWriter<?>> writers = codecs.getWriters();
+        this.context = new ServerResponse.Context() {
+            @Override
+            public List<HttpMessageWriter<?>> messageWriters() {
+                return writers;
+            }
+
+            @Override
+            public List<ViewResolver> viewResolvers() {
+                return List.of();
+            }
+        };
+    }
+
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange, Throwable e) {
+        if (exchange.getResponse().isCommitted())
+            return Mono.error(e);
+        if (e instanceof CustomException custom)
+            return problem(custom.getStatus(), custom.getMessage(), HttpHeaders.EMPTY, exchange);
+        // missing or unconvertible request parameters, unacceptable media types and unknown routes
+        if (e instanceof ResponseStatusException status)
+            return problem(status.getStatus(), status.getReason(), status.getResponseHeaders(), exchange);
+        log.error("Request to {} failed", exchange.getRequest().getPath(), e);
+        return problem(HttpStatus.INTERNAL_SERVER_ERROR, null, HttpHeaders.EMPTY, exchange);
+    }
+
+    private Mono<Void> problem(HttpStatus status, String detail, HttpHeaders headers, ServerWebExchange exchange) {
+        Problem problem = new Problem(Problem.BLANK, status.getReasonPhrase(), status.value(), detail,
+                exchange.getRequest().getPath().value());
+        return ServerResponse.status(status)
+                .headers(h -> h.addAll(headers))
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .bodyValue(problem)
+                .flatMap(response -> response.writeTo(exchange, context));
+    }
+}
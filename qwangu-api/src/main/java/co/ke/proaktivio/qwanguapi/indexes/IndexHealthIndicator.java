@@ -0,0 +1,82 @@
+package co.ke.proaktivio.qwanguapi.indexes;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.boot.actuate.health.AbstractReactiveHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Reports the state of every index the {@link IndexManager} looks after. It is part of the
+ * readiness group, so an instance is only sent traffic once its critical indexes exist, and it
+ * shows how far the builds still running have got.
+ */
+@Component
+@RequiredArgsConstructor
+public class IndexHealthIndicator extends AbstractReactiveHealthIndicator {
+    private static final Duration PROGRESS_TIMEOUT = Duration.ofSeconds(2);
+
+    private final IndexManager manager;
+    private final MongoClient client;
+
+    @Override
+    protected Mono<Health> doHealthCheck(Health.Builder builder) {
+        Map<ManagedIndex, IndexManager.State> states = manager.getStates();
+        Mono<Map<String, Object>> progress = states.containsValue(IndexManager.State.BUILDING) ?
+                progress() :
+                Mono.just(Map.of());
+        return progress.map(builds -> {
+            states.forEach((index, state) -> {
+                String name = manager.getCollectionName(index) + "." + index.getName();
+                Map<String, Object> details = new LinkedHashMap<>();
+                details.put("state", state);
+                details.put("critical", index.isCritical());
+                if (builds.containsKey(name))
+                    details.put("progress", builds.get(name));
+                builder.withDetail(name, details);
+            });
+            return builder.status(status(states)).build();
+        });
+    }
+
+    static Status status(Map<ManagedIndex, IndexManager.State> states) {
+        List<IndexManager.State> critical = states.entrySet().stream()
+                .filter(entry -> entry.getKey().isCritical())
+                .map(Map.Entry::getValue)
+                .toList();
+        if (critical.contains(IndexManager.State.FAILED) || critical.contains(IndexManager.State.CONFLICT))
+            return Status.DOWN;
+        if (critical.stream().allMatch(IndexManager.State.READY::equals))
+            return Status.UP;
+        return Status.OUT_OF_SERVICE;
+    }
+
+    private Mono<Map<String, Object>> progress() {
+        // the index build operations report how many documents they have scanned, keyed collection.index
+        Document command = new Document("currentOp", true)
+                .append("command.createIndexes", new Document("$exists", true));
+        return Mono.from(client.getDatabase("admin").runCommand(command))
+                .map(result -> result.getList("inprog", Document.class).stream()
+                        .filter(operation -> operation.get("progress") instanceof Document)
+                        .flatMap(operation -> {
+                            Document createIndexes = operation.get("command", Document.class);
+                            Document progress = operation.get("progress", Document.class);
+                            String value = "%s/%s".formatted(progress.get("done"), progress.get("total"));
+                            return createIndexes.getList("indexes", Document.class).stream()
+                                    .map(index -> Map.entry(createIndexes.getString("createIndexes") + "." + index.getString("name"), value));
+                        })
+                        .collect(Collectors.<Map.Entry<String, String>, String, Object>toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a)))
+                .timeout(PROGRESS_TIMEOUT)
+                // progress is a nicety, a user without the rights to see operations still gets the states
+                .onErrorReturn(Map.of());
+    }
+}
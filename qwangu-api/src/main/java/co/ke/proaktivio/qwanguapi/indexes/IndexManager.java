@@ -0,0 +1,211 @@
+package co.ke.proaktivio.qwanguapi.indexes;
+
+import co.ke.proaktivio.qwanguapi.configurations.MongoClientProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the indexes the application declares once it has started, instead of while the context
+ * is being created as {@code auto-index-creation} does. Each index is compared against the live
+ * ones on its collection and only built when it is missing, critical indexes first. An index with
+ * the same name but a different definition is reported and left alone, replacing it is a decision
+ * for an operator. An index a declaration explicitly replaces is dropped once its replacement is ready.
+ * A migration the indexes depend on runs first, and if it fails no index is dropped.
+ */
+@Log4j2
+public class IndexManager {
+    private final ReactiveMongoTemplate template;
+    private final MongoClientProperties.Indexes properties;
+    private final List<ManagedIndex> indexes;
+    private final Mono<Void> migration;
+    private final Map<ManagedIndex, State> states = new ConcurrentHashMap<>();
+
+    public IndexManager(ReactiveMongoTemplate template, MongoClientProperties properties, List<ManagedIndex> indexes,
+                        MeterRegistry registry) {
+        this(template, properties, indexes, Mono.empty(), registry);
+    }
+
+    public IndexManager(ReactiveMongoTemplate template, MongoClientProperties properties, List<ManagedIndex> indexes,
+                        Mono<Void> migration, MeterRegistry registry) {
+        this.template = template;
+        this.properties = properties.getIndexes();
+        this.indexes = List.copyOf(indexes);
+        this.migration = migration;
+        this.indexes.forEach(index -> states.put(index, State.PENDING));
+        for (State state : State.values())
+            Gauge.builder("qwangu.mongodb.indexes", this, manager -> manager.count(state))
+                    .tag("state", state.name().toLowerCase())
+                    .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        // startup does not wait for Mongo, the readiness probe does
+        ensureIndexes().subscribe();
+    }
+
+    /**
+     * Checks every declared index, building the missing ones one at a time so that the builds do
+     * not compete with each other for the server.
+     */
+    public Mono<Void> ensureIndexes() {
+        return migration
+                .retryWhen(Retry.backoff(properties.getMaxRetries(), properties.getRetryBackoff()))
+                .thenReturn(true)
+                .onErrorResume(e -> {
+                    log.error("Failed to migrate before ensuring indexes, no index will be dropped", e);
+                    return Mono.just(false);
+                })
+                .flatMapMany(migrated -> Flux.fromIterable(indexes)
+                        .sort(Comparator.comparing(ManagedIndex::isCritical).reversed())
+                        .concatMap(index -> ensure(index, migrated)))
+                .then();
+    }
+
+    /**
+     * The state of every declared index, in the order they were declared.
+     */
+    public Map<ManagedIndex, State> getStates() {
+        Map<ManagedIndex, State> result = new LinkedHashMap<>();
+        indexes.forEach(index -> result.put(index, states.get(index)));
+        return result;
+    }
+
+    public String getCollectionName(ManagedIndex index) {
+        return template.getCollectionName(index.getEntity());
+    }
+
+    private Mono<State> ensure(ManagedIndex index, boolean migrated) {
+        String collection = getCollectionName(index);
+        return template.indexOps(index.getEntity())
+                .getIndexInfo()
+                .filter(info -> info.getName().equals(index.getName()))
+                .next()
+                .map(info -> {
+                    if (matches(info, index))
+                        return State.READY;
+                    log.warn("Index {} on {} differs from its declaration {} {}, it has to be replaced by hand",
+                            index.getName(), collection, index.getDefinition().getIndexKeys(), index.getDefinition().getIndexOptions());
+                    return State.CONFLICT;
+                })
+                .switchIfEmpty(Mono.defer(() -> properties.isBuild() ? build(index, collection) : Mono.just(State.MISSING)))
+                .flatMap(state -> state == State.READY && properties.isBuild() && migrated && index.getReplaces() != null ?
+                        retire(index, collection).thenReturn(state) :
+                        Mono.just(state))
+                // a build that outlives the read timeout keeps running on the server, the retry waits for it again
+                .retryWhen(Retry.backoff(properties.getMaxRetries(), properties.getRetryBackoff()))
+                .onErrorResume(e -> {
+                    log.error("Failed to ensure index {} on {}", index.getName(), collection, e);
+                    return Mono.just(State.FAILED);
+                })
+                .doOnNext(state -> states.put(index, state));
+    }
+
+    private Mono<State> build(ManagedIndex index, String collection) {
+        long start = System.nanoTime();
+        return Mono.fromRunnable(() -> {
+                    states.put(index, State.BUILDING);
+                    log.info("Building index {} on {}", index.getName(), collection);
+                })
+                .then(template.indexOps(index.getEntity()).ensureIndex(index.getDefinition()))
+                .doOnNext(name -> log.info("Built index {} on {} in {}", name, collection,
+                        Duration.ofNanos(System.nanoTime() - start)))
+                .thenReturn(State.READY);
+    }
+
+    private Mono<Void> retire(ManagedIndex index, String collection) {
+        ReactiveIndexOperations indexOps = template.indexOps(index.getEntity());
+        // dropped only after its replacement is built, so queries are never left without an index
+        return indexOps.getIndexInfo()
+                .filter(info -> info.getName().equals(index.getReplaces()))
+                .next()
+                .flatMap(info -> indexOps.dropIndex(info.getName())
+                        .doOnSuccess(dropped -> log.info("Dropped index {} on {}, replaced by {}",
+                                info.getName(), collection, index.getName())));
+    }
+
+    private long count(State state) {
+        return states.values().stream()
+                .filter(state::equals)
+                .count();
+    }
+
+    static boolean matches(IndexInfo info, ManagedIndex index) {
+        Document keys = index.getDefinition().getIndexKeys();
+        Document options = index.getDefinition().getIndexOptions();
+        List<IndexField> fields = info.getIndexFields();
+        if (fields.size() != keys.size())
+            return false;
+        int position = 0;
+        for (Map.Entry<String, Object> key : keys.entrySet()) {
+            IndexField field = fields.get(position++);
+            if (!field.getKey().equals(key.getKey()) || field.getDirection() != direction(key.getValue()))
+                return false;
+        }
+        Optional<Duration> expireAfter = Optional.ofNullable(options.get("expireAfterSeconds", Number.class))
+                .map(seconds -> Duration.ofSeconds(seconds.longValue()));
+        // the server fills in every collation attribute, only the declared ones are compared
+        Optional<Document> collation = Optional.ofNullable(options.get("collation", Document.class));
+        return info.isUnique() == options.getBoolean("unique", false) &&
+                info.getExpireAfter().equals(expireAfter) &&
+                collation.map(declared -> info.getCollation()
+                                .map(live -> declared.entrySet().stream()
+                                        .allMatch(entry -> Objects.equals(live.get(entry.getKey()), entry.getValue())))
+                                .orElse(false))
+                        .orElse(info.getCollation().isEmpty());
+    }
+
+    private static Sort.Direction direction(Object value) {
+        if (!(value instanceof Number number))
+            return null;
+        return number.intValue() < 0 ? Sort.Direction.DESC : Sort.Direction.ASC;
+    }
+
+    public enum State {
+        /**
+         * Not checked yet.
+         */
+        PENDING,
+        /**
+         * Missing and being built.
+         */
+        BUILDING,
+        /**
+         * Exists as declared.
+         */
+        READY,
+        /**
+         * Missing, and building indexes is turned off.
+         */
+        MISSING,
+        /**
+         * An index with the same name but a different definition exists.
+         */
+        CONFLICT,
+        /**
+         * Could not be checked or built.
+         */
+        FAILED
+    }
+}
@@ -0,0 +1,28 @@
+package co.ke.proaktivio.qwanguapi.indexes;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+
+/**
+ * An index the application needs on the collection of {@code entity}. The application only
+ * reports ready once every critical index exists, the others merely make queries faster and are
+ * built while traffic is already being served. {@code replaces} names an index this one
+ * supersedes, which is dropped once this one is ready.
+ */
+@Data
+@AllArgsConstructor
+public class ManagedIndex {
+    private Class<?> entity;
+    private IndexDefinition definition;
+    private boolean critical;
+    private String replaces;
+
+    public ManagedIndex(Class<?> entity, IndexDefinition definition, boolean critical) {
+        this(entity, definition, critical, null);
+    }
+
+    public String getName() {
+        return definition.getIndexOptions().getString("name");
+    }
+}
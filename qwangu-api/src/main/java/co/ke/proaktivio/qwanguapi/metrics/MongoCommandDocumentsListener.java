@@ -0,0 +1,83 @@
+package co.ke.proaktivio.qwanguapi.metrics;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonValue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records how many documents each Mongo command returned or wrote. Command latency and connection
+ * pool gauges are already published by Spring Boot as {@code mongodb.driver.commands} and
+ * {@code mongodb.driver.pool.*}; this adds the document counts that latency alone does not explain.
+ */
+@RequiredArgsConstructor
+public class MongoCommandDocumentsListener implements CommandListener {
+    public static final String DOCUMENTS = "mongodb.driver.commands.documents";
+
+    private final MeterRegistry registry;
+    // the succeeded event does not carry the command, so the collection is remembered from the started event
+    private final Map<Integer, String> collections = new ConcurrentHashMap<>();
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        BsonValue collection = event.getCommand().get(collectionField(event.getCommandName()));
+        if (collection != null && collection.isString())
+            collections.put(event.getRequestId(), collection.asString().getValue());
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        String collection = collections.remove(event.getRequestId());
+        long documents = documents(event.getCommandName(), event.getResponse());
+        if (documents < 0)
+            return;
+        DistributionSummary.builder(DOCUMENTS)
+                .baseUnit("documents")
+                .tag("command", event.getCommandName())
+                .tag("collection", collection == null ? "unknown" : collection)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(documents);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        collections.remove(event.getRequestId());
+    }
+
+    /**
+     * Most commands name their collection in the field named after the command, a getMore carries its
+     * cursor id there and names the collection in a field of its own.
+     */
+    static String collectionField(String command) {
+        return "getMore".equals(command) ? "collection" : command;
+    }
+
+    static long documents(String command, BsonDocument response) {
+        return switch (command) {
+            case "find", "aggregate" -> batchSize(response, "firstBatch");
+            case "getMore" -> batchSize(response, "nextBatch");
+            case "insert", "update", "delete" -> response.getNumber("n", new BsonInt32(-1)).longValue();
+            case "findAndModify" -> response.containsKey("lastErrorObject") ?
+                    response.getDocument("lastErrorObject").getNumber("n", new BsonInt32(0)).longValue() :
+                    -1;
+            default -> -1;
+        };
+    }
+
+    private static long batchSize(BsonDocument response, String batch) {
+        BsonValue cursor = response.get("cursor");
+        if (cursor == null || !cursor.isDocument() || !cursor.asDocument().containsKey(batch))
+            return -1;
+        return cursor.asDocument().getArray(batch).size();
+    }
+}
@@ -0,0 +1,82 @@
+package co.ke.proaktivio.qwanguapi.metrics;
+
+import co.ke.proaktivio.qwanguapi.exceptions.CustomAlreadyExistsException;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomConflictException;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomNotFoundException;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomPreconditionFailedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Times reactive operations from subscription to termination and tags each recording with the
+ * operation and its outcome, so latency percentiles can be read per operation and per outcome.
+ */
+@Component
+@RequiredArgsConstructor
+public class OperationMetrics {
+    public static final String SERVICE = "qwangu.apartments.service";
+    public static final String REPOSITORY = "qwangu.apartments.repository";
+
+    static final String SUCCESS = "success";
+    static final String NOT_FOUND = "not_found";
+    static final String ALREADY_EXISTS = "already_exists";
+    static final String PRECONDITION_FAILED = "precondition_failed";
+    static final String CONFLICT = "conflict";
+    static final String ERROR = "error";
+    static final String CANCELLED = "cancelled";
+
+    private final MeterRegistry registry;
+    // looked up on every recording, registering a timer each time would build and resolve it again
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public <T> Function<Mono<T>, Mono<T>> mono(String name, String operation) {
+        return mono -> Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return mono
+                    .doOnSuccess(value -> stop(sample, name, operation, SUCCESS))
+                    .doOnError(e -> stop(sample, name, operation, outcome(e)))
+                    .doOnCancel(() -> stop(sample, name, operation, CANCELLED));
+        });
+    }
+
+    public <T> Function<Flux<T>, Flux<T>> flux(String name, String operation) {
+        return flux -> Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return flux
+                    .doOnComplete(() -> stop(sample, name, operation, SUCCESS))
+                    .doOnError(e -> stop(sample, name, operation, outcome(e)))
+                    .doOnCancel(() -> stop(sample, name, operation, CANCELLED));
+        });
+    }
+
+    private void stop(Timer.Sample sample, String name, String operation, String outcome) {
+        sample.stop(timers.computeIfAbsent(new TimerKey(name, operation, outcome), key -> Timer.builder(key.name())
+                .tag("operation", key.operation())
+                .tag("outcome", key.outcome())
+                .publishPercentileHistogram()
+                .register(registry)));
+    }
+
+    static String outcome(Throwable e) {
+        if (e instanceof CustomNotFoundException)
+            return NOT_FOUND;
+        if (e instanceof CustomAlreadyExistsException)
+            return ALREADY_EXISTS;
+        if (e instanceof CustomPreconditionFailedException)
+            return PRECONDITION_FAILED;
+        if (e instanceof CustomConflictException)
+            return CONFLICT;
+        return ERROR;
+    }
+
+    private record TimerKey(String name, String operation, String outcome) {
+    }
+}
@@ -0,0 +1,40 @@
+package co.ke.proaktivio.qwanguapi.migrations;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.models.ApartmentTombstone;
+import co.ke.proaktivio.qwanguapi.utils.CustomUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Gives apartments and tombstones written before apartments were partitioned by owner the
+ * configured default owner. Every query names an owner, so until they have one they cannot be
+ * read, updated, deleted or synced. Running it again finds nothing left to stamp.
+ */
+@Log4j2
+@RequiredArgsConstructor
+public class ApartmentOwnerBackfill {
+    private final ReactiveMongoTemplate template;
+    private final ApartmentProperties properties;
+
+    public Mono<Void> backfill() {
+        return Mono.fromCallable(() -> CustomUtils.convertToOwner(properties.getDefaultOwner()))
+                .flatMapMany(owner -> Flux.just(Apartment.class, ApartmentTombstone.class)
+                        .concatMap(entity -> template
+                                // matches a missing owner as well as a null one
+                                .updateMulti(new Query(Criteria.where("owner").is(null)), new Update().set("owner", owner), entity)
+                                .doOnNext(result -> {
+                                    if (result.getModifiedCount() > 0)
+                                        log.info("Gave {} documents in {} the default owner {}", result.getModifiedCount(),
+                                                template.getCollectionName(entity), owner);
+                                })))
+                .then();
+    }
+}
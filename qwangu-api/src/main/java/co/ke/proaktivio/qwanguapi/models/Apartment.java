@@ -1,7 +1,7 @@
 package co.ke.proaktivio.qwanguapi.models;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
-import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -12,8 +12,8 @@ import java.time.LocalDateTime;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class Apartment extends BasicEntity {
-    @Indexed(unique = true)
     private String name;
     private LocalDateTime created;
     private LocalDateTime modified;
@@ -0,0 +1,23 @@
+package co.ke.proaktivio.qwanguapi.models;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marks a deleted {@link Apartment} for clients that sync changes, shares the apartment's
+ * {@code _id} and owner. Mongo removes tombstones once they expire, a sync token older than that has to start over.
+ */
+@Document(value = "APARTMENT_TOMBSTONE")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ApartmentTombstone {
+    @Id
+    private String id;
+    private String owner;
+    private LocalDateTime deleted;
+    private LocalDateTime expiresAt;
+}
@@ -2,6 +2,7 @@ package co.ke.proaktivio.qwanguapi.models;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 
 //@EqualsAndHashCode
 //@ToString
@@ -11,4 +12,11 @@ import org.springframework.data.annotation.Id;
 public abstract class BasicEntity {
     @Id
     private String id;
+    /**
+     * The landlord the entity belongs to. Every query is scoped to one owner and every index
+     * leads with it, so the collection can be sharded by owner and queries stay targeted.
+     */
+    private String owner;
+    @Version
+    private Long version;
 }
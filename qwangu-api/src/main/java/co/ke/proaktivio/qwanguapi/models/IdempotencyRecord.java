@@ -0,0 +1,29 @@
+package co.ke.proaktivio.qwanguapi.models;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * The outcome of a write sent with an {@code Idempotency-Key}. A record is inserted as
+ * {@link Status#IN_PROGRESS} before the write runs, so the key is claimed by exactly one request,
+ * and is completed with the response the write produced. Mongo removes records once they expire.
+ */
+@Document(value = "IDEMPOTENCY_KEY")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class IdempotencyRecord {
+    @Id
+    private String key;
+    private String fingerprint;
+    private Status status;
+    private Apartment response;
+    private LocalDateTime expiresAt;
+
+    public enum Status {
+        IN_PROGRESS,COMPLETED
+    }
+}
@@ -0,0 +1,19 @@
+package co.ke.proaktivio.qwanguapi.pojos;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Selects the apartments a bulk delete removes, either by id or by a name prefix matched the way
+ * search matches it. Exactly one of the two is given.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@EqualsAndHashCode
+@ToString
+public class ApartmentBulkDelete {
+    private List<String> ids;
+    private String namePrefix;
+}
@@ -0,0 +1,18 @@
+package co.ke.proaktivio.qwanguapi.pojos;
+
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@EqualsAndHashCode
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ApartmentBulkResult {
+    private long index;
+    private BulkStatus status;
+    private Apartment apartment;
+    private String message;
+}
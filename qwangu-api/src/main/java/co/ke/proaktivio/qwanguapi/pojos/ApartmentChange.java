@@ -0,0 +1,24 @@
+package co.ke.proaktivio.qwanguapi.pojos;
+
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@EqualsAndHashCode
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ApartmentChange {
+    private ChangeType type;
+    private String id;
+    /**
+     * The owner of the apartment.
+     */
+    private String owner;
+    /**
+     * The apartment after the change, absent for deletes.
+     */
+    private Apartment apartment;
+}
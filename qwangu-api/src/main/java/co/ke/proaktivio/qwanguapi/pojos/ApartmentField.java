@@ -0,0 +1,34 @@
+package co.ke.proaktivio.qwanguapi.pojos;
+
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Set;
+
+/**
+ * Apartment fields a client can ask for with {@code fields=}. The {@code id} is always returned,
+ * since cursors and follow-up requests are built from it.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ApartmentField {
+    ID("id"),NAME("name"),CREATED("created"),MODIFIED("modified"),VERSION("version");
+
+    private final String property;
+
+    /**
+     * Copies only the requested fields of an apartment, leaving the original untouched.
+     */
+    public static Apartment project(Apartment apartment, Set<ApartmentField> fields) {
+        if (fields.isEmpty())
+            return apartment;
+        Apartment projected = new Apartment(
+                fields.contains(NAME) ? apartment.getName() : null,
+                fields.contains(CREATED) ? apartment.getCreated() : null,
+                fields.contains(MODIFIED) ? apartment.getModified() : null);
+        projected.setId(apartment.getId());
+        projected.setVersion(fields.contains(VERSION) ? apartment.getVersion() : null);
+        return projected;
+    }
+}
@@ -0,0 +1,25 @@
+package co.ke.proaktivio.qwanguapi.pojos;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+
+/**
+ * A partial update, fields left null are not changed. A bulk patch names the apartment and the
+ * version it expects in {@code id} and {@code version}, a single patch takes them from the path and
+ * the If-Match header instead.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@EqualsAndHashCode
+@ToString
+public class ApartmentPatch {
+    private String id;
+    private Long version;
+    private String name;
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return name == null;
+    }
+}
@@ -0,0 +1,5 @@
+package co.ke.proaktivio.qwanguapi.pojos;
+
+public enum BulkStatus {
+    CREATED,UPDATED,DELETED,ALREADY_EXISTS,NOT_FOUND,PRECONDITION_FAILED,FAILED
+}
@@ -0,0 +1,5 @@
+package co.ke.proaktivio.qwanguapi.pojos;
+
+public enum ChangeType {
+    INSERT,UPDATE,DELETE
+}
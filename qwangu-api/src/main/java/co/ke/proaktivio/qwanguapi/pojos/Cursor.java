@@ -0,0 +1,45 @@
+package co.ke.proaktivio.qwanguapi.pojos;
+
+import co.ke.proaktivio.qwanguapi.exceptions.CustomBadRequestException;
+import lombok.*;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset pagination token. Encodes the {@code _id} of the last apartment a client has
+ * seen together with the {@link OrderType} of the listing, so that the next page can be served
+ * with a range query on {@code _id} instead of a skip.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@EqualsAndHashCode
+@ToString
+public class Cursor {
+    private static final String SEPARATOR = ":";
+
+    private String id;
+    private OrderType order;
+
+    public String encode() {
+        String value = order.name() + SEPARATOR + id;
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token, String name) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int index = value.indexOf(SEPARATOR);
+            String id = value.substring(index + 1);
+            if (index < 0 || !StringUtils.hasText(id))
+                throw new CustomBadRequestException("%s is not valid!".formatted(name));
+            return new Cursor(id, OrderType.valueOf(value.substring(0, index)));
+        } catch (IllegalArgumentException e) {
+            throw new CustomBadRequestException("%s is not valid!".formatted(name));
+        }
+    }
+}
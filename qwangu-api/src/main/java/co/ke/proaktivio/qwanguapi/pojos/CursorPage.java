@@ -0,0 +1,16 @@
+package co.ke.proaktivio.qwanguapi.pojos;
+
+import lombok.*;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@EqualsAndHashCode
+@ToString
+public class CursorPage<T> {
+    private List<T> content;
+    private String next;
+    private String previous;
+}
@@ -0,0 +1,22 @@
+package co.ke.proaktivio.qwanguapi.pojos;
+
+import lombok.*;
+
+/**
+ * An RFC 7807 problem details body. {@code type} is left as {@code about:blank}, so {@code title}
+ * is the reason phrase of {@code status} and {@code detail} says what went wrong with this request.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@EqualsAndHashCode
+@ToString
+public class Problem {
+    public static final String BLANK = "about:blank";
+
+    private String type;
+    private String title;
+    private int status;
+    private String detail;
+    private String instance;
+}
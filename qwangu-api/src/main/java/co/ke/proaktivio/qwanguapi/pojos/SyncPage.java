@@ -0,0 +1,24 @@
+package co.ke.proaktivio.qwanguapi.pojos;
+
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Apartments created or modified and the ids of apartments deleted since a {@link SyncToken}.
+ * {@code token} is sent with the next sync, which should follow straight away while {@code more}
+ * is set. {@code reset} tells the client its token was too old and it must replace, not merge, what it holds.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@EqualsAndHashCode
+@ToString
+public class SyncPage {
+    private List<Apartment> changed;
+    private List<String> deleted;
+    private String token;
+    private boolean more;
+    private boolean reset;
+}
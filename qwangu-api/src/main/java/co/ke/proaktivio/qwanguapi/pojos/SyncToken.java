@@ -0,0 +1,48 @@
+package co.ke.proaktivio.qwanguapi.pojos;
+
+import co.ke.proaktivio.qwanguapi.exceptions.CustomBadRequestException;
+import lombok.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque delta sync token. Encodes how far a client has synced, as the {@code modified} time and
+ * {@code _id} of the last change it received, where no id means every change made before
+ * {@code modified} has been received. {@code synced} is the time the client's copy was last
+ * complete, which tells whether tombstones it still needs may have expired since.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@EqualsAndHashCode
+@ToString
+public class SyncToken {
+    // neither an id nor an ISO time ever holds a comma
+    private static final String SEPARATOR = ",";
+
+    private LocalDateTime modified;
+    private String id;
+    private LocalDateTime synced;
+
+    public String encode() {
+        String value = String.join(SEPARATOR, id == null ? "" : id, modified.toString(), synced.toString());
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SyncToken decode(String token, String name) {
+        try {
+            String[] values = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+            if (values.length != 3)
+                throw new CustomBadRequestException("%s is not valid!".formatted(name));
+            return new SyncToken(LocalDateTime.parse(values[1]), values[0].isEmpty() ? null : values[0],
+                    LocalDateTime.parse(values[2]));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new CustomBadRequestException("%s is not valid!".formatted(name));
+        }
+    }
+}
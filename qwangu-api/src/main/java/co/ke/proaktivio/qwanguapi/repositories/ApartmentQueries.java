@@ -0,0 +1,154 @@
+package co.ke.proaktivio.qwanguapi.repositories;
+
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentField;
+import co.ke.proaktivio.qwanguapi.pojos.OrderType;
+import co.ke.proaktivio.qwanguapi.pojos.SyncToken;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
+import static co.ke.proaktivio.qwanguapi.repositories.CustomApartmentRepositoryImpl.NAME_SEARCH_COLLATION;
+
+/**
+ * Every query {@link CustomApartmentRepositoryImpl} sends, built in one place so that the
+ * explain plan tests run exactly the queries the repository does. Each shape is served by one of
+ * the indexes declared in {@code MongoIndexConfiguration} without a collection scan or an
+ * in-memory sort. Every query is scoped to one owner and every index leads with it, so on a
+ * collection sharded by owner each query is routed to a single shard.
+ */
+final class ApartmentQueries {
+    // U+FFFF carries the highest primary weight in the root collation, so it closes the prefix range
+    private static final String PREFIX_UPPER_BOUND = "\uffff";
+
+    private ApartmentQueries() {
+    }
+
+    static Query byId(String owner, String id) {
+        return new Query()
+                .addCriteria(Criteria.where("owner").is(owner))
+                .addCriteria(Criteria.where("id").is(id));
+    }
+
+    static Query byIdAndVersion(String owner, String id, Optional<Long> version) {
+        Query query = byId(owner, id);
+        version.ifPresent(v -> query.addCriteria(Criteria.where("version").is(v)));
+        return query;
+    }
+
+    /**
+     * Served by {@code owner_id}, the bulk writes read back the apartments they touched with it.
+     */
+    static Query byIds(String owner, Collection<String> ids) {
+        return byOwner(owner)
+                .addCriteria(Criteria.where("id").in(ids));
+    }
+
+    /**
+     * Served by {@code owner_id}, or by {@code owner_name_id} when filtered by name.
+     */
+    static Query paginated(String owner, Optional<String> optionalId, Optional<String> optionalApartmentName, int page, int pageSize,
+                           OrderType order, Set<ApartmentField> fields) {
+        Query query = byOwner(owner);
+        optionalId.ifPresent(s -> query.addCriteria(Criteria.where("id").is(s)));
+        optionalApartmentName.ifPresent(s -> query.addCriteria(Criteria.where("name").is(s)));
+        query.with(PageRequest.of(page, pageSize))
+                .with(byId(order.equals(OrderType.ASC)));
+        include(query, fields);
+        return query;
+    }
+
+    /**
+     * Served by {@code owner_id}, or by {@code owner_name_id} when filtered by name. Walking
+     * backwards from a "before" cursor scans in the opposite direction.
+     */
+    static Query byCursor(String owner, Optional<String> optionalApartmentName, Optional<String> optionalAfterId,
+                          Optional<String> optionalBeforeId, int limit, OrderType order, Set<ApartmentField> fields) {
+        boolean ascending = order.equals(OrderType.ASC) != optionalBeforeId.isPresent();
+        Query query = byOwner(owner);
+        optionalApartmentName.ifPresent(s -> query.addCriteria(Criteria.where("name").is(s)));
+        optionalAfterId.or(() -> optionalBeforeId)
+                .map(ApartmentQueries::toObjectId)
+                .ifPresent(id -> query.addCriteria(ascending ?
+                        Criteria.where("id").gt(id) :
+                        Criteria.where("id").lt(id)));
+        query.limit(limit)
+                .with(byId(ascending));
+        include(query, fields);
+        return query;
+    }
+
+    /**
+     * Served by {@code owner_name_ci}. A range on the collated index rather than a case-insensitive
+     * regex, which would scan every key. The collation applies to the owner as well, which is
+     * exact because owners are lower cased.
+     */
+    static Query search(String owner, String prefix, int limit) {
+        return byOwner(owner)
+                .addCriteria(Criteria.where("name").gte(prefix).lt(prefix + PREFIX_UPPER_BOUND))
+                .with(Sort.by(Sort.Order.asc("name")))
+                .collation(NAME_SEARCH_COLLATION)
+                .limit(limit);
+    }
+
+    /**
+     * Served by {@code owner_id}, or by {@code owner_name_id} when filtered by name. A single
+     * cursor in {@code _id} order, so an interrupted export can resume after the last {@code _id} it delivered.
+     */
+    static Query export(String owner, Optional<String> optionalApartmentName, Optional<String> optionalAfterId, int batchSize) {
+        Query query = byOwner(owner);
+        optionalApartmentName.ifPresent(s -> query.addCriteria(Criteria.where("name").is(s)));
+        optionalAfterId.map(ApartmentQueries::toObjectId)
+                .ifPresent(id -> query.addCriteria(Criteria.where("id").gt(id)));
+        return query.with(byId(true))
+                .cursorBatchSize(batchSize);
+    }
+
+    /**
+     * Changes made after a sync token and before {@code until}, in ({@code field}, {@code _id})
+     * order so that a token resumes in the middle of changes made at the same time. Served by
+     * {@code owner_modified_id} and {@code owner_deleted_id}. Both branches of the {@code $or}
+     * read that index in order, so they are merged rather than sorted. The owner is repeated in
+     * each branch, since an {@code $or} beside another condition is not merged that way.
+     */
+    static Query changedSince(String field, String owner, Optional<SyncToken> since, LocalDateTime until, int limit) {
+        Criteria criteria = since
+                .map(token -> token.getId() == null || !token.getModified().isBefore(until) ?
+                        Criteria.where("owner").is(owner).and(field).gte(token.getModified()).lt(until) :
+                        new Criteria().orOperator(
+                                Criteria.where("owner").is(owner).and(field).gt(token.getModified()).lt(until),
+                                Criteria.where("owner").is(owner).and(field).is(token.getModified())
+                                        .and("id").gt(toObjectId(token.getId()))))
+                .orElseGet(() -> Criteria.where("owner").is(owner).and(field).lt(until));
+        return new Query()
+                .addCriteria(criteria)
+                .with(Sort.by(Sort.Order.asc(field), Sort.Order.asc("id")))
+                .limit(limit);
+    }
+
+    private static Query byOwner(String owner) {
+        return new Query()
+                .addCriteria(Criteria.where("owner").is(owner));
+    }
+
+    private static Sort byId(boolean ascending) {
+        return ascending ?
+                Sort.by(Sort.Order.asc("id")) :
+                Sort.by(Sort.Order.desc("id"));
+    }
+
+    private static void include(Query query, Set<ApartmentField> fields) {
+        // a projection keeps unrequested fields off the wire and out of the converter, _id is always returned
+        fields.forEach(field -> query.fields().include(field.getProperty()));
+    }
+
+    private static Object toObjectId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
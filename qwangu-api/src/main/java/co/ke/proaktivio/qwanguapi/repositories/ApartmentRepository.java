@@ -3,7 +3,11 @@ package co.ke.proaktivio.qwanguapi.repositories;
 import co.ke.proaktivio.qwanguapi.models.Apartment;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
 
 @Repository
 public interface ApartmentRepository extends ReactiveMongoRepository<Apartment, String>, CustomApartmentRepository {
+    Mono<Apartment> findByIdAndOwner(String id, String owner);
+
+    Mono<Apartment> findByOwnerAndName(String owner, String name);
 }
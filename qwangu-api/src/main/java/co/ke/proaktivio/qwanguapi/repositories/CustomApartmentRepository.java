@@ -1,20 +1,48 @@
 package co.ke.proaktivio.qwanguapi.repositories;
 
 import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.models.ApartmentTombstone;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentBulkResult;
 import co.ke.proaktivio.qwanguapi.pojos.ApartmentDto;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentField;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentPatch;
 import co.ke.proaktivio.qwanguapi.pojos.OrderType;
+import co.ke.proaktivio.qwanguapi.pojos.SyncToken;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface CustomApartmentRepository {
 
-    Mono<Apartment> create(ApartmentDto dto);
+    Mono<Apartment> create(String owner, ApartmentDto dto);
 
-    Mono<Apartment> update(String id, ApartmentDto dto);
+    Flux<ApartmentBulkResult> createAll(String owner, List<ApartmentDto> dtos);
 
-    Flux<Apartment> findPaginated(Optional<String> optionalId, Optional<String> optionalApartmentName, int page, int pageSize, OrderType order);
+    Mono<Apartment> update(String owner, String id, ApartmentDto dto, Optional<Long> version);
 
-    Mono<String> delete(String id);
+    Mono<Apartment> patch(String owner, String id, ApartmentPatch patch, Optional<Long> version);
+
+    Flux<ApartmentBulkResult> patchAll(String owner, List<ApartmentPatch> patches);
+
+    Flux<Apartment> findPaginated(String owner, Optional<String> optionalId, Optional<String> optionalApartmentName, int page, int pageSize, OrderType order, Set<ApartmentField> fields);
+
+    Flux<Apartment> findByCursor(String owner, Optional<String> optionalApartmentName, Optional<String> optionalAfterId, Optional<String> optionalBeforeId, int limit, OrderType order, Set<ApartmentField> fields);
+
+    Flux<Apartment> search(String owner, String prefix, int limit);
+
+    Flux<Apartment> export(String owner, Optional<String> optionalApartmentName, Optional<String> optionalAfterId, int batchSize);
+
+    Flux<Apartment> findModifiedSince(String owner, Optional<SyncToken> since, LocalDateTime until, int limit);
+
+    Flux<ApartmentTombstone> findDeletedSince(String owner, SyncToken since, LocalDateTime until, int limit);
+
+    Mono<String> delete(String owner, String id);
+
+    Flux<ApartmentBulkResult> deleteByIds(String owner, List<String> ids);
+
+    Flux<ApartmentBulkResult> deleteByNamePrefix(String owner, String prefix, int batchSize);
 }
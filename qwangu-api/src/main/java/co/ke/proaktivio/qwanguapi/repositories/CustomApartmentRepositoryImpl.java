@@ -1,91 +1,420 @@
 package co.ke.proaktivio.qwanguapi.repositories;
 
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.configurations.ReactiveMongoTemplateConfiguration;
 import co.ke.proaktivio.qwanguapi.exceptions.CustomAlreadyExistsException;
 import co.ke.proaktivio.qwanguapi.exceptions.CustomNotFoundException;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomPreconditionFailedException;
+import co.ke.proaktivio.qwanguapi.metrics.OperationMetrics;
 import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.models.ApartmentTombstone;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentBulkResult;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentChange;
 import co.ke.proaktivio.qwanguapi.pojos.ApartmentDto;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentField;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentPatch;
+import co.ke.proaktivio.qwanguapi.pojos.BulkStatus;
+import co.ke.proaktivio.qwanguapi.pojos.ChangeType;
 import co.ke.proaktivio.qwanguapi.pojos.OrderType;
-import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import co.ke.proaktivio.qwanguapi.pojos.SyncToken;
+import co.ke.proaktivio.qwanguapi.services.implementations.InProcessApartmentChangeSource;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.convert.UpdateMapper;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Collation.ComparisonLevel;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static co.ke.proaktivio.qwanguapi.metrics.OperationMetrics.REPOSITORY;
 
-@RequiredArgsConstructor
 public class CustomApartmentRepositoryImpl implements CustomApartmentRepository {
+    /**
+     * Case-insensitive (but accent-sensitive) collation shared by the name search index and the
+     * queries that must use it. A query only uses a collated index when its collation matches exactly.
+     */
+    public static final Collation NAME_SEARCH_COLLATION = Collation.of("en").strength(ComparisonLevel.secondary());
+    public static final Index NAME_SEARCH_INDEX = new Index()
+            .on("owner", Sort.Direction.ASC)
+            .on("name", Sort.Direction.ASC)
+            .named("owner_name_ci")
+            .collation(NAME_SEARCH_COLLATION);
+
     private final ReactiveMongoTemplate template;
+    // listings may lag behind writes, so they can be served by secondaries; lookups by id or name stay on the primary
+    private final ReactiveMongoTemplate readOnlyTemplate;
+    private final ApartmentProperties properties;
+    private final InProcessApartmentChangeSource changes;
+    private final OperationMetrics metrics;
+
+    public CustomApartmentRepositoryImpl(ReactiveMongoTemplate template,
+                                         @Qualifier(ReactiveMongoTemplateConfiguration.READ_ONLY_TEMPLATE) ReactiveMongoTemplate readOnlyTemplate,
+                                         ApartmentProperties properties, InProcessApartmentChangeSource changes,
+                                         OperationMetrics metrics) {
+        this.template = template;
+        this.readOnlyTemplate = readOnlyTemplate;
+        this.properties = properties;
+        this.changes = changes;
+        this.metrics = metrics;
+    }
 
     public Flux<Apartment> find(Query query) {
         return template.find(query, Apartment.class);
     }
 
     @Override
-    public Mono<Apartment> create(ApartmentDto dto) {
+    public Mono<Apartment> create(String owner, ApartmentDto dto) {
         String name = dto.getName();
-        Query query = new Query()
-                .addCriteria(Criteria.where("name").is(name));
+        LocalDateTime now = LocalDateTime.now();
+        // the unique index on owner and name decides conflicts, so a create is a single round trip
         return template
-                .exists(query, Apartment.class)
-                .flatMap(exists -> {
-                    if (exists)
-                        throw new CustomAlreadyExistsException("Apartment %s already exists!".formatted(name));
-                    LocalDateTime now = LocalDateTime.now();
-                    Mono<Apartment> saved = template.save(new Apartment(name, now, now));
-                    return saved;
-                });
+                .insert(newApartment(owner, name, now))
+                .onErrorMap(DuplicateKeyException.class,
+                        e -> new CustomAlreadyExistsException("Apartment %s already exists!".formatted(name)))
+                .doOnNext(apartment -> changes.publish(new ApartmentChange(ChangeType.INSERT, apartment.getId(), owner, apartment)))
+                .transform(metrics.mono(REPOSITORY, "create"));
     }
 
     @Override
-    public Mono<Apartment> update(String id, ApartmentDto dto) {
-        String name = dto.getName();
-        Query query = new Query()
-                .addCriteria(Criteria.where("name").is(name));
-        Mono<Apartment> findByIdResult = template.findById(id, Apartment.class)
-                .switchIfEmpty(Mono.error(new CustomNotFoundException("Apartment with id %s does not exists!".formatted(id))));
-        Mono<List<Apartment>> findByNameResult = template.find(query, Apartment.class).collectList();
-
-        return findByIdResult.zipWith(findByNameResult, ((apartment, apartments) -> {
-                    if (apartments != null && apartments.size() > 0) {
-                        for (Apartment apart : apartments) {
-                            if (apart.getId() != id && apart.getName().equals(name))
-                                throw new CustomAlreadyExistsException("Apartment %s already exists!".formatted(name));
-                        }
-                    }
-                    apartment.setName(dto.getName());
+    public Flux<ApartmentBulkResult> createAll(String owner, List<ApartmentDto> dtos) {
+        if (dtos.isEmpty())
+            return Flux.empty();
+        LocalDateTime now = LocalDateTime.now();
+        List<Apartment> apartments = dtos.stream()
+                .map(dto -> {
+                    Apartment apartment = newApartment(owner, dto.getName(), now);
+                    apartment.setId(new ObjectId().toHexString());
+                    // the bulk write bypasses the template, which would otherwise start the version at 0
+                    apartment.setVersion(0L);
                     return apartment;
-                }))
-                .flatMap(template::save);
+                })
+                .toList();
+        List<InsertOneModel<Document>> inserts = apartments.stream()
+                .map(apartment -> {
+                    Document document = new Document();
+                    template.getConverter().write(apartment, document);
+                    return new InsertOneModel<>(document);
+                })
+                .toList();
+        // unordered, so one duplicate name does not stop the rest of the batch from being written
+        return template
+                .getCollection(template.getCollectionName(Apartment.class))
+                .flatMap(collection -> Mono.from(collection.bulkWrite(inserts, new BulkWriteOptions().ordered(false))))
+                .map(result -> Map.<Integer, BulkWriteError>of())
+                .onErrorResume(MongoBulkWriteException.class, e -> Mono.just(e.getWriteErrors()
+                        .stream()
+                        .collect(Collectors.toMap(BulkWriteError::getIndex, Function.identity()))))
+                .flatMapIterable(errors -> IntStream.range(0, apartments.size())
+                        .mapToObj(index -> toBulkResult(index, apartments.get(index), errors.get(index)))
+                        .toList())
+                .doOnNext(result -> {
+                    if (result.getStatus() == BulkStatus.CREATED)
+                        changes.publish(new ApartmentChange(ChangeType.INSERT, result.getApartment().getId(), owner, result.getApartment()));
+                })
+                .transform(metrics.flux(REPOSITORY, "createAll"));
     }
 
     @Override
-    public Flux<Apartment> findPaginated(Optional<String> optionalId, Optional<String> optionalApartmentName, int page, int pageSize, OrderType order) {
-        Pageable pageable = PageRequest.of(page, pageSize);
-        Sort sort = order.equals(OrderType.ASC) ?
-                Sort.by(Sort.Order.asc("id")) :
-                Sort.by(Sort.Order.desc("id"));
-        Query query = new Query();
-        optionalId.ifPresent(s -> query.addCriteria(Criteria.where("id").is(s)));
-        optionalApartmentName.ifPresent(s -> query.addCriteria(Criteria.where("name").is(s)));
-        query.with(pageable)
-                .with(sort);
-        return template.find(query, Apartment.class)
-                .switchIfEmpty(Mono.error(new CustomNotFoundException("Apartments do not exist!")));
+    public Mono<Apartment> update(String owner, String id, ApartmentDto dto, Optional<Long> version) {
+        Update update = modification(LocalDateTime.now())
+                .set("name", dto.getName());
+        return modify(owner, id, version, update, dto.getName())
+                .transform(metrics.mono(REPOSITORY, "update"));
+    }
+
+    @Override
+    public Mono<Apartment> patch(String owner, String id, ApartmentPatch patch, Optional<Long> version) {
+        return modify(owner, id, version, patchUpdate(patch, LocalDateTime.now()), patch.getName())
+                .transform(metrics.mono(REPOSITORY, "patch"));
+    }
+
+    @Override
+    public Flux<ApartmentBulkResult> patchAll(String owner, List<ApartmentPatch> patches) {
+        Map<String, Long> occurrences = patches.stream()
+                .map(ApartmentPatch::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        // each patch is its own findAndModify, so its outcome comes from its own write and not from reading the
+        // apartment back, which a concurrent write may have moved on since
+        return Flux.range(0, patches.size())
+                .flatMapSequential(index -> patchOne(owner, index, patches.get(index), occurrences),
+                        properties.getBulkImport().getConcurrency())
+                .transform(metrics.flux(REPOSITORY, "patchAll"));
+    }
+
+    private Mono<ApartmentBulkResult> patchOne(String owner, int index, ApartmentPatch patch, Map<String, Long> occurrences) {
+        if (patch.getId() == null)
+            return Mono.just(new ApartmentBulkResult(index, BulkStatus.FAILED, null, "Apartment id is required!"));
+        if (patch.isEmpty())
+            return Mono.just(new ApartmentBulkResult(index, BulkStatus.FAILED, null, "Apartment patch has nothing to update!"));
+        // the patches of a batch are written concurrently, so which of two patches to the same apartment wins is undefined
+        if (occurrences.get(patch.getId()) > 1)
+            return Mono.just(new ApartmentBulkResult(index, BulkStatus.FAILED, null,
+                    "Apartment with id %s is patched more than once in the batch!".formatted(patch.getId())));
+        return modify(owner, patch.getId(), Optional.ofNullable(patch.getVersion()), patchUpdate(patch, LocalDateTime.now()), patch.getName())
+                .map(apartment -> new ApartmentBulkResult(index, BulkStatus.UPDATED, apartment, null))
+                .onErrorResume(CustomNotFoundException.class,
+                        e -> Mono.just(new ApartmentBulkResult(index, BulkStatus.NOT_FOUND, null, e.getMessage())))
+                .onErrorResume(CustomPreconditionFailedException.class,
+                        e -> Mono.just(new ApartmentBulkResult(index, BulkStatus.PRECONDITION_FAILED, null, e.getMessage())))
+                .onErrorResume(CustomAlreadyExistsException.class,
+                        e -> Mono.just(new ApartmentBulkResult(index, BulkStatus.ALREADY_EXISTS, null, e.getMessage())));
+    }
+
+    /**
+     * A single atomic findAndModify, conflicting names are rejected by the unique index on owner and name
+     * and a stale version simply does not match, so no lock is needed to prevent lost updates.
+     */
+    private Mono<Apartment> modify(String owner, String id, Optional<Long> version, Update update, String name) {
+        Query query = ApartmentQueries.byIdAndVersion(owner, id, version);
+        return template
+                .findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Apartment.class)
+                .onErrorMap(DuplicateKeyException.class,
+                        e -> new CustomAlreadyExistsException("Apartment %s already exists!".formatted(name)))
+                .switchIfEmpty(Mono.defer(() -> version.isEmpty() ?
+                        Mono.error(() -> new CustomNotFoundException("Apartment with id %s does not exists!".formatted(id))) :
+                        // only a failed conditional update pays for telling a missing apartment from a stale version
+                        template.exists(ApartmentQueries.byId(owner, id), Apartment.class)
+                                .flatMap(exists -> Mono.error(exists ?
+                                        new CustomPreconditionFailedException("Apartment with id %s has been modified!".formatted(id)) :
+                                        new CustomNotFoundException("Apartment with id %s does not exists!".formatted(id))))))
+                .doOnNext(apartment -> changes.publish(new ApartmentChange(ChangeType.UPDATE, id, owner, apartment)));
+    }
+
+    @Override
+    public Flux<Apartment> findPaginated(String owner, Optional<String> optionalId, Optional<String> optionalApartmentName, int page, int pageSize, OrderType order,
+                                         Set<ApartmentField> fields) {
+        Query query = ApartmentQueries.paginated(owner, optionalId, optionalApartmentName, page, pageSize, order, fields);
+        // a page past the end is empty, not an error
+        return readOnlyTemplate.find(query, Apartment.class)
+                .transform(metrics.flux(REPOSITORY, "findPaginated"));
+    }
+
+    @Override
+    public Flux<Apartment> findByCursor(String owner, Optional<String> optionalApartmentName, Optional<String> optionalAfterId,
+                                        Optional<String> optionalBeforeId, int limit, OrderType order,
+                                        Set<ApartmentField> fields) {
+        // Walking backwards from a "before" cursor scans in the opposite direction, then restores the page order
+        boolean backwards = optionalBeforeId.isPresent();
+        Query query = ApartmentQueries.byCursor(owner, optionalApartmentName, optionalAfterId, optionalBeforeId, limit, order, fields);
+        Flux<Apartment> result = readOnlyTemplate.find(query, Apartment.class);
+        return (backwards ?
+                result.collectList().flatMapIterable(apartments -> {
+                    Collections.reverse(apartments);
+                    return apartments;
+                }) :
+                result)
+                .transform(metrics.flux(REPOSITORY, "findByCursor"));
+    }
+
+    @Override
+    public Flux<Apartment> search(String owner, String prefix, int limit) {
+        Query query = ApartmentQueries.search(owner, prefix, limit);
+        return readOnlyTemplate.find(query, Apartment.class)
+                .transform(metrics.flux(REPOSITORY, "search"));
+    }
+
+    @Override
+    public Flux<Apartment> export(String owner, Optional<String> optionalApartmentName, Optional<String> optionalAfterId, int batchSize) {
+        Query query = ApartmentQueries.export(owner, optionalApartmentName, optionalAfterId, batchSize);
+        return readOnlyTemplate.find(query, Apartment.class)
+                .transform(metrics.flux(REPOSITORY, "export"));
+    }
+
+    @Override
+    public Flux<Apartment> findModifiedSince(String owner, Optional<SyncToken> since, LocalDateTime until, int limit) {
+        // a secondary could still be missing changes the token has moved past, which would then never be synced
+        return template.find(ApartmentQueries.changedSince("modified", owner, since, until, limit), Apartment.class)
+                .transform(metrics.flux(REPOSITORY, "findModifiedSince"));
     }
 
     @Override
-    public Mono<String> delete(String id) {
+    public Flux<ApartmentTombstone> findDeletedSince(String owner, SyncToken since, LocalDateTime until, int limit) {
+        return template.find(ApartmentQueries.changedSince("deleted", owner, Optional.of(since), until, limit), ApartmentTombstone.class)
+                .transform(metrics.flux(REPOSITORY, "findDeletedSince"));
+    }
+
+    @Override
+    public Mono<String> delete(String owner, String id) {
+        Query query = ApartmentQueries.byId(owner, id);
+        LocalDateTime now = LocalDateTime.now();
+        Update tombstone = new Update()
+                .set("owner", owner)
+                .set("deleted", now)
+                .set("expiresAt", now.plus(properties.getSync().getTombstoneRetention()));
+        // only the owner's own apartment is removed, so a missing or foreign id is a single round trip and writes nothing
+        return template
+                .findAndRemove(query, Apartment.class)
+                .switchIfEmpty(Mono.error(() -> new CustomNotFoundException("Apartment with id %s does not exist!".formatted(id))))
+                .flatMap(removed -> template
+                        .upsert(new Query(Criteria.where("id").is(id)), tombstone, ApartmentTombstone.class)
+                        // without its tombstone sync clients would never learn of the delete, so the apartment is put back
+                        .onErrorResume(e -> template.insert(removed).then(Mono.error(e))))
+                .map(result -> "Deleted Successfully")
+                .doOnNext(result -> changes.publish(new ApartmentChange(ChangeType.DELETE, id, owner, null)))
+                .transform(metrics.mono(REPOSITORY, "delete"));
+    }
+
+    @Override
+    public Flux<ApartmentBulkResult> deleteByIds(String owner, List<String> ids) {
+        if (ids.isEmpty())
+            return Flux.empty();
+        return removeAll(owner, ids)
+                .flatMapIterable(Function.identity())
+                .transform(metrics.flux(REPOSITORY, "deleteByIds"));
+    }
+
+    @Override
+    public Flux<ApartmentBulkResult> deleteByNamePrefix(String owner, String prefix, int batchSize) {
+        return deleteMatching(ApartmentQueries.search(owner, prefix, batchSize), owner, batchSize)
+                .index()
+                .map(indexed -> {
+                    indexed.getT2().setIndex(indexed.getT1());
+                    return indexed.getT2();
+                })
+                .transform(metrics.flux(REPOSITORY, "deleteByNamePrefix"));
+    }
+
+    /**
+     * Removes the apartments whose names start with the prefix a batch at a time, until a batch comes back short.
+     * Apartments a concurrent delete removed first are left out, they were not deleted by this one.
+     */
+    private Flux<ApartmentBulkResult> deleteMatching(Query query, String owner, int batchSize) {
+        return template.find(query, Apartment.class)
+                .map(Apartment::getId)
+                .collectList()
+                .flatMapMany(found -> removeAll(owner, found)
+                        .flatMapMany(results -> {
+                            Flux<ApartmentBulkResult> removed = Flux.fromIterable(results)
+                                    .filter(result -> result.getStatus() != BulkStatus.NOT_FOUND);
+                            // an apartment put back after a failed tombstone would be found again, so the delete stops there
+                            boolean failed = results.stream().anyMatch(result -> result.getStatus() == BulkStatus.FAILED);
+                            // every apartment removed drops out of the query, so running it again returns the next batch
+                            return found.size() < batchSize || failed ?
+                                    removed :
+                                    removed.concatWith(Flux.defer(() -> deleteMatching(query, owner, batchSize)));
+                        }));
+    }
+
+    /**
+     * Deletes the apartments the way a single delete does: each is removed with its own findAndRemove, so only
+     * the delete that actually removed an apartment reports and publishes it, then their tombstones are upserted
+     * as one unordered bulk write. An apartment whose tombstone could not be written is put back and reported
+     * as failed, sync clients would otherwise never learn of its delete.
+     */
+    private Mono<List<ApartmentBulkResult>> removeAll(String owner, List<String> ids) {
+        if (ids.isEmpty())
+            return Mono.just(List.of());
+        return Flux.fromIterable(ids)
+                .flatMapSequential(id -> template.findAndRemove(ApartmentQueries.byId(owner, id), Apartment.class)
+                                .map(Optional::of)
+                                .defaultIfEmpty(Optional.empty()),
+                        properties.getBulkImport().getConcurrency())
+                .collectList()
+                .flatMap(removed -> writeTombstones(owner, removed.stream().flatMap(Optional::stream).toList())
+                        .map(failed -> IntStream.range(0, ids.size())
+                                .mapToObj(index -> removed.get(index)
+                                        .map(apartment -> failed.containsKey(apartment.getId()) ?
+                                                new ApartmentBulkResult(index, BulkStatus.FAILED, null, failed.get(apartment.getId())) :
+                                                new ApartmentBulkResult(index, BulkStatus.DELETED, apartment, null))
+                                        .orElseGet(() -> new ApartmentBulkResult(index, BulkStatus.NOT_FOUND, null,
+                                                "Apartment with id %s does not exist!".formatted(ids.get(index)))))
+                                .toList()))
+                .doOnNext(results -> results.stream()
+                        .filter(result -> result.getStatus() == BulkStatus.DELETED)
+                        .forEach(result -> changes.publish(new ApartmentChange(ChangeType.DELETE, result.getApartment().getId(), owner, null))));
+    }
+
+    /**
+     * Upserts a tombstone for each removed apartment, an existing one is moved to this delete so sync reports it
+     * again. Returns the message of each tombstone that could not be written, by apartment id, once those
+     * apartments have been put back.
+     */
+    private Mono<Map<String, String>> writeTombstones(String owner, List<Apartment> removed) {
+        if (removed.isEmpty())
+            return Mono.just(Map.of());
+        LocalDateTime now = LocalDateTime.now();
+        Update tombstone = new Update()
+                .set("owner", owner)
+                .set("deleted", now)
+                .set("expiresAt", now.plus(properties.getSync().getTombstoneRetention()));
+        MongoPersistentEntity<?> entity = template.getConverter().getMappingContext().getRequiredPersistentEntity(ApartmentTombstone.class);
+        QueryMapper queryMapper = new QueryMapper(template.getConverter());
+        UpdateMapper updateMapper = new UpdateMapper(template.getConverter());
+        Document update = updateMapper.getMappedObject(tombstone.getUpdateObject(), entity);
+        List<UpdateOneModel<Document>> upserts = removed.stream()
+                .map(apartment -> new UpdateOneModel<Document>(
+                        queryMapper.getMappedObject(new Query(Criteria.where("id").is(apartment.getId())).getQueryObject(), entity),
+                        update,
+                        new UpdateOptions().upsert(true)))
+                .toList();
         return template
-                .findById(id, Apartment.class)
-                .switchIfEmpty(Mono.error(new CustomNotFoundException("Apartment with id %s does not exist!".formatted(id))))
-                .flatMap(template::remove)
-                .flatMap(result -> Mono.just("Deleted Successfully"));
+                .getCollection(template.getCollectionName(ApartmentTombstone.class))
+                .flatMap(collection -> Mono.from(collection.bulkWrite(upserts, new BulkWriteOptions().ordered(false))))
+                .map(result -> Map.<String, String>of())
+                // without a write result nothing is known to be written, so every apartment is put back
+                .onErrorResume(e -> !(e instanceof MongoBulkWriteException), e -> template.insertAll(removed).then(Mono.error(e)))
+                .onErrorResume(MongoBulkWriteException.class, e -> {
+                    Map<String, String> failed = e.getWriteErrors().stream()
+                            .collect(Collectors.toMap(error -> removed.get(error.getIndex()).getId(), BulkWriteError::getMessage));
+                    return template.insertAll(removed.stream().filter(apartment -> failed.containsKey(apartment.getId())).toList())
+                            .then(Mono.just(failed));
+                });
+    }
+
+    private static Update modification(LocalDateTime now) {
+        return new Update()
+                .set("modified", now)
+                .inc("version", 1);
+    }
+
+    private static Update patchUpdate(ApartmentPatch patch, LocalDateTime now) {
+        Update update = modification(now);
+        Optional.ofNullable(patch.getName()).ifPresent(name -> update.set("name", name));
+        return update;
+    }
+
+    private static Apartment newApartment(String owner, String name, LocalDateTime now) {
+        Apartment apartment = new Apartment(name, now, now);
+        apartment.setOwner(owner);
+        return apartment;
+    }
+
+    private static ApartmentBulkResult toBulkResult(int index, Apartment apartment, BulkWriteError error) {
+        if (error == null)
+            return new ApartmentBulkResult(index, BulkStatus.CREATED, apartment, null);
+        if (ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY)
+            return new ApartmentBulkResult(index, BulkStatus.ALREADY_EXISTS, null,
+                    "Apartment %s already exists!".formatted(apartment.getName()));
+        return new ApartmentBulkResult(index, BulkStatus.FAILED, null, error.getMessage());
     }
 }
@@ -0,0 +1,9 @@
+package co.ke.proaktivio.qwanguapi.repositories;
+
+import co.ke.proaktivio.qwanguapi.models.IdempotencyRecord;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdempotencyRecordRepository extends ReactiveMongoRepository<IdempotencyRecord, String> {
+}
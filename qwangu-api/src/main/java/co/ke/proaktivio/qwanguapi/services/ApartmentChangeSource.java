@@ -0,0 +1,11 @@
+package co.ke.proaktivio.qwanguapi.services;
+
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentChange;
+import reactor.core.publisher.Flux;
+
+/**
+ * A feed of apartment writes, used to keep per-node state such as the apartment cache coherent.
+ */
+public interface ApartmentChangeSource {
+    Flux<ApartmentChange> changes();
+}
@@ -1,16 +1,34 @@
 package co.ke.proaktivio.qwanguapi.services;
 
 import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentBulkDelete;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentBulkResult;
 import co.ke.proaktivio.qwanguapi.pojos.ApartmentDto;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentField;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentPatch;
+import co.ke.proaktivio.qwanguapi.pojos.Cursor;
+import co.ke.proaktivio.qwanguapi.pojos.CursorPage;
 import co.ke.proaktivio.qwanguapi.pojos.OrderType;
+import co.ke.proaktivio.qwanguapi.pojos.SyncPage;
+import co.ke.proaktivio.qwanguapi.pojos.SyncToken;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.Optional;
+import java.util.Set;
 
 public interface ApartmentService {
-    Mono<Apartment> create(ApartmentDto dto);
-    Mono<Apartment> update(String id, ApartmentDto dto);
-    Flux<Apartment> findPaginated(Optional<String> id, Optional<String> name, int page, int pageSize, OrderType order);
-    Mono<String> deleteById(String id);
+    Mono<Apartment> create(String owner, ApartmentDto dto, Optional<String> idempotencyKey);
+    Flux<ApartmentBulkResult> importAll(String owner, Flux<ApartmentDto> dtos);
+    Mono<Apartment> update(String owner, String id, ApartmentDto dto, Optional<Long> version, Optional<String> idempotencyKey);
+    Mono<Apartment> patch(String owner, String id, ApartmentPatch patch, Optional<Long> version, Optional<String> idempotencyKey);
+    Flux<ApartmentBulkResult> patchAll(String owner, Flux<ApartmentPatch> patches);
+    Mono<Apartment> findById(String owner, String id);
+    Flux<Apartment> findPaginated(String owner, Optional<String> id, Optional<String> name, int page, int pageSize, OrderType order, Set<ApartmentField> fields);
+    Mono<CursorPage<Apartment>> findByCursor(String owner, Optional<String> name, Optional<Cursor> after, Optional<Cursor> before, int pageSize, OrderType order, Set<ApartmentField> fields);
+    Flux<Apartment> search(String owner, String query, Optional<Integer> limit);
+    Flux<Apartment> export(String owner, Optional<String> name, Optional<String> after);
+    Mono<SyncPage> sync(String owner, Optional<SyncToken> token, Optional<Integer> pageSize);
+    Mono<String> deleteById(String owner, String id);
+    Flux<ApartmentBulkResult> deleteAll(String owner, ApartmentBulkDelete delete);
 }
@@ -0,0 +1,82 @@
+package co.ke.proaktivio.qwanguapi.services.implementations;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentChange;
+import co.ke.proaktivio.qwanguapi.services.ApartmentChangeSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans a single upstream subscription to the apartment change source out to every connected
+ * change feed client, each of which only sees the changes of its own owner. Each client gets its
+ * own bounded buffer, so a slow client only affects itself.
+ */
+@Log4j2
+@Component
+public class ApartmentChangeBroadcaster {
+    private final ApartmentProperties.Changes properties;
+    private final Flux<ApartmentChange> shared;
+    private final AtomicInteger subscribers;
+    private final Counter dropped;
+    private final Counter disconnected;
+
+    public ApartmentChangeBroadcaster(ApartmentChangeSource source, ApartmentProperties properties, MeterRegistry registry) {
+        this.properties = properties.getChanges();
+        this.shared = source.changes()
+                .doOnError(e -> log.warn("Apartment change source failed, resubscribing", e))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .publish()
+                .refCount();
+        this.subscribers = registry.gauge("qwangu.apartments.changes.subscribers", new AtomicInteger());
+        this.dropped = registry.counter("qwangu.apartments.changes.dropped");
+        this.disconnected = registry.counter("qwangu.apartments.changes.disconnected");
+    }
+
+    public Flux<ServerSentEvent<ApartmentChange>> subscribe(String owner) {
+        return Flux.defer(() -> connect(owner))
+                .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet());
+    }
+
+    private Flux<ServerSentEvent<ApartmentChange>> connect(String owner) {
+        int bufferSize = properties.getSubscriberBufferSize();
+        // a change that does not say whose it was is never delivered, it could belong to anyone
+        Flux<ServerSentEvent<ApartmentChange>> events = shared
+                .filter(change -> owner.equals(change.getOwner()))
+                .map(change -> ServerSentEvent.builder(change)
+                        .event(change.getType().name())
+                        .build());
+        Flux<ServerSentEvent<ApartmentChange>> buffered = switch (properties.getOverflow()) {
+            case DROP_OLDEST -> events.onBackpressureBuffer(bufferSize, event -> dropped.increment(),
+                    BufferOverflowStrategy.DROP_OLDEST);
+            case DROP_LATEST -> events.onBackpressureBuffer(bufferSize, event -> dropped.increment(),
+                    BufferOverflowStrategy.DROP_LATEST);
+            case DISCONNECT -> events.onBackpressureBuffer(bufferSize)
+                    .onErrorResume(Exceptions::isOverflow, e -> {
+                        disconnected.increment();
+                        return Flux.empty();
+                    });
+        };
+        // heartbeats stop with the changes, so a disconnected subscriber's stream actually completes
+        Sinks.Empty<Void> closed = Sinks.empty();
+        Flux<ServerSentEvent<ApartmentChange>> heartbeats = Flux.interval(properties.getHeartbeat())
+                .onBackpressureDrop()
+                .map(tick -> ServerSentEvent.<ApartmentChange>builder()
+                        .comment("heartbeat")
+                        .build())
+                .takeUntilOther(closed.asMono());
+        // a prefetch of one keeps the subscriber's buffer the only place changes queue up
+        return Flux.merge(1, buffered.doFinally(signal -> closed.tryEmitEmpty()), heartbeats);
+    }
+}
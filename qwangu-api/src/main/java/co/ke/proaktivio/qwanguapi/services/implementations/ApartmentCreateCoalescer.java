@@ -0,0 +1,97 @@
+package co.ke.proaktivio.qwanguapi.services.implementations;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomAlreadyExistsException;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentBulkResult;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentDto;
+import co.ke.proaktivio.qwanguapi.repositories.ApartmentRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Gathers concurrent apartment creates into batches that are bounded by size and by linger time,
+ * and writes each owner's share of a batch with a single unordered bulk insert. Every caller is
+ * completed with the result for its own apartment, so a duplicate name only fails the request that sent it.
+ */
+@Log4j2
+@Component
+public class ApartmentCreateCoalescer implements DisposableBean {
+    private final ApartmentRepository repository;
+    private final Sinks.Many<PendingCreate> pending = Sinks.many().unicast().onBackpressureBuffer();
+    private final DistributionSummary batchSizes;
+    private final Disposable subscription;
+
+    public ApartmentCreateCoalescer(ApartmentRepository repository, ApartmentProperties properties, MeterRegistry registry) {
+        ApartmentProperties.CreateCoalescing coalescing = properties.getCreateCoalescing();
+        this.repository = repository;
+        this.batchSizes = DistributionSummary.builder("qwangu.apartments.create.batch.size")
+                .baseUnit("apartments")
+                .register(registry);
+        this.subscription = !coalescing.isEnabled() ?
+                Disposables.disposed() :
+                pending.asFlux()
+                        .bufferTimeout(coalescing.getMaxBatchSize(), coalescing.getMaxLinger())
+                        // bufferTimeout fails when a window closes without demand, so closed windows wait here instead
+                        .onBackpressureBuffer()
+                        .flatMap(this::write, coalescing.getMaxConcurrentBatches())
+                        .subscribe();
+    }
+
+    public Mono<Apartment> create(String owner, ApartmentDto dto) {
+        return Mono.defer(() -> {
+            Sinks.One<Apartment> result = Sinks.one();
+            // callers on different threads may race, retry until this emission is serialized behind theirs
+            pending.emitNext(new PendingCreate(owner, dto, result), (signal, emitResult) -> emitResult == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+            return result.asMono();
+        });
+    }
+
+    private Mono<Void> write(List<PendingCreate> batch) {
+        batchSizes.record(batch.size());
+        Map<String, List<PendingCreate>> byOwner = batch.stream()
+                .collect(Collectors.groupingBy(PendingCreate::owner, LinkedHashMap::new, Collectors.toList()));
+        // each owner's apartments live together, so each insert is routed to a single shard
+        return Flux.fromIterable(byOwner.entrySet())
+                .flatMap(creates -> repository.createAll(creates.getKey(), creates.getValue().stream().map(PendingCreate::dto).toList())
+                        .doOnNext(result -> complete(creates.getValue().get((int) result.getIndex()), result)))
+                .then()
+                // a failed batch fails its callers, never the coalescer, which has to keep serving later creates
+                .onErrorResume(e -> {
+                    log.warn("Failed to write a batch of {} apartments", batch.size(), e);
+                    batch.forEach(create -> create.result().tryEmitError(e));
+                    return Mono.empty();
+                })
+                .doFinally(signal -> batch.forEach(create -> create.result()
+                        .tryEmitError(new IllegalStateException("Apartment %s was not written!".formatted(create.dto().getName())))));
+    }
+
+    private static void complete(PendingCreate create, ApartmentBulkResult result) {
+        switch (result.getStatus()) {
+            case CREATED -> create.result().tryEmitValue(result.getApartment());
+            case ALREADY_EXISTS -> create.result().tryEmitError(new CustomAlreadyExistsException(result.getMessage()));
+            default -> create.result().tryEmitError(new IllegalStateException(result.getMessage()));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        subscription.dispose();
+    }
+
+    private record PendingCreate(String owner, ApartmentDto dto, Sinks.One<Apartment> result) {
+    }
+}
@@ -0,0 +1,110 @@
+package co.ke.proaktivio.qwanguapi.services.implementations;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomBadRequestException;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomConflictException;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.models.IdempotencyRecord;
+import co.ke.proaktivio.qwanguapi.repositories.IdempotencyRecordRepository;
+import co.ke.proaktivio.qwanguapi.utils.SingleFlight;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Makes apartment writes safe to retry. The first request with an {@code Idempotency-Key} claims
+ * the key in the IDEMPOTENCY_KEY collection and its response is kept there, so a retry with the
+ * same key is answered with that response without writing again. A retry that arrives while the
+ * first request is still writing waits for its result: on the same node the result is shared
+ * directly, across nodes the record is polled until it completes.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class ApartmentIdempotency {
+    private final IdempotencyRecordRepository repository;
+    private final ApartmentProperties properties;
+    private final SingleFlight<Claim, Apartment> inFlight = new SingleFlight<>();
+
+    /**
+     * Identifies the request a key was sent with, so that a key reused for a different request is
+     * rejected instead of being answered with an unrelated response.
+     */
+    public static String fingerprint(Object... parts) {
+        return DigestUtils.md5DigestAsHex(Arrays.toString(parts).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Mono<Apartment> execute(String key, String fingerprint, Supplier<Mono<Apartment>> write) {
+        return inFlight.execute(new Claim(key, fingerprint), () -> claim(key, fingerprint, write).flux())
+                .next();
+    }
+
+    private Mono<Apartment> claim(String key, String fingerprint, Supplier<Mono<Apartment>> write) {
+        LocalDateTime expiresAt = LocalDateTime.now().plus(properties.getIdempotency().getInProgressTimeout());
+        return repository.insert(new IdempotencyRecord(key, fingerprint, IdempotencyRecord.Status.IN_PROGRESS, null, expiresAt))
+                .flatMap(claimed -> run(key, fingerprint, write))
+                .onErrorResume(DuplicateKeyException.class, e -> replay(key, fingerprint, write));
+    }
+
+    private Mono<Apartment> run(String key, String fingerprint, Supplier<Mono<Apartment>> write) {
+        Sinks.One<Apartment> result = Sinks.one();
+        // the write runs to completion even if every caller gives up, so that their retries find its response
+        Mono.defer(write)
+                .flatMap(apartment -> complete(key, fingerprint, apartment))
+                .onErrorResume(e -> repository.deleteById(key)
+                        .onErrorResume(release -> {
+                            log.warn("Failed to release idempotency key {}", key, release);
+                            return Mono.empty();
+                        })
+                        .then(Mono.error(e)))
+                .subscribe(result::tryEmitValue, result::tryEmitError);
+        return result.asMono();
+    }
+
+    private Mono<Apartment> complete(String key, String fingerprint, Apartment apartment) {
+        LocalDateTime expiresAt = LocalDateTime.now().plus(properties.getIdempotency().getTtl());
+        return repository.save(new IdempotencyRecord(key, fingerprint, IdempotencyRecord.Status.COMPLETED, apartment, expiresAt))
+                .thenReturn(apartment)
+                // the write itself succeeded, its retries are answered with a conflict until the claim expires
+                .onErrorResume(e -> {
+                    log.warn("Failed to store the response for idempotency key {}", key, e);
+                    return Mono.just(apartment);
+                });
+    }
+
+    private Mono<Apartment> replay(String key, String fingerprint, Supplier<Mono<Apartment>> write) {
+        ApartmentProperties.Idempotency idempotency = properties.getIdempotency();
+        long polls = idempotency.getWait().toMillis() / Math.max(1, idempotency.getPollInterval().toMillis());
+        return repository.findById(key)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(found -> {
+                    // the write that claimed the key failed and released it, or its record expired
+                    if (found.isEmpty())
+                        return claim(key, fingerprint, write);
+                    IdempotencyRecord record = found.get();
+                    if (!record.getFingerprint().equals(fingerprint))
+                        return Mono.error(new CustomBadRequestException(
+                                "Idempotency key %s has already been used for a different request!".formatted(key)));
+                    return record.getStatus() == IdempotencyRecord.Status.COMPLETED ?
+                            Mono.just(record.getResponse()) :
+                            Mono.empty();
+                })
+                .repeatWhenEmpty(repeats -> repeats.take(polls).delayElements(idempotency.getPollInterval()))
+                .switchIfEmpty(Mono.error(() -> new CustomConflictException(
+                        "Request with idempotency key %s is still in progress!".formatted(key))));
+    }
+
+    private record Claim(String key, String fingerprint) {
+    }
+}
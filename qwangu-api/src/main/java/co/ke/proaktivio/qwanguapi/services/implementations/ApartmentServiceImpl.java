@@ -1,42 +1,287 @@
 package co.ke.proaktivio.qwanguapi.services.implementations;
 
+import co.ke.proaktivio.qwanguapi.caches.ApartmentCache;
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomNotFoundException;
+import co.ke.proaktivio.qwanguapi.metrics.OperationMetrics;
 import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentBulkDelete;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentBulkResult;
 import co.ke.proaktivio.qwanguapi.pojos.ApartmentDto;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentField;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentPatch;
+import co.ke.proaktivio.qwanguapi.pojos.BulkStatus;
+import co.ke.proaktivio.qwanguapi.pojos.Cursor;
+import co.ke.proaktivio.qwanguapi.pojos.CursorPage;
 import co.ke.proaktivio.qwanguapi.pojos.OrderType;
+import co.ke.proaktivio.qwanguapi.pojos.SyncPage;
+import co.ke.proaktivio.qwanguapi.pojos.SyncToken;
 import co.ke.proaktivio.qwanguapi.repositories.ApartmentRepository;
 import co.ke.proaktivio.qwanguapi.services.ApartmentService;
+import co.ke.proaktivio.qwanguapi.utils.SingleFlight;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static co.ke.proaktivio.qwanguapi.metrics.OperationMetrics.SERVICE;
 
 @Log4j2
 @Service
 @RequiredArgsConstructor
 public class ApartmentServiceImpl implements ApartmentService {
+    private static final Comparator<SyncEntry> SYNC_ORDER = Comparator.comparing(SyncEntry::modified)
+            .thenComparing(SyncEntry::id);
 
     private final ApartmentRepository repository;
+    private final ApartmentProperties properties;
+    private final ApartmentCache cache;
+    private final OperationMetrics metrics;
+    private final ApartmentCreateCoalescer createCoalescer;
+    private final ApartmentIdempotency idempotency;
+    private final SingleFlight<ListingKey, Apartment> listings = new SingleFlight<>();
+
+    @Override
+    public Mono<Apartment> create(String owner, ApartmentDto dto, Optional<String> idempotencyKey) {
+        Supplier<Mono<Apartment>> write = () -> properties.getCreateCoalescing().isEnabled() ?
+                createCoalescer.create(owner, dto) :
+                repository.create(owner, dto);
+        Mono<Apartment> created = idempotencyKey
+                .map(key -> idempotency.execute(ownerKey(owner, key), ApartmentIdempotency.fingerprint("create", dto.getName()), write))
+                .orElseGet(write);
+        return created
+                .doOnSuccess(apartment -> cache.invalidateName(owner, dto.getName()))
+                .transform(metrics.mono(SERVICE, "create"));
+    }
+
+    @Override
+    public Flux<ApartmentBulkResult> importAll(String owner, Flux<ApartmentDto> dtos) {
+        int batchSize = properties.getBulkImport().getBatchSize();
+        // one batch is written at a time, so demand on the upload only grows as fast as Mongo accepts writes
+        return dtos
+                .buffer(batchSize)
+                .index()
+                .concatMap(batch -> repository.createAll(owner, batch.getT2())
+                        .map(result -> {
+                            result.setIndex(batch.getT1() * batchSize + result.getIndex());
+                            return result;
+                        }), 1)
+                .transform(metrics.flux(SERVICE, "importAll"));
+    }
+
+    @Override
+    public Mono<Apartment> update(String owner, String id, ApartmentDto dto, Optional<Long> version, Optional<String> idempotencyKey) {
+        Supplier<Mono<Apartment>> write = () -> repository.update(owner, id, dto, version);
+        Mono<Apartment> updated = idempotencyKey
+                .map(key -> idempotency.execute(ownerKey(owner, key), ApartmentIdempotency.fingerprint("update", id, dto.getName(), version), write))
+                .orElseGet(write);
+        return updated
+                .doOnSuccess(apartment -> cache.invalidate(id))
+                .transform(metrics.mono(SERVICE, "update"));
+    }
+
+    @Override
+    public Mono<Apartment> patch(String owner, String id, ApartmentPatch patch, Optional<Long> version, Optional<String> idempotencyKey) {
+        Supplier<Mono<Apartment>> write = () -> repository.patch(owner, id, patch, version);
+        Mono<Apartment> patched = idempotencyKey
+                .map(key -> idempotency.execute(ownerKey(owner, key), ApartmentIdempotency.fingerprint("patch", id, patch.getName(), version), write))
+                .orElseGet(write);
+        return patched
+                .doOnSuccess(apartment -> cache.invalidate(id))
+                .transform(metrics.mono(SERVICE, "patch"));
+    }
+
+    @Override
+    public Flux<ApartmentBulkResult> patchAll(String owner, Flux<ApartmentPatch> patches) {
+        int batchSize = properties.getBulkImport().getBatchSize();
+        // batched like an import, a batch is written before the next is read so an id may be patched again in a later one
+        return patches
+                .buffer(batchSize)
+                .index()
+                .concatMap(batch -> repository.patchAll(owner, batch.getT2())
+                        .collectList()
+                        .doOnNext(results -> cache.invalidateAll(batch.getT2().stream()
+                                .map(ApartmentPatch::getId)
+                                .filter(Objects::nonNull)
+                                .toList()))
+                        .flatMapIterable(results -> reindex(results, batch.getT1() * batchSize)), 1)
+                .transform(metrics.flux(SERVICE, "patchAll"));
+    }
+
+    @Override
+    public Mono<Apartment> findById(String owner, String id) {
+        return cache.findById(owner, id, repository::findByIdAndOwner)
+                .switchIfEmpty(Mono.error(() -> new CustomNotFoundException("Apartment with id %s does not exist!".formatted(id))))
+                .transform(metrics.mono(SERVICE, "findById"));
+    }
+
+    @Override
+    public Flux<Apartment> findPaginated(String owner, Optional<String> id, Optional<String> name, int page, int pageSize, OrderType order,
+                                         Set<ApartmentField> fields) {
+        // a lookup by id or exact name matches at most one apartment, so its first page is served from the cache
+        if (page == 0 && (id.isPresent() || name.isPresent())) {
+            Mono<Apartment> lookup = id.isPresent() ?
+                    cache.findById(owner, id.get(), repository::findByIdAndOwner)
+                            .filter(apartment -> name.map(n -> n.equals(apartment.getName())).orElse(true)) :
+                    cache.findByName(owner, name.get(), repository::findByOwnerAndName);
+            // the cache holds whole apartments, a projection is applied to a copy
+            return lookup
+                    .map(apartment -> ApartmentField.project(apartment, fields))
+                    .flux()
+                    .transform(metrics.flux(SERVICE, "findPaginated"));
+        }
+        // identical listings requested at the same time share one query
+        ListingKey key = new ListingKey(owner, id.orElse(null), name.orElse(null), page, null, null, pageSize, order, fields);
+        return listings.execute(key, () -> repository.findPaginated(owner, id, name, page, pageSize, order, fields))
+                .transform(metrics.flux(SERVICE, "findPaginated"));
+    }
+
+    @Override
+    public Mono<CursorPage<Apartment>> findByCursor(String owner, Optional<String> name, Optional<Cursor> after, Optional<Cursor> before,
+                                                    int pageSize, OrderType order, Set<ApartmentField> fields) {
+        boolean backwards = before.isPresent();
+        OrderType finalOrder = after.or(() -> before)
+                .map(Cursor::getOrder)
+                .orElse(order);
+        // one extra apartment is fetched to tell whether there is a further page in the direction of travel
+        Optional<String> afterId = after.map(Cursor::getId);
+        Optional<String> beforeId = before.map(Cursor::getId);
+        ListingKey key = new ListingKey(owner, null, name.orElse(null), null, afterId.orElse(null), beforeId.orElse(null),
+                pageSize + 1, finalOrder, fields);
+        return listings.execute(key, () -> repository.findByCursor(owner, name, afterId, beforeId, pageSize + 1, finalOrder, fields))
+                .collectList()
+                .map(apartments -> {
+                    boolean hasMore = apartments.size() > pageSize;
+                    List<Apartment> content = !hasMore ?
+                            apartments :
+                            backwards ?
+                                    apartments.subList(1, apartments.size()) :
+                                    apartments.subList(0, pageSize);
+                    if (content.isEmpty())
+                        return new CursorPage<>(content, null, null);
+                    boolean hasNext = backwards || hasMore;
+                    boolean hasPrevious = backwards ? hasMore : after.isPresent();
+                    String next = hasNext ?
+                            new Cursor(content.get(content.size() - 1).getId(), finalOrder).encode() :
+                            null;
+                    String previous = hasPrevious ?
+                            new Cursor(content.get(0).getId(), finalOrder).encode() :
+                            null;
+                    return new CursorPage<>(content, next, previous);
+                })
+                .transform(metrics.mono(SERVICE, "findByCursor"));
+    }
+
+    @Override
+    public Flux<Apartment> search(String owner, String query, Optional<Integer> limit) {
+        int finalLimit = Math.min(limit.orElse(properties.getSearch().getDefaultLimit()), properties.getSearch().getMaxLimit());
+        // names sort by the search collation, so an exact match ranks first, followed by longer names in order
+        return repository.search(owner, query.strip(), finalLimit)
+                .transform(metrics.flux(SERVICE, "search"));
+    }
 
     @Override
-    public Mono<Apartment> create(ApartmentDto dto) {
-        return repository.create(dto);
+    public Flux<Apartment> export(String owner, Optional<String> name, Optional<String> after) {
+        return repository.export(owner, name, after, properties.getExport().getBatchSize())
+                .transform(metrics.flux(SERVICE, "export"));
     }
 
     @Override
-    public Mono<Apartment> update(String id, ApartmentDto dto) {
-        return repository.update(id, dto);
+    public Mono<SyncPage> sync(String owner, Optional<SyncToken> token, Optional<Integer> pageSize) {
+        ApartmentProperties.Sync sync = properties.getSync();
+        int finalPageSize = Math.min(pageSize.orElse(sync.getDefaultPageSize()), sync.getMaxPageSize());
+        LocalDateTime now = LocalDateTime.now();
+        // writes stamp modified before they commit, so the most recent changes are left to the next sync
+        LocalDateTime until = now.minus(sync.getSettleWindow()).truncatedTo(ChronoUnit.MILLIS);
+        // tombstones the client still needs may have expired, so it starts over from an empty copy
+        boolean reset = token.filter(t -> t.getSynced().isBefore(now.minus(sync.getTombstoneRetention()))).isPresent();
+        Optional<SyncToken> since = reset ? Optional.empty() : token;
+        LocalDateTime synced = since.map(SyncToken::getSynced).orElse(until);
+        // both collections are read in the same order and merged, one extra change tells whether there are more
+        Flux<SyncEntry> changed = repository.findModifiedSince(owner, since, until, finalPageSize + 1)
+                .map(apartment -> new SyncEntry(apartment.getModified(), apartment.getId(), apartment));
+        // a client starting from an empty copy has nothing to delete
+        Flux<SyncEntry> deleted = since
+                .map(s -> repository.findDeletedSince(owner, s, until, finalPageSize + 1)
+                        .map(tombstone -> new SyncEntry(tombstone.getDeleted(), tombstone.getId(), null)))
+                .orElseGet(Flux::empty);
+        return Flux.mergeComparing(SYNC_ORDER, changed, deleted)
+                .take(finalPageSize + 1)
+                .collectList()
+                .map(entries -> {
+                    boolean more = entries.size() > finalPageSize;
+                    List<SyncEntry> content = more ? entries.subList(0, finalPageSize) : entries;
+                    SyncEntry last = more ? content.get(content.size() - 1) : null;
+                    // once nothing is left every change before until has been seen, so the copy is complete as of until
+                    SyncToken next = more ?
+                            new SyncToken(last.modified(), last.id(), synced) :
+                            new SyncToken(until, null, until);
+                    return new SyncPage(
+                            content.stream().map(SyncEntry::apartment).filter(Objects::nonNull).toList(),
+                            content.stream().filter(entry -> entry.apartment() == null).map(SyncEntry::id).toList(),
+                            next.encode(),
+                            more,
+                            reset);
+                })
+                .transform(metrics.mono(SERVICE, "sync"));
     }
 
     @Override
-    public Flux<Apartment> findPaginated(Optional<String> id, Optional<String> name, int page, int pageSize, OrderType order) {
-        return repository.findPaginated(id, name, page, pageSize, order);
+    public Mono<String> deleteById(String owner, String id) {
+        return repository.delete(owner, id)
+                .doOnSuccess(result -> cache.invalidate(id))
+                .transform(metrics.mono(SERVICE, "deleteById"));
     }
 
     @Override
-    public Mono<String> deleteById(String id) {
-        return repository.delete(id);
+    public Flux<ApartmentBulkResult> deleteAll(String owner, ApartmentBulkDelete delete) {
+        int batchSize = properties.getBulkImport().getBatchSize();
+        Flux<ApartmentBulkResult> deleted = delete.getIds() != null ?
+                Flux.fromIterable(delete.getIds())
+                        .buffer(batchSize)
+                        .index()
+                        .concatMap(batch -> repository.deleteByIds(owner, batch.getT2())
+                                .collectList()
+                                .flatMapIterable(results -> reindex(results, batch.getT1() * batchSize)), 1) :
+                repository.deleteByNamePrefix(owner, delete.getNamePrefix().strip(), batchSize);
+        return deleted
+                // a delete drops the id and any name that resolved to it, the same as a single delete
+                .buffer(batchSize)
+                .doOnNext(results -> cache.invalidateAll(results.stream()
+                        .filter(result -> result.getStatus() == BulkStatus.DELETED)
+                        .map(result -> result.getApartment().getId())
+                        .toList()))
+                .flatMapIterable(Function.identity())
+                .transform(metrics.flux(SERVICE, "deleteAll"));
+    }
+
+    private static List<ApartmentBulkResult> reindex(List<ApartmentBulkResult> results, long offset) {
+        results.forEach(result -> result.setIndex(offset + result.getIndex()));
+        return results;
+    }
+
+    /**
+     * Keys are chosen by clients, so the same key sent by two owners must not replay one owner's response to the other.
+     */
+    private static String ownerKey(String owner, String key) {
+        return owner + ":" + key;
+    }
+
+    private record ListingKey(String owner, String id, String name, Integer page, String after, String before, int pageSize,
+                              OrderType order, Set<ApartmentField> fields) {
+    }
+
+    private record SyncEntry(LocalDateTime modified, String id, Apartment apartment) {
     }
 }
@@ -0,0 +1,26 @@
+package co.ke.proaktivio.qwanguapi.services.implementations;
+
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentChange;
+import co.ke.proaktivio.qwanguapi.services.ApartmentChangeSource;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Event bus fed by the apartment repository's write methods. Only writes made through this node
+ * are seen; subscribers that cannot keep up miss changes instead of holding back the writers.
+ */
+@Component
+public class InProcessApartmentChangeSource implements ApartmentChangeSource {
+    private final Sinks.Many<ApartmentChange> sink = Sinks.many().multicast().directBestEffort();
+
+    public void publish(ApartmentChange change) {
+        // writers on different threads may race, retry until this emission is serialized behind theirs
+        sink.emitNext(change, (signal, result) -> result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+    }
+
+    @Override
+    public Flux<ApartmentChange> changes() {
+        return sink.asFlux();
+    }
+}
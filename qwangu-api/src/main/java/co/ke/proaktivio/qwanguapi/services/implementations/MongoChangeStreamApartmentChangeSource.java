@@ -0,0 +1,61 @@
+package co.ke.proaktivio.qwanguapi.services.implementations;
+
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.models.ApartmentTombstone;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentChange;
+import co.ke.proaktivio.qwanguapi.pojos.ChangeType;
+import co.ke.proaktivio.qwanguapi.services.ApartmentChangeSource;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import lombok.RequiredArgsConstructor;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+
+/**
+ * Reads apartment changes from Mongo change streams, so every node sees writes made by any node.
+ * Requires the database to run as a replica set. Inserts and updates come from the apartments
+ * themselves. A removed document only carries its {@code _id}, so deletes come from the tombstone
+ * each delete writes, which also says whose apartment it was.
+ */
+@RequiredArgsConstructor
+public class MongoChangeStreamApartmentChangeSource implements ApartmentChangeSource {
+    private final ReactiveMongoTemplate template;
+
+    @Override
+    public Flux<ApartmentChange> changes() {
+        Flux<ApartmentChange> written = template.changeStream(Apartment.class)
+                .withOptions(options -> options.returnFullDocumentOnUpdate())
+                .listen()
+                .filter(event -> event.getRaw() != null && toChangeType(event.getRaw()) != null && event.getBody() != null)
+                .map(event -> new ApartmentChange(toChangeType(event.getRaw()), toId(event.getRaw()), event.getBody().getOwner(),
+                        event.getBody()));
+        Flux<ApartmentChange> deleted = template.changeStream(ApartmentTombstone.class)
+                .withOptions(options -> options.returnFullDocumentOnUpdate())
+                .listen()
+                .filter(event -> event.getRaw() != null && event.getBody() != null && isWrite(event.getRaw()))
+                .map(ChangeStreamEvent::getBody)
+                .map(tombstone -> new ApartmentChange(ChangeType.DELETE, tombstone.getId(), tombstone.getOwner(), null));
+        return Flux.merge(written, deleted);
+    }
+
+    private static String toId(ChangeStreamDocument<Document> raw) {
+        BsonValue id = raw.getDocumentKey().get("_id");
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+    }
+
+    private static boolean isWrite(ChangeStreamDocument<Document> raw) {
+        OperationType type = raw.getOperationType();
+        return type == OperationType.INSERT || type == OperationType.UPDATE || type == OperationType.REPLACE;
+    }
+
+    private static ChangeType toChangeType(ChangeStreamDocument<Document> raw) {
+        return switch (raw.getOperationType()) {
+            case INSERT -> ChangeType.INSERT;
+            case UPDATE, REPLACE -> ChangeType.UPDATE;
+            default -> null;
+        };
+    }
+}
@@ -1,12 +1,22 @@
 package co.ke.proaktivio.qwanguapi.utils;
 
 import co.ke.proaktivio.qwanguapi.exceptions.CustomBadRequestException;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomPreconditionFailedException;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentField;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.springframework.util.StringUtils;
 
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 public class CustomUtils {
+    private static final int IDEMPOTENCY_KEY_MAX_LENGTH = 255;
+    private static final Pattern OWNER = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
     public static Optional<String> convertToOptional(String value) {
         return StringUtils.hasText(value) ?
                 Optional.of(value) :
@@ -23,4 +33,62 @@ public class CustomUtils {
             throw new CustomBadRequestException("%s is not valid!".formatted(name));
         return finalValue;
     }
+
+    /**
+     * Reads the version out of an {@code If-Match} header. {@code *} matches any version, so it
+     * yields no version; anything that is not a single strong version tag can never match.
+     */
+    public static Optional<Long> convertToVersion(String ifMatch, String id) {
+        if (!StringUtils.hasText(ifMatch) || ifMatch.strip().equals("*"))
+            return Optional.empty();
+        String eTag = ifMatch.strip();
+        if (eTag.length() > 2 && eTag.startsWith("\"") && eTag.endsWith("\"")
+                && NumberUtils.isDigits(eTag.substring(1, eTag.length() - 1))) {
+            try {
+                return Optional.of(Long.valueOf(eTag.substring(1, eTag.length() - 1)));
+            } catch (NumberFormatException e) {
+                // too many digits for a version, so it is no version this api handed out
+            }
+        }
+        throw new CustomPreconditionFailedException("Apartment with id %s does not match %s!".formatted(id, eTag));
+    }
+
+    public static String toETag(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    public static Optional<String> convertToIdempotencyKey(String value) {
+        Optional<String> key = convertToOptional(value).map(String::strip);
+        if (key.filter(k -> k.length() > IDEMPOTENCY_KEY_MAX_LENGTH).isPresent())
+            throw new CustomBadRequestException("Idempotency key is not valid. Should be at most %d characters!"
+                    .formatted(IDEMPOTENCY_KEY_MAX_LENGTH));
+        return key;
+    }
+
+    /**
+     * Owners are opaque ids. Restricting them to a small alphabet keeps them safe to combine into
+     * composite keys, such as scoping a client's idempotency key to its owner. They are lower cased,
+     * so the case-insensitive search collation compares owners the same way the binary indexes do.
+     */
+    public static String convertToOwner(String value) {
+        String owner = convertToOptional(value).map(String::strip)
+                .orElseThrow(() -> new CustomBadRequestException("Owner id is not valid!"));
+        if (!OWNER.matcher(owner).matches())
+            throw new CustomBadRequestException("Owner id is not valid. Should be at most 64 letters, digits, - or _!");
+        return owner.toLowerCase(Locale.ROOT);
+    }
+
+    public static Set<ApartmentField> convertToFields(String value) {
+        Set<ApartmentField> fields = EnumSet.noneOf(ApartmentField.class);
+        if (!StringUtils.hasText(value))
+            return fields;
+        Arrays.stream(value.split(","))
+                .map(String::strip)
+                .filter(StringUtils::hasText)
+                .forEach(field -> fields.add(Arrays.stream(ApartmentField.values())
+                        .filter(f -> f.getProperty().equals(field))
+                        .findFirst()
+                        .orElseThrow(() -> new CustomBadRequestException("Field %s is not valid!".formatted(field)))));
+        return fields;
+    }
 }
@@ -0,0 +1,36 @@
+package co.ke.proaktivio.qwanguapi.utils;
+
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent callers asking for the same key share one in-flight upstream. Every caller
+ * gets the complete result replayed, and the key is released as soon as the upstream terminates,
+ * so nothing is served after the fact.
+ */
+public class SingleFlight<K, V> {
+    private final Map<K, Flux<V>> inFlight = new ConcurrentHashMap<>();
+
+    public Flux<V> execute(K key, Supplier<Flux<V>> upstream) {
+        return Flux.defer(() -> inFlight.computeIfAbsent(key, k -> share(k, upstream)));
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    private Flux<V> share(K key, Supplier<Flux<V>> upstream) {
+        AtomicReference<Flux<V>> self = new AtomicReference<>();
+        Flux<V> shared = Flux.defer(upstream)
+                // removes only this flight, a subscriber arriving after release may already have started the next one
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .replay()
+                .refCount();
+        self.set(shared);
+        return shared;
+    }
+}
@@ -0,0 +1,113 @@
+package co.ke.proaktivio.qwanguapi.caches;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static co.ke.proaktivio.qwanguapi.models.ApartmentFixture.apartment;
+
+class ApartmentCacheTest {
+
+    @Test
+    @DisplayName("Invalidate drops the name an apartment was found by")
+    void invalidate_DropsNameEntry_WhenApartmentWasFoundByName() {
+        // given
+        ApartmentCache cache = new ApartmentCache(new ApartmentProperties());
+        AtomicInteger loads = new AtomicInteger();
+        Apartment apartment = apartment().build();
+        StepVerifier.create(cache.findByName("owner-a", "Luxury Apartment", (owner, name) -> {
+                    loads.incrementAndGet();
+                    return Mono.just(apartment);
+                }))
+                .expectNext(apartment)
+                .verifyComplete();
+
+        // when
+        cache.invalidate("1");
+
+        // then
+        StepVerifier.create(cache.findByName("owner-a", "Luxury Apartment", (owner, name) -> {
+                    loads.incrementAndGet();
+                    return Mono.empty();
+                }))
+                .verifyComplete();
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("InvalidateAll keeps the names of apartments it was not given")
+    void invalidateAll_KeepsOtherNameEntries_WhenIdsAreInvalidated() {
+        // given
+        ApartmentCache cache = new ApartmentCache(new ApartmentProperties());
+        Apartment luxury = apartment().build();
+        Apartment kilimani = apartment().id("2").name("Kilimani Apartments").build();
+        cache.findByName("owner-a", "Luxury Apartment", (owner, name) -> Mono.just(luxury)).block();
+        cache.findByName("owner-a", "Kilimani Apartments", (owner, name) -> Mono.just(kilimani)).block();
+
+        // when
+        cache.invalidateAll(List.of("1"));
+
+        // then
+        StepVerifier.create(cache.findByName("owner-a", "Luxury Apartment", (owner, name) -> Mono.empty()))
+                .verifyComplete();
+        StepVerifier.create(cache.findByName("owner-a", "Kilimani Apartments", (owner, name) -> Mono.empty()))
+                .expectNext(kilimani)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("FindByName does not keep a load that was in flight while its apartment was written")
+    void findByName_DoesNotKeepLoad_WhenIdIsInvalidatedWhileInFlight() {
+        // given
+        ApartmentCache cache = new ApartmentCache(new ApartmentProperties());
+        Apartment stale = apartment().build();
+        Sinks.One<Apartment> read = Sinks.one();
+        Mono<Apartment> lookup = cache.findByName("owner-a", "Luxury Apartment", (owner, name) -> read.asMono());
+
+        // when
+        StepVerifier.create(lookup)
+                .then(() -> {
+                    // the apartment is renamed after the load read it and before the load completed
+                    cache.invalidate("1");
+                    read.tryEmitValue(stale);
+                })
+                .expectNext(stale)
+                .verifyComplete();
+
+        // then
+        StepVerifier.create(cache.findByName("owner-a", "Luxury Apartment", (owner, name) -> Mono.empty()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("FindById does not return an apartment another owner has cached")
+    void findById_ReturnsEmpty_WhenApartmentBelongsToAnotherOwner() {
+        // given
+        ApartmentCache cache = new ApartmentCache(new ApartmentProperties());
+        AtomicInteger loads = new AtomicInteger();
+        Apartment apartment = apartment().build();
+
+        // when
+        Mono<Apartment> lookups = cache.findById("owner-a", "1", (id, owner) -> {
+                    loads.incrementAndGet();
+                    return Mono.just(apartment);
+                })
+                .then(cache.findById("owner-b", "1", (id, owner) -> {
+                    loads.incrementAndGet();
+                    return Mono.just(apartment);
+                }));
+
+        // then
+        StepVerifier.create(lookups)
+                .verifyComplete();
+        Assertions.assertEquals(1, loads.get());
+    }
+}
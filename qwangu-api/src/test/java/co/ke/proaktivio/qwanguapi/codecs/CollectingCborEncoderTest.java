@@ -0,0 +1,75 @@
+package co.ke.proaktivio.qwanguapi.codecs;
+
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.Collections;
+import java.util.List;
+
+class CollectingCborEncoderTest {
+
+    private final ObjectMapper mapper = new ObjectMapper(new CBORFactory());
+    private final CollectingCborEncoder encoder = new CollectingCborEncoder(mapper);
+
+    @Test
+    @DisplayName("Encode writes a flux of apartments as a single CBOR array")
+    void encode_WritesOneArray_WhenInputIsAFlux() {
+        // given
+        Apartment first = new Apartment("Luxury Apartments", null, null);
+        Apartment second = new Apartment("Luxury Apartments 2", null, null);
+
+        // when
+        Flux<byte[]> encoded = encoder
+                .encode(Flux.just(first, second), new DefaultDataBufferFactory(), ResolvableType.forClass(Apartment.class),
+                        MediaType.APPLICATION_CBOR, Collections.emptyMap())
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                });
+
+        // then
+        StepVerifier.create(encoded)
+                .expectNextMatches(bytes -> {
+                    try {
+                        List<Apartment> apartments = mapper.readValue(bytes, new TypeReference<>() {});
+                        return apartments.size() == 2 &&
+                                apartments.get(0).getName().equals("Luxury Apartments") &&
+                                apartments.get(1).getName().equals("Luxury Apartments 2");
+                    } catch (Exception e) {
+                        return false;
+                    }
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Encode writes an empty CBOR array for an empty flux")
+    void encode_WritesEmptyArray_WhenInputIsEmpty() {
+        // when
+        Flux<Integer> encoded = encoder
+                .encode(Flux.empty(), new DefaultDataBufferFactory(), ResolvableType.forClass(Apartment.class),
+                        MediaType.APPLICATION_CBOR, Collections.emptyMap())
+                .map(buffer -> {
+                    int size = buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return size;
+                });
+
+        // then
+        StepVerifier.create(encoded)
+                .expectNext(1)
+                .verifyComplete();
+    }
+}
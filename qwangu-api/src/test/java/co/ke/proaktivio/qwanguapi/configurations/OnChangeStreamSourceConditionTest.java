@@ -0,0 +1,40 @@
+package co.ke.proaktivio.qwanguapi.configurations;
+
+import co.ke.proaktivio.qwanguapi.services.ApartmentChangeSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import static org.mockito.Mockito.mock;
+
+class OnChangeStreamSourceConditionTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withUserConfiguration(ApartmentChangeConfiguration.class)
+            .withBean(ReactiveMongoTemplate.class, () -> mock(ReactiveMongoTemplate.class));
+
+    @ParameterizedTest
+    @ValueSource(strings = {"change-stream", "CHANGE_STREAM", "change_stream"})
+    @DisplayName("The change stream source is registered for every spelling of change-stream")
+    void condition_RegistersChangeStreamSource_WhenSourceIsChangeStream(String source) {
+        // when
+        ApplicationContextRunner configured = runner.withPropertyValues(OnChangeStreamSourceCondition.PROPERTY + "=" + source);
+
+        // then
+        configured.run(context -> Assertions.assertEquals(1, context.getBeansOfType(ApartmentChangeSource.class).size()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"in-process", "IN_PROCESS"})
+    @DisplayName("The change stream source is not registered when changes are read in process")
+    void condition_SkipsChangeStreamSource_WhenSourceIsInProcess(String source) {
+        // when
+        ApplicationContextRunner configured = runner.withPropertyValues(OnChangeStreamSourceCondition.PROPERTY + "=" + source);
+
+        // then
+        configured.run(context -> Assertions.assertTrue(context.getBeansOfType(ApartmentChangeSource.class).isEmpty()));
+    }
+}
@@ -0,0 +1,76 @@
+package co.ke.proaktivio.qwanguapi.configurations;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadPreference;
+import com.mongodb.TaggableReadPreference;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+class ReactiveMongoTemplateConfigurationTest {
+
+    private final ReactiveMongoTemplateConfiguration configuration = new ReactiveMongoTemplateConfiguration();
+
+    @Test
+    @DisplayName("Mongo client tuning applies the pool, timeout and compressor settings")
+    void mongoClientTuningCustomizer_AppliesSettings_WhenConfigured() {
+        // given
+        MongoClientProperties properties = new MongoClientProperties();
+        properties.getPool().setMaxSize(16);
+        properties.getPool().setMaxWaitTime(Duration.ofMillis(500));
+        properties.setServerSelectionTimeout(Duration.ofSeconds(3));
+        properties.setCompressors(List.of(MongoClientProperties.Compressor.ZLIB));
+        MongoClientSettings.Builder builder = MongoClientSettings.builder();
+
+        // when
+        configuration.mongoClientTuningCustomizer(properties).customize(builder);
+        MongoClientSettings settings = builder.build();
+
+        // then
+        Assertions.assertEquals(16, settings.getConnectionPoolSettings().getMaxSize());
+        Assertions.assertEquals(500, settings.getConnectionPoolSettings().getMaxWaitTime(TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(3000, settings.getClusterSettings().getServerSelectionTimeout(TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(30_000, settings.getSocketSettings().getReadTimeout(TimeUnit.MILLISECONDS));
+        Assertions.assertEquals("zlib", settings.getCompressorList().get(0).getName());
+    }
+
+    @Test
+    @DisplayName("Read preference of the read-only template is bounded by the max staleness")
+    void readPreference_ReturnsSecondaryPreferredWithMaxStaleness_WhenDefault() {
+        // given
+        MongoClientProperties.ReadOnly readOnly = new MongoClientProperties.ReadOnly();
+
+        // when
+        ReadPreference preference = ReactiveMongoTemplateConfiguration.readPreference(readOnly);
+
+        // then
+        Assertions.assertEquals(ReadPreference.secondaryPreferred(), ReadPreference.valueOf(preference.getName()));
+        Assertions.assertEquals(90L, ((TaggableReadPreference) preference).getMaxStaleness(TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Read preference ignores the max staleness when reading from the primary")
+    void readPreference_ReturnsPrimary_WhenPrimaryIsConfigured() {
+        // given
+        MongoClientProperties.ReadOnly readOnly = new MongoClientProperties.ReadOnly();
+        readOnly.setReadPreference(MongoClientProperties.ReadOnly.ReadPreference.PRIMARY);
+
+        // then
+        Assertions.assertEquals(ReadPreference.primary(), ReactiveMongoTemplateConfiguration.readPreference(readOnly));
+    }
+
+    @Test
+    @DisplayName("Read preference rejects a max staleness below what servers accept")
+    void readPreference_ThrowsIllegalArgumentException_WhenMaxStalenessIsTooLow() {
+        // given
+        MongoClientProperties.ReadOnly readOnly = new MongoClientProperties.ReadOnly();
+        readOnly.setMaxStaleness(Duration.ofSeconds(10));
+
+        // then
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ReactiveMongoTemplateConfiguration.readPreference(readOnly));
+    }
+}
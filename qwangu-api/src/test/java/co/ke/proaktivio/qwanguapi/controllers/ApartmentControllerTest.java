@@ -0,0 +1,238 @@
+package co.ke.proaktivio.qwanguapi.controllers;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomPreconditionFailedException;
+import co.ke.proaktivio.qwanguapi.handlers.GlobalExceptionHandler;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentBulkDelete;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentBulkResult;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentPatch;
+import co.ke.proaktivio.qwanguapi.pojos.BulkStatus;
+import co.ke.proaktivio.qwanguapi.services.ApartmentService;
+import co.ke.proaktivio.qwanguapi.services.implementations.ApartmentChangeBroadcaster;
+import co.ke.proaktivio.qwanguapi.services.implementations.InProcessApartmentChangeSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.test.web.reactive.server.MockServerConfigurer;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static co.ke.proaktivio.qwanguapi.models.ApartmentFixture.apartment;
+import static org.mockito.Mockito.*;
+
+class ApartmentControllerTest {
+
+    private ApartmentService service;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        ApartmentProperties properties = new ApartmentProperties();
+        service = mock(ApartmentService.class);
+        ApartmentChangeBroadcaster broadcaster =
+                new ApartmentChangeBroadcaster(new InProcessApartmentChangeSource(), properties, new SimpleMeterRegistry());
+        client = WebTestClient.bindToController(new ApartmentController(service, broadcaster))
+                .apply(new MockServerConfigurer() {
+                    @Override
+                    public void beforeServerCreated(WebHttpHandlerBuilder builder) {
+                        builder.exceptionHandlers(handlers -> handlers.add(0, new GlobalExceptionHandler(ServerCodecConfigurer.create())));
+                    }
+                })
+                .configureClient()
+                .defaultHeader(ApartmentController.OWNER_ID, "owner-a")
+                .build();
+    }
+
+    @Test
+    @DisplayName("FindById answers a current If-None-Match with a 304 and no body")
+    void findById_ReturnsNotModified_WhenIfNoneMatchIsCurrent() {
+        // given
+        Apartment apartment = apartment().version(3L).build();
+        when(service.findById("owner-a", "1")).thenReturn(Mono.just(apartment));
+
+        // when
+        WebTestClient.ResponseSpec response = client.get()
+                .uri("/v1/apartments/1")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .exchange();
+
+        // then
+        response.expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    @DisplayName("Patch with a stale If-Match is answered with a 412 problem")
+    void patch_ReturnsPreconditionFailedProblem_WhenIfMatchIsStale() {
+        // given
+        ApartmentPatch patch = new ApartmentPatch(null, null, "Kilimani Apartments");
+        when(service.patch("owner-a", "1", patch, Optional.of(2L), Optional.empty()))
+                .thenReturn(Mono.error(new CustomPreconditionFailedException("Apartment with id 1 has been modified!")));
+
+        // when
+        WebTestClient.ResponseSpec response = client.patch()
+                .uri("/v1/apartments/1")
+                .header(HttpHeaders.IF_MATCH, "\"2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(patch)
+                .exchange();
+
+        // then
+        response.expectStatus().isEqualTo(412)
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(412)
+                .jsonPath("$.detail").isEqualTo("Apartment with id 1 has been modified!")
+                .jsonPath("$.instance").isEqualTo("/v1/apartments/1");
+    }
+
+    @Test
+    @DisplayName("Patch with an If-Match too large for a version is answered with a 412 problem")
+    void patch_ReturnsPreconditionFailedProblem_WhenIfMatchOverflowsVersion() {
+        // when
+        WebTestClient.ResponseSpec response = client.patch()
+                .uri("/v1/apartments/1")
+                .header(HttpHeaders.IF_MATCH, "\"99999999999999999999\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new ApartmentPatch(null, null, "Kilimani Apartments"))
+                .exchange();
+
+        // then
+        response.expectStatus().isEqualTo(412)
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody()
+                .jsonPath("$.detail").isEqualTo("Apartment with id 1 does not match \"99999999999999999999\"!");
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    @DisplayName("Patch that changes no field is answered with a 400 problem")
+    void patch_ReturnsBadRequestProblem_WhenPatchIsEmpty() {
+        // when
+        WebTestClient.ResponseSpec response = client.patch()
+                .uri("/v1/apartments/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{}")
+                .exchange();
+
+        // then
+        response.expectStatus().isBadRequest()
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(400)
+                .jsonPath("$.detail").isEqualTo("Apartment patch has nothing to update!");
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    @DisplayName("Patch without a body is answered with a 400 problem")
+    void patch_ReturnsBadRequestProblem_WhenBodyIsMissing() {
+        // when
+        WebTestClient.ResponseSpec response = client.patch()
+                .uri("/v1/apartments/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .exchange();
+
+        // then
+        response.expectStatus().isBadRequest()
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(400)
+                .jsonPath("$.instance").isEqualTo("/v1/apartments/1");
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    @DisplayName("PatchAll streams a result per patch line, failed patches included")
+    void patchAll_ReturnsResultPerLine_WhenSomePatchesFail() {
+        // given
+        Map<String, ApartmentBulkResult> outcomes = Map.of(
+                "1", new ApartmentBulkResult(0, BulkStatus.NOT_FOUND, null, "Apartment with id 1 does not exist!"),
+                "2", new ApartmentBulkResult(1, BulkStatus.ALREADY_EXISTS, null, "Apartment Kilimani Apartments already exists!"),
+                "3", new ApartmentBulkResult(2, BulkStatus.PRECONDITION_FAILED, null, "Apartment with id 3 has been modified!"));
+        when(service.patchAll(eq("owner-a"), ArgumentMatchers.<Flux<ApartmentPatch>>any()))
+                .thenAnswer(invocation -> invocation.<Flux<ApartmentPatch>>getArgument(1)
+                        .map(patch -> outcomes.get(patch.getId())));
+
+        // when
+        WebTestClient.ResponseSpec response = client.patch()
+                .uri("/v1/apartments")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue("""
+                        {"id":"1","name":"Westlands Apartments"}
+                        {"id":"2","name":"Kilimani Apartments"}
+                        {"id":"3","version":4,"name":"Karen Apartments"}
+                        """)
+                .exchange();
+
+        // then
+        response.expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(ApartmentBulkResult.class)
+                .isEqualTo(List.of(outcomes.get("1"), outcomes.get("2"), outcomes.get("3")));
+    }
+
+    @Test
+    @DisplayName("DeleteAll by ids streams a result per id")
+    void deleteAll_ReturnsResultPerId_WhenDeletingByIds() {
+        // given
+        ApartmentBulkDelete delete = new ApartmentBulkDelete(List.of("1", "2"), null);
+        when(service.deleteAll("owner-a", delete)).thenReturn(Flux.just(
+                new ApartmentBulkResult(0, BulkStatus.DELETED, null, null),
+                new ApartmentBulkResult(1, BulkStatus.NOT_FOUND, null, "Apartment with id 2 does not exist!")));
+
+        // when
+        WebTestClient.ResponseSpec response = client.post()
+                .uri("/v1/apartments/delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(delete)
+                .exchange();
+
+        // then
+        response.expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(ApartmentBulkResult.class)
+                .hasSize(2)
+                .contains(new ApartmentBulkResult(1, BulkStatus.NOT_FOUND, null, "Apartment with id 2 does not exist!"));
+    }
+
+    @Test
+    @DisplayName("DeleteAll by name prefix streams a result per deleted apartment")
+    void deleteAll_ReturnsResultPerApartment_WhenDeletingByNamePrefix() {
+        // given
+        ApartmentBulkDelete delete = new ApartmentBulkDelete(null, "Kilimani");
+        when(service.deleteAll("owner-a", delete)).thenReturn(Flux.just(
+                new ApartmentBulkResult(0, BulkStatus.DELETED, null, null),
+                new ApartmentBulkResult(1, BulkStatus.DELETED, null, null)));
+
+        // when
+        WebTestClient.ResponseSpec response = client.post()
+                .uri("/v1/apartments/delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(delete)
+                .exchange();
+
+        // then
+        response.expectStatus().isOk()
+                .expectBodyList(ApartmentBulkResult.class)
+                .isEqualTo(List.of(new ApartmentBulkResult(0, BulkStatus.DELETED, null, null),
+                        new ApartmentBulkResult(1, BulkStatus.DELETED, null, null)));
+        verify(service).deleteAll("owner-a", delete);
+    }
+}
@@ -0,0 +1,55 @@
+package co.ke.proaktivio.qwanguapi.filters;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+class AimdLimiterTest {
+
+    private final ApartmentProperties.Admission.Limit properties =
+            new ApartmentProperties.Admission.Limit(2, 1, 4, Duration.ofMillis(100), 0.5);
+
+    @Test
+    @DisplayName("TryAcquire refuses a permit once the limit is in flight")
+    void tryAcquire_ReturnsNegative_WhenLimitIsInFlight() {
+        // given
+        AimdLimiter limiter = new AimdLimiter(properties);
+
+        // when
+        int first = limiter.tryAcquire();
+        int second = limiter.tryAcquire();
+        int third = limiter.tryAcquire();
+
+        // then
+        Assertions.assertEquals(1, first);
+        Assertions.assertEquals(2, second);
+        Assertions.assertTrue(third < 0);
+        Assertions.assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Release raises the limit after fast requests and lowers it after slow ones")
+    void release_AdjustsLimit_ToObservedLatency() {
+        // given
+        AimdLimiter limiter = new AimdLimiter(properties);
+        long fast = Duration.ofMillis(10).toNanos();
+        long slow = Duration.ofMillis(200).toNanos();
+
+        // when
+        limiter.release(limiter.tryAcquire(), fast, AimdLimiter.Outcome.SUCCESS);
+        int raised = limiter.getLimit();
+        limiter.release(limiter.tryAcquire(), slow, AimdLimiter.Outcome.SUCCESS);
+        int lowered = limiter.getLimit();
+        limiter.release(limiter.tryAcquire(), fast, AimdLimiter.Outcome.DROPPED);
+        int floored = limiter.getLimit();
+
+        // then
+        Assertions.assertEquals(3, raised);
+        Assertions.assertEquals(1, lowered);
+        Assertions.assertEquals(1, floored);
+        Assertions.assertEquals(0, limiter.getInFlight());
+    }
+}
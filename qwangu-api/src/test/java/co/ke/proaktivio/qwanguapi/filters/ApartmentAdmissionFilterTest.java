@@ -0,0 +1,143 @@
+package co.ke.proaktivio.qwanguapi.filters;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+class ApartmentAdmissionFilterTest {
+
+    private ApartmentProperties properties;
+    private MeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ApartmentProperties();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Filter sheds a read with a 503 and Retry-After once the read limit is in flight")
+    void filter_Returns503_WhenReadLimitIsInFlight() {
+        // given
+        limitReadsToOne();
+        properties.getAdmission().setRetryAfter(Duration.ofSeconds(2));
+        ApartmentAdmissionFilter filter = new ApartmentAdmissionFilter(properties, registry);
+        Sinks.Empty<Void> slow = Sinks.empty();
+        MockServerWebExchange first = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/apartments/1"));
+        MockServerWebExchange second = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/apartments/2"));
+        MockServerWebExchange write = MockServerWebExchange.from(MockServerHttpRequest.post("/v1/apartments"));
+
+        // when
+        filter.filter(first, exchange -> slow.asMono()).subscribe();
+
+        // then
+        StepVerifier.create(filter.filter(second, exchange -> Mono.error(new IllegalStateException("admitted"))))
+                .expectErrorMatches(e -> e instanceof ResponseStatusException rejected &&
+                        rejected.getStatus() == HttpStatus.SERVICE_UNAVAILABLE)
+                .verify();
+        Assertions.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, second.getResponse().getStatusCode());
+        Assertions.assertEquals("2", second.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        StepVerifier.create(filter.filter(write, exchange -> Mono.empty()))
+                .verifyComplete();
+        Assertions.assertNull(write.getResponse().getStatusCode());
+        Assertions.assertEquals(1, registry.get("qwangu.apartments.admission.rejected")
+                .tags("type", "read", "reason", "limit")
+                .counter()
+                .count());
+    }
+
+    @Test
+    @DisplayName("Filter returns a 429 once a client has used its burst")
+    void filter_Returns429_WhenClientExceedsItsRate() {
+        // given
+        properties.getAdmission().getClients().setEnabled(true);
+        properties.getAdmission().getClients().setRate(1);
+        properties.getAdmission().getClients().setBurst(2);
+        ApartmentAdmissionFilter filter = new ApartmentAdmissionFilter(properties, registry);
+        WebFilterChain chain = exchange -> Mono.empty();
+
+        // when
+        for (int i = 0; i < 2; i++)
+            filter.filter(exchange("client-a"), chain).block();
+        MockServerWebExchange limited = exchange("client-a");
+        MockServerWebExchange other = exchange("client-b");
+
+        // then
+        StepVerifier.create(filter.filter(limited, chain))
+                .expectErrorMatches(e -> e instanceof ResponseStatusException rejected &&
+                        rejected.getStatus() == HttpStatus.TOO_MANY_REQUESTS)
+                .verify();
+        Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, limited.getResponse().getStatusCode());
+        Assertions.assertEquals("1", limited.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        StepVerifier.create(filter.filter(other, chain))
+                .verifyComplete();
+        Assertions.assertNull(other.getResponse().getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Filter lets streams through without taking a permit")
+    void filter_AdmitsStreams_WhenLimitIsInFlight() {
+        // given
+        limitReadsToOne();
+        ApartmentAdmissionFilter filter = new ApartmentAdmissionFilter(properties, registry);
+        MockServerWebExchange changes = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/apartments/changes"));
+        MockServerWebExchange read = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/apartments/1"));
+
+        // when
+        filter.filter(changes, exchange -> Sinks.empty().asMono().then()).subscribe();
+
+        // then
+        StepVerifier.create(filter.filter(read, exchange -> Mono.empty()))
+                .verifyComplete();
+        Assertions.assertNull(read.getResponse().getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Filter lets bulk writes through without taking a write permit")
+    void filter_AdmitsBulkWrites_WhenWriteLimitIsInFlight() {
+        // given
+        ApartmentProperties.Admission.Limit writes = properties.getAdmission().getWrites();
+        writes.setInitialLimit(1);
+        writes.setMinLimit(1);
+        writes.setMaxLimit(1);
+        ApartmentAdmissionFilter filter = new ApartmentAdmissionFilter(properties, registry);
+        MockServerWebExchange patchAll = MockServerWebExchange.from(MockServerHttpRequest.patch("/v1/apartments"));
+        MockServerWebExchange deleteAll = MockServerWebExchange.from(MockServerHttpRequest.post("/v1/apartments/delete"));
+        MockServerWebExchange create = MockServerWebExchange.from(MockServerHttpRequest.post("/v1/apartments"));
+
+        // when
+        filter.filter(patchAll, exchange -> Sinks.empty().asMono().then()).subscribe();
+        filter.filter(deleteAll, exchange -> Sinks.empty().asMono().then()).subscribe();
+
+        // then
+        StepVerifier.create(filter.filter(create, exchange -> Mono.empty()))
+                .verifyComplete();
+        Assertions.assertNull(create.getResponse().getStatusCode());
+    }
+
+    private void limitReadsToOne() {
+        ApartmentProperties.Admission.Limit reads = properties.getAdmission().getReads();
+        reads.setInitialLimit(1);
+        reads.setMinLimit(1);
+        reads.setMaxLimit(1);
+    }
+
+    private static MockServerWebExchange exchange(String client) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/v1/apartments/1").header("X-Client-Id", client));
+    }
+}
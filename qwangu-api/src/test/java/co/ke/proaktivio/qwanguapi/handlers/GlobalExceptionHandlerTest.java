@@ -0,0 +1,264 @@
+package co.ke.proaktivio.qwanguapi.handlers;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.controllers.ApartmentController;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomNotFoundException;
+import co.ke.proaktivio.qwanguapi.filters.ApartmentAdmissionFilter;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentBulkDelete;
+import co.ke.proaktivio.qwanguapi.pojos.OrderType;
+import co.ke.proaktivio.qwanguapi.services.ApartmentService;
+import co.ke.proaktivio.qwanguapi.services.implementations.ApartmentChangeBroadcaster;
+import co.ke.proaktivio.qwanguapi.services.implementations.InProcessApartmentChangeSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.test.web.reactive.server.MockServerConfigurer;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static co.ke.proaktivio.qwanguapi.models.ApartmentFixture.apartment;
+import static org.mockito.Mockito.*;
+
+class GlobalExceptionHandlerTest {
+
+    private ApartmentProperties properties;
+    private ApartmentService service;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ApartmentProperties();
+        service = mock(ApartmentService.class);
+        client = client();
+    }
+
+    @Test
+    @DisplayName("A missing apartment is answered with a 404 problem")
+    void handle_ReturnsNotFoundProblem_WhenApartmentDoesNotExist() {
+        // given
+        when(service.findById("owner-a", "1"))
+                .thenReturn(Mono.error(new CustomNotFoundException("Apartment with id 1 does not exist!")));
+
+        // when
+        WebTestClient.ResponseSpec response = client.get()
+                .uri("/v1/apartments/1")
+                .exchange();
+
+        // then
+        response.expectStatus().isNotFound()
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody()
+                .jsonPath("$.type").isEqualTo("about:blank")
+                .jsonPath("$.title").isEqualTo(HttpStatus.NOT_FOUND.getReasonPhrase())
+                .jsonPath("$.status").isEqualTo(404)
+                .jsonPath("$.detail").isEqualTo("Apartment with id 1 does not exist!")
+                .jsonPath("$.instance").isEqualTo("/v1/apartments/1");
+    }
+
+    @Test
+    @DisplayName("An invalid parameter is answered with a 400 problem")
+    void handle_ReturnsBadRequestProblem_WhenParameterIsInvalid() {
+        // when
+        WebTestClient.ResponseSpec response = client.get()
+                .uri("/v1/apartments?page=one&pageSize=10&order=ASC")
+                .exchange();
+
+        // then
+        response.expectStatus().isBadRequest()
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(400)
+                .jsonPath("$.detail").isEqualTo("Page is not valid!");
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    @DisplayName("A request with an invalid owner is answered with a 400 problem")
+    void handle_ReturnsBadRequestProblem_WhenOwnerIsNotValid() {
+        // when
+        WebTestClient.ResponseSpec response = client.get()
+                .uri("/v1/apartments/1")
+                .header(ApartmentController.OWNER_ID, "owner a")
+                .exchange();
+
+        // then
+        response.expectStatus().isBadRequest()
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(400)
+                .jsonPath("$.detail").isEqualTo("Owner id is not valid. Should be at most 64 letters, digits, - or _!");
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    @DisplayName("An owner id is matched whatever its case")
+    void findById_ReturnsApartment_WhenOwnerIdDiffersInCase() {
+        // given
+        Apartment apartment = apartment().build();
+        when(service.findById("owner-a", "1")).thenReturn(Mono.just(apartment));
+
+        // when
+        WebTestClient.ResponseSpec response = client.get()
+                .uri("/v1/apartments/1")
+                .header(ApartmentController.OWNER_ID, "Owner-A")
+                .exchange();
+
+        // then
+        response.expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.owner").isEqualTo("owner-a");
+    }
+
+    @Test
+    @DisplayName("A bulk delete that gives both ids and a name prefix is answered with a 400 problem")
+    void handle_ReturnsBadRequestProblem_WhenBulkDeleteGivesIdsAndNamePrefix() {
+        // when
+        WebTestClient.ResponseSpec response = client.post()
+                .uri("/v1/apartments/delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new ApartmentBulkDelete(List.of("1"), "Apartment"))
+                .exchange();
+
+        // then
+        response.expectStatus().isBadRequest()
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(400)
+                .jsonPath("$.detail").isEqualTo("Exactly one of ids or namePrefix must be provided!");
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    @DisplayName("A request shed by a filter is answered with a problem that keeps the filter's headers")
+    void handle_ReturnsTooManyRequestsProblem_WhenAdmissionFilterShedsRequest() {
+        // given
+        properties.getAdmission().getClients().setEnabled(true);
+        properties.getAdmission().getClients().setRate(1);
+        properties.getAdmission().getClients().setBurst(1);
+        WebTestClient shedding = client(new ApartmentAdmissionFilter(properties, new SimpleMeterRegistry()));
+        when(service.findById("owner-a", "1"))
+                .thenReturn(Mono.error(new CustomNotFoundException("Apartment with id 1 does not exist!")));
+        shedding.get()
+                .uri("/v1/apartments/1")
+                .exchange()
+                .expectStatus().isNotFound();
+
+        // when
+        WebTestClient.ResponseSpec response = shedding.get()
+                .uri("/v1/apartments/1")
+                .exchange();
+
+        // then
+        response.expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1")
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(429)
+                .jsonPath("$.detail").isEqualTo("Too many requests, retry after 1 seconds!")
+                .jsonPath("$.instance").isEqualTo("/v1/apartments/1");
+        verify(service, times(1)).findById("owner-a", "1");
+    }
+
+    @Test
+    @DisplayName("A request for a media type no codec writes is answered with a 406 problem")
+    void handle_ReturnsNotAcceptableProblem_WhenNoCodecWritesMediaType() {
+        // given
+        Apartment apartment = apartment().build();
+        when(service.findById("owner-a", "1")).thenReturn(Mono.just(apartment));
+
+        // when
+        WebTestClient.ResponseSpec response = client.get()
+                .uri("/v1/apartments/1")
+                .accept(MediaType.APPLICATION_PDF)
+                .exchange();
+
+        // then
+        response.expectStatus().isEqualTo(HttpStatus.NOT_ACCEPTABLE)
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(406)
+                .jsonPath("$.instance").isEqualTo("/v1/apartments/1");
+    }
+
+    @Test
+    @DisplayName("A request to an unknown route is answered with a 404 problem")
+    void handle_ReturnsNotFoundProblem_WhenRouteDoesNotExist() {
+        // when
+        WebTestClient.ResponseSpec response = client.get()
+                .uri("/v1/tenants")
+                .exchange();
+
+        // then
+        response.expectStatus().isNotFound()
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(404)
+                .jsonPath("$.instance").isEqualTo("/v1/tenants");
+    }
+
+    @Test
+    @DisplayName("An unexpected error is answered with a 500 problem")
+    void handle_ReturnsInternalServerErrorProblem_WhenErrorIsUnexpected() {
+        // given
+        when(service.findById("owner-a", "1")).thenReturn(Mono.error(new IllegalStateException("connection reset")));
+
+        // when
+        WebTestClient.ResponseSpec response = client.get()
+                .uri("/v1/apartments/1")
+                .exchange();
+
+        // then
+        response.expectStatus().isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR)
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(500)
+                .jsonPath("$.detail").doesNotExist();
+    }
+
+    @Test
+    @DisplayName("A page with no apartments is an empty 200")
+    void find_ReturnsEmptyPage_WhenNoApartmentsMatch() {
+        // given
+        when(service.findPaginated("owner-a", Optional.empty(), Optional.empty(), 4, 10, OrderType.ASC, Set.of()))
+                .thenReturn(Flux.empty());
+
+        // when
+        WebTestClient.ResponseSpec response = client.get()
+                .uri("/v1/apartments?page=5&pageSize=10&order=ASC")
+                .exchange();
+
+        // then
+        response.expectStatus().isOk()
+                .expectBody()
+                .json("[]");
+    }
+
+    private WebTestClient client(WebFilter... filters) {
+        ApartmentChangeBroadcaster broadcaster =
+                new ApartmentChangeBroadcaster(new InProcessApartmentChangeSource(), properties, new SimpleMeterRegistry());
+        return WebTestClient.bindToController(new ApartmentController(service, broadcaster))
+                .webFilter(filters)
+                .apply(new MockServerConfigurer() {
+                    @Override
+                    public void beforeServerCreated(WebHttpHandlerBuilder builder) {
+                        builder.exceptionHandlers(handlers -> handlers.add(0, new GlobalExceptionHandler(ServerCodecConfigurer.create())));
+                    }
+                })
+                .configureClient()
+                .defaultHeader(ApartmentController.OWNER_ID, "owner-a")
+                .build();
+    }
+}
@@ -0,0 +1,165 @@
+package co.ke.proaktivio.qwanguapi.indexes;
+
+import co.ke.proaktivio.qwanguapi.configurations.MongoClientProperties;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class IndexManagerTest {
+    private static final Index NAME = new Index().on("name", Sort.Direction.ASC).unique().named("name");
+    private static final Index MODIFIED = new Index()
+            .on("modified", Sort.Direction.ASC)
+            .on("_id", Sort.Direction.ASC)
+            .named("modified_id");
+
+    private ReactiveMongoTemplate template;
+    private ReactiveIndexOperations indexOps;
+    private MongoClientProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        template = mock(ReactiveMongoTemplate.class);
+        indexOps = mock(ReactiveIndexOperations.class);
+        properties = new MongoClientProperties();
+        when(template.indexOps(Apartment.class)).thenReturn(indexOps);
+        when(template.getCollectionName(Apartment.class)).thenReturn("APARTMENT");
+        when(indexOps.ensureIndex(any())).thenAnswer(invocation -> Mono.just("built"));
+    }
+
+    @Test
+    @DisplayName("EnsureIndexes builds missing indexes with the critical ones first")
+    void ensureIndexes_BuildsMissingIndexesCriticalFirst_WhenIndexesAreMissing() {
+        // given
+        IndexManager manager = manager(new ManagedIndex(Apartment.class, MODIFIED, false),
+                new ManagedIndex(Apartment.class, NAME, true));
+
+        // when
+        when(indexOps.getIndexInfo()).thenReturn(Flux.empty());
+
+        // then
+        StepVerifier.create(manager.ensureIndexes())
+                .verifyComplete();
+        InOrder order = inOrder(indexOps);
+        order.verify(indexOps).ensureIndex(NAME);
+        order.verify(indexOps).ensureIndex(MODIFIED);
+        Assertions.assertTrue(manager.getStates().values().stream().allMatch(IndexManager.State.READY::equals));
+        Assertions.assertEquals(Status.UP, IndexHealthIndicator.status(manager.getStates()));
+    }
+
+    @Test
+    @DisplayName("EnsureIndexes reports an index that differs from its declaration without replacing it")
+    void ensureIndexes_ReportsConflict_WhenLiveIndexDiffers() {
+        // given
+        IndexManager manager = manager(new ManagedIndex(Apartment.class, NAME, true));
+
+        // when
+        when(indexOps.getIndexInfo()).thenReturn(Flux.just(info("name", new Document("name", 1), false)));
+
+        // then
+        StepVerifier.create(manager.ensureIndexes())
+                .verifyComplete();
+        verify(indexOps, never()).ensureIndex(any());
+        Assertions.assertEquals(IndexManager.State.CONFLICT, manager.getStates().values().iterator().next());
+        Assertions.assertEquals(Status.DOWN, IndexHealthIndicator.status(manager.getStates()));
+    }
+
+    @Test
+    @DisplayName("EnsureIndexes drops the index a declaration replaces once the replacement is built")
+    void ensureIndexes_DropsReplacedIndex_WhenReplacementIsBuilt() {
+        // given
+        Index ownerName = new Index()
+                .on("owner", Sort.Direction.ASC)
+                .on("name", Sort.Direction.ASC)
+                .unique()
+                .named("owner_name");
+        IndexManager manager = manager(new ManagedIndex(Apartment.class, ownerName, true, "name"));
+
+        // when
+        when(indexOps.getIndexInfo()).thenReturn(Flux.just(info("name", new Document("name", 1), true)));
+        when(indexOps.dropIndex("name")).thenReturn(Mono.empty());
+
+        // then
+        StepVerifier.create(manager.ensureIndexes())
+                .verifyComplete();
+        InOrder order = inOrder(indexOps);
+        order.verify(indexOps).ensureIndex(ownerName);
+        order.verify(indexOps).dropIndex("name");
+        Assertions.assertEquals(IndexManager.State.READY, manager.getStates().values().iterator().next());
+    }
+
+    @Test
+    @DisplayName("EnsureIndexes keeps the index a declaration replaces when the migration before it fails")
+    void ensureIndexes_KeepsReplacedIndex_WhenMigrationFails() {
+        // given
+        properties.getIndexes().setMaxRetries(0);
+        Index ownerName = new Index()
+                .on("owner", Sort.Direction.ASC)
+                .on("name", Sort.Direction.ASC)
+                .unique()
+                .named("owner_name");
+        IndexManager manager = new IndexManager(template, properties, List.of(new ManagedIndex(Apartment.class, ownerName, true, "name")),
+                Mono.error(new IllegalStateException("Migration failed")), new SimpleMeterRegistry());
+
+        // when
+        when(indexOps.getIndexInfo()).thenReturn(Flux.just(info("name", new Document("name", 1), true)));
+
+        // then
+        StepVerifier.create(manager.ensureIndexes())
+                .verifyComplete();
+        verify(indexOps).ensureIndex(ownerName);
+        verify(indexOps, never()).dropIndex(any(String.class));
+        Assertions.assertEquals(IndexManager.State.READY, manager.getStates().values().iterator().next());
+    }
+
+    @Test
+    @DisplayName("Readiness only waits for critical indexes when building is turned off")
+    void ensureIndexes_LeavesMissingIndexes_WhenBuildIsOff() {
+        // given
+        properties.getIndexes().setBuild(false);
+        ManagedIndex name = new ManagedIndex(Apartment.class, NAME, true);
+        ManagedIndex modified = new ManagedIndex(Apartment.class, MODIFIED, false);
+        IndexManager manager = manager(name, modified);
+        Assertions.assertEquals(Status.OUT_OF_SERVICE, IndexHealthIndicator.status(manager.getStates()));
+
+        // when
+        when(indexOps.getIndexInfo()).thenReturn(Flux.just(info("name", new Document("name", 1), true)));
+
+        // then
+        StepVerifier.create(manager.ensureIndexes())
+                .verifyComplete();
+        verify(indexOps, never()).ensureIndex(any());
+        Assertions.assertEquals(Map.of(name, IndexManager.State.READY, modified, IndexManager.State.MISSING),
+                manager.getStates());
+        Assertions.assertEquals(Status.UP, IndexHealthIndicator.status(manager.getStates()));
+    }
+
+    private IndexManager manager(ManagedIndex... indexes) {
+        return new IndexManager(template, properties, List.of(indexes), new SimpleMeterRegistry());
+    }
+
+    private static IndexInfo info(String name, Document keys, boolean unique) {
+        return IndexInfo.indexInfoOf(new Document("name", name)
+                .append("key", keys)
+                .append("unique", unique));
+    }
+}
@@ -0,0 +1,59 @@
+package co.ke.proaktivio.qwanguapi.metrics;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class MongoCommandDocumentsListenerTest {
+
+    private final ConnectionDescription connection = new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MongoCommandDocumentsListener listener = new MongoCommandDocumentsListener(registry);
+
+    @Test
+    @DisplayName("A getMore is tagged with the collection its cursor reads")
+    void commandSucceeded_TagsGetMoreWithCollection_WhenCursorIsContinued() {
+        // given
+        BsonDocument command = BsonDocument.parse("{getMore: {$numberLong: '42'}, collection: 'apartments', batchSize: 2}");
+        BsonDocument response = BsonDocument.parse("{cursor: {id: {$numberLong: '42'}, ns: 'qwangu.apartments', nextBatch: [{}, {}]}, ok: 1}");
+
+        // when
+        listener.commandStarted(new CommandStartedEvent(1, connection, "qwangu", "getMore", command));
+        listener.commandSucceeded(new CommandSucceededEvent(1, connection, "getMore", response, 1_000));
+
+        // then
+        DistributionSummary summary = registry.find(MongoCommandDocumentsListener.DOCUMENTS)
+                .tags("command", "getMore", "collection", "apartments")
+                .summary();
+        Assertions.assertNotNull(summary);
+        Assertions.assertEquals(2, summary.totalAmount());
+    }
+
+    @Test
+    @DisplayName("A find is tagged with the collection it names")
+    void commandSucceeded_TagsFindWithCollection_WhenCursorIsOpened() {
+        // given
+        BsonDocument command = BsonDocument.parse("{find: 'apartments', filter: {}}");
+        BsonDocument response = BsonDocument.parse("{cursor: {id: {$numberLong: '0'}, ns: 'qwangu.apartments', firstBatch: [{}]}, ok: 1}");
+
+        // when
+        listener.commandStarted(new CommandStartedEvent(2, connection, "qwangu", "find", command));
+        listener.commandSucceeded(new CommandSucceededEvent(2, connection, "find", response, 1_000));
+
+        // then
+        DistributionSummary summary = registry.find(MongoCommandDocumentsListener.DOCUMENTS)
+                .tags("command", "find", "collection", "apartments")
+                .summary();
+        Assertions.assertNotNull(summary);
+        Assertions.assertEquals(1, summary.totalAmount());
+    }
+}
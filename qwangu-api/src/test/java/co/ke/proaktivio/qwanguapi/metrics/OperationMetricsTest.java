@@ -0,0 +1,68 @@
+package co.ke.proaktivio.qwanguapi.metrics;
+
+import co.ke.proaktivio.qwanguapi.exceptions.CustomConflictException;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomPreconditionFailedException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class OperationMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final OperationMetrics metrics = new OperationMetrics(registry);
+
+    @Test
+    @DisplayName("Mono records every call of an operation with the same outcome on one timer")
+    void mono_RecordsOnOneTimer_WhenOperationRunsAgain() {
+        // when
+        for (int i = 0; i < 3; i++)
+            StepVerifier.create(Mono.just(i).transform(metrics.mono(OperationMetrics.SERVICE, "findById")))
+                    .expectNext(i)
+                    .verifyComplete();
+
+        // then
+        Timer timer = registry.find(OperationMetrics.SERVICE)
+                .tags("operation", "findById", "outcome", "success")
+                .timer();
+        Assertions.assertNotNull(timer);
+        Assertions.assertEquals(3, timer.count());
+        Assertions.assertEquals(1, registry.find(OperationMetrics.SERVICE).timers().size());
+    }
+
+    @Test
+    @DisplayName("Mono records a stale version with a precondition_failed outcome")
+    void mono_RecordsPreconditionFailedOutcome_WhenVersionIsStale() {
+        // when
+        StepVerifier.create(Mono.error(new CustomPreconditionFailedException("Apartment with id 1 has been modified!"))
+                        .transform(metrics.mono(OperationMetrics.SERVICE, "patch")))
+                .expectError(CustomPreconditionFailedException.class)
+                .verify();
+
+        // then
+        Assertions.assertEquals(1, registry.find(OperationMetrics.SERVICE)
+                .tags("operation", "patch", "outcome", "precondition_failed")
+                .timer()
+                .count());
+    }
+
+    @Test
+    @DisplayName("Flux records a conflict with a conflict outcome")
+    void flux_RecordsConflictOutcome_WhenOperationConflicts() {
+        // when
+        StepVerifier.create(Flux.error(new CustomConflictException("Request with idempotency key key-1 is still in progress!"))
+                        .transform(metrics.flux(OperationMetrics.SERVICE, "create")))
+                .expectError(CustomConflictException.class)
+                .verify();
+
+        // then
+        Assertions.assertEquals(1, registry.find(OperationMetrics.SERVICE)
+                .tags("operation", "create", "outcome", "conflict")
+                .timer()
+                .count());
+    }
+}
@@ -0,0 +1,65 @@
+package co.ke.proaktivio.qwanguapi.migrations;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomBadRequestException;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.models.ApartmentTombstone;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ApartmentOwnerBackfillTest {
+    private ReactiveMongoTemplate template;
+    private ApartmentProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        template = mock(ReactiveMongoTemplate.class);
+        properties = new ApartmentProperties();
+        when(template.updateMulti(any(Query.class), any(Update.class), any(Class.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+    }
+
+    @Test
+    @DisplayName("Backfill gives apartments and tombstones without an owner the default owner")
+    void backfill_StampsDefaultOwner_WhenDocumentsHaveNoOwner() {
+        // given
+        properties.setDefaultOwner("Landlord");
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+
+        // then
+        StepVerifier.create(new ApartmentOwnerBackfill(template, properties).backfill())
+                .verifyComplete();
+        verify(template).updateMulti(query.capture(), update.capture(), eq(Apartment.class));
+        verify(template).updateMulti(any(Query.class), any(Update.class), eq(ApartmentTombstone.class));
+        Assertions.assertEquals(new Document("owner", null), query.getValue().getQueryObject());
+        Assertions.assertEquals(new Document("$set", new Document("owner", "landlord")), update.getValue().getUpdateObject());
+    }
+
+    @Test
+    @DisplayName("Backfill writes nothing when the default owner is not a valid owner id")
+    void backfill_ReturnsCustomBadRequestException_WhenDefaultOwnerIsNotValid() {
+        // given
+        properties.setDefaultOwner("default owner");
+
+        // then
+        StepVerifier.create(new ApartmentOwnerBackfill(template, properties).backfill())
+                .expectError(CustomBadRequestException.class)
+                .verify();
+        verifyNoInteractions(template);
+    }
+}
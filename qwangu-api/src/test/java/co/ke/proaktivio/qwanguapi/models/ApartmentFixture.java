@@ -0,0 +1,63 @@
+package co.ke.proaktivio.qwanguapi.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Builds the apartments tests stub and compare against. Unless a test says otherwise an apartment has
+ * id 1, belongs to {@link #OWNER}, is named Luxury Apartment and was created and modified now.
+ */
+public final class ApartmentFixture {
+    public static final String OWNER = "owner-a";
+
+    private String id = "1";
+    private String owner = OWNER;
+    private String name = "Luxury Apartment";
+    private LocalDateTime created = LocalDateTime.now();
+    private LocalDateTime modified = created;
+    private Long version;
+
+    private ApartmentFixture() {
+    }
+
+    public static ApartmentFixture apartment() {
+        return new ApartmentFixture();
+    }
+
+    public ApartmentFixture id(String id) {
+        this.id = id;
+        return this;
+    }
+
+    public ApartmentFixture owner(String owner) {
+        this.owner = owner;
+        return this;
+    }
+
+    public ApartmentFixture name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public ApartmentFixture created(LocalDateTime created) {
+        this.created = created;
+        return this;
+    }
+
+    public ApartmentFixture modified(LocalDateTime modified) {
+        this.modified = modified;
+        return this;
+    }
+
+    public ApartmentFixture version(Long version) {
+        this.version = version;
+        return this;
+    }
+
+    public Apartment build() {
+        Apartment apartment = new Apartment(name, created, modified);
+        apartment.setId(id);
+        apartment.setOwner(owner);
+        apartment.setVersion(version);
+        return apartment;
+    }
+}
@@ -0,0 +1,199 @@
+package co.ke.proaktivio.qwanguapi.repositories;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.configurations.MongoIndexConfiguration;
+import co.ke.proaktivio.qwanguapi.configurations.ReactiveMongoTemplateConfiguration;
+import co.ke.proaktivio.qwanguapi.indexes.IndexManager;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.models.ApartmentTombstone;
+import co.ke.proaktivio.qwanguapi.pojos.OrderType;
+import co.ke.proaktivio.qwanguapi.pojos.SyncToken;
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Explains every query shape {@link ApartmentQueries} builds against the indexes declared in
+ * {@link MongoIndexConfiguration}, so a query or index change that falls back to a collection
+ * scan or an in-memory sort fails the build. Like the other container tests it needs Docker and fails
+ * without it, a plan that is never checked would let a regression through unnoticed.
+ */
+@Testcontainers
+@DataMongoTest
+@Import({ReactiveMongoTemplateConfiguration.class, MongoIndexConfiguration.class, SimpleMeterRegistry.class})
+@EnableConfigurationProperties(ApartmentProperties.class)
+@ExtendWith(SpringExtension.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ApartmentQueriesExplainTest {
+    private static final int APARTMENTS = 1000;
+    private static final int OWNERS = 4;
+    private static final LocalDateTime START = LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.MILLIS);
+
+    @Container
+    private static MongoDBContainer container = new MongoDBContainer(DockerImageName.parse("mongo:latest"));
+
+    @DynamicPropertySource
+    public static void overrideProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", container::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private ReactiveMongoTemplate template;
+    @Autowired
+    private IndexManager indexManager;
+    private List<Apartment> apartments;
+
+    @BeforeAll
+    void setUp() {
+        // the owners share every name, and two apartments of an owner share every modified time,
+        // so sync has ties to break by _id
+        apartments = IntStream.range(0, APARTMENTS)
+                .mapToObj(i -> {
+                    Apartment apartment = new Apartment("Apartment %04d".formatted(i / OWNERS), START,
+                            START.plusSeconds(i / (2 * OWNERS)));
+                    apartment.setId(new ObjectId().toHexString());
+                    apartment.setOwner(owner(i));
+                    return apartment;
+                })
+                .toList();
+        List<ApartmentTombstone> tombstones = IntStream.range(0, APARTMENTS / 5)
+                .mapToObj(i -> new ApartmentTombstone(new ObjectId().toHexString(), owner(i), START.plusSeconds(i / OWNERS),
+                        START.plusDays(30)))
+                .toList();
+        template.dropCollection(Apartment.class)
+                .then(template.dropCollection(ApartmentTombstone.class))
+                .thenMany(template.insertAll(apartments))
+                .thenMany(template.insertAll(tombstones))
+                .then(indexManager.ensureIndexes())
+                .block();
+    }
+
+    private static String owner(int i) {
+        return "owner-" + i % OWNERS;
+    }
+
+    @Test
+    @DisplayName("Paginated listings are served in _id order by an index whether or not they are filtered, past the first page too")
+    void paginated_IsServedByAnIndex_ForEveryFilterAndOrder() {
+        Apartment apartment = apartments.get(500);
+        for (OrderType order : OrderType.values())
+            for (int page : List.of(0, 3)) {
+                explain(ApartmentQueries.paginated(apartment.getOwner(), Optional.empty(), Optional.empty(), page, 20, order, Set.of()), Apartment.class)
+                        .assertIndexed();
+                explain(ApartmentQueries.paginated(apartment.getOwner(), Optional.empty(), Optional.of(apartment.getName()), page, 20, order, Set.of()), Apartment.class)
+                        .assertIndexed();
+                explain(ApartmentQueries.paginated(apartment.getOwner(), Optional.of(apartment.getId()), Optional.of(apartment.getName()), page, 20, order, Set.of()), Apartment.class)
+                        .assertIndexed();
+            }
+    }
+
+    @Test
+    @DisplayName("Cursor pages are served by an index in both directions whether or not they are filtered")
+    void byCursor_IsServedByAnIndex_InBothDirections() {
+        Apartment apartment = apartments.get(500);
+        Optional<String> id = Optional.of(apartment.getId());
+        for (OrderType order : OrderType.values())
+            for (Optional<String> name : List.of(Optional.<String>empty(), Optional.of(apartment.getName()))) {
+                explain(ApartmentQueries.byCursor(apartment.getOwner(), name, Optional.empty(), Optional.empty(), 21, order, Set.of()), Apartment.class)
+                        .assertIndexed();
+                explain(ApartmentQueries.byCursor(apartment.getOwner(), name, id, Optional.empty(), 21, order, Set.of()), Apartment.class)
+                        .assertIndexed();
+                explain(ApartmentQueries.byCursor(apartment.getOwner(), name, Optional.empty(), id, 21, order, Set.of()), Apartment.class)
+                        .assertIndexed();
+            }
+    }
+
+    @Test
+    @DisplayName("Name searches are served by the collated name index")
+    void search_IsServedByTheCollatedNameIndex() {
+        explain(ApartmentQueries.search(owner(0), "apartment 01", 10), Apartment.class)
+                .assertIndexed();
+    }
+
+    @Test
+    @DisplayName("Exports are served by an index from the start and when resumed")
+    void export_IsServedByAnIndex_WhenResumed() {
+        Apartment apartment = apartments.get(500);
+        explain(ApartmentQueries.export(apartment.getOwner(), Optional.empty(), Optional.of(apartment.getId()), 1000), Apartment.class)
+                .assertIndexed();
+        explain(ApartmentQueries.export(apartment.getOwner(), Optional.of(apartment.getName()), Optional.empty(), 1000), Apartment.class)
+                .assertIndexed();
+    }
+
+    @Test
+    @DisplayName("Sync reads changes and tombstones in order from their indexes")
+    void changedSince_IsServedByAnIndex_ForEveryToken() {
+        Apartment apartment = apartments.get(500);
+        LocalDateTime until = LocalDateTime.now();
+        SyncToken position = new SyncToken(apartment.getModified(), apartment.getId(), START);
+        SyncToken complete = new SyncToken(apartment.getModified(), null, START);
+        for (Optional<SyncToken> token : List.of(Optional.<SyncToken>empty(), Optional.of(position), Optional.of(complete)))
+            explain(ApartmentQueries.changedSince("modified", apartment.getOwner(), token, until, 101), Apartment.class)
+                    .assertIndexed();
+        explain(ApartmentQueries.changedSince("deleted", apartment.getOwner(), Optional.of(position), until, 101), ApartmentTombstone.class)
+                .assertIndexed();
+    }
+
+    @Test
+    @DisplayName("Writes and bulk writes find their apartments by _id")
+    void byIdAndVersion_IsServedByTheIdIndex() {
+        Apartment apartment = apartments.get(500);
+        explain(ApartmentQueries.byId(apartment.getOwner(), apartment.getId()), Apartment.class)
+                .assertIndexed();
+        explain(ApartmentQueries.byIdAndVersion(apartment.getOwner(), apartment.getId(), Optional.of(0L)), Apartment.class)
+                .assertIndexed();
+        List<String> ids = apartments.stream()
+                .filter(a -> a.getOwner().equals(apartment.getOwner()))
+                .limit(100)
+                .map(Apartment::getId)
+                .toList();
+        explain(ApartmentQueries.byIds(apartment.getOwner(), ids), Apartment.class)
+                .assertIndexed();
+    }
+
+    private QueryPlan explain(Query query, Class<?> entityClass) {
+        // mapped the same way the template maps it, so "id" becomes _id and ids become ObjectIds
+        MongoPersistentEntity<?> entity = template.getConverter().getMappingContext().getRequiredPersistentEntity(entityClass);
+        QueryMapper mapper = new QueryMapper(template.getConverter());
+        Document filter = mapper.getMappedObject(query.getQueryObject(), entity);
+        Document sort = mapper.getMappedSort(query.getSortObject(), entity);
+        return template.getCollection(template.getCollectionName(entityClass))
+                .flatMap(collection -> {
+                    FindPublisher<Document> find = collection.find(filter)
+                            .sort(sort)
+                            .skip((int) query.getSkip())
+                            .limit(query.getLimit());
+                    query.getCollation().ifPresent(collation -> find.collation(collation.toMongoCollation()));
+                    return Mono.from(find.explain(ExplainVerbosity.EXECUTION_STATS));
+                })
+                .map(QueryPlan::of)
+                .block();
+    }
+}
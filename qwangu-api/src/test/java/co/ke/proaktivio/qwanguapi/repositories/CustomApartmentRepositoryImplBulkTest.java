@@ -0,0 +1,181 @@
+package co.ke.proaktivio.qwanguapi.repositories;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.configurations.MongoIndexConfiguration;
+import co.ke.proaktivio.qwanguapi.configurations.ReactiveMongoTemplateConfiguration;
+import co.ke.proaktivio.qwanguapi.indexes.IndexManager;
+import co.ke.proaktivio.qwanguapi.metrics.OperationMetrics;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.models.ApartmentTombstone;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentBulkResult;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentDto;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentPatch;
+import co.ke.proaktivio.qwanguapi.pojos.BulkStatus;
+import co.ke.proaktivio.qwanguapi.pojos.SyncToken;
+import co.ke.proaktivio.qwanguapi.services.implementations.InProcessApartmentChangeSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static co.ke.proaktivio.qwanguapi.models.ApartmentFixture.OWNER;
+
+@Testcontainers
+@DataMongoTest
+@Import({ReactiveMongoTemplateConfiguration.class, MongoIndexConfiguration.class, InProcessApartmentChangeSource.class,
+        OperationMetrics.class, SimpleMeterRegistry.class})
+@EnableConfigurationProperties(ApartmentProperties.class)
+@ExtendWith(SpringExtension.class)
+class CustomApartmentRepositoryImplBulkTest {
+
+    @Container
+    private static MongoDBContainer container = new MongoDBContainer(DockerImageName.parse("mongo:latest"));
+
+    @DynamicPropertySource
+    public static void overrideProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", container::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private ApartmentRepository repository;
+    @Autowired
+    private ReactiveMongoTemplate template;
+    @Autowired
+    private IndexManager indexManager;
+
+    @BeforeEach
+    void setUp() {
+        // the unique index on owner and name has to exist before the tests that rely on it
+        indexManager.ensureIndexes().block();
+    }
+
+    @Test
+    @DisplayName("CreateAll reports a result per apartment including duplicate names")
+    void createAll_ReturnsResultPerApartment_WhenSomeNamesExist() {
+        // given
+        List<ApartmentDto> dtos = List.of(new ApartmentDto("Apartment A"), new ApartmentDto("Apartment B"),
+                new ApartmentDto("Apartment A"));
+
+        // when
+        Flux<ApartmentBulkResult> results = repository.deleteAll()
+                .thenMany(repository.createAll(OWNER, dtos));
+
+        // then
+        StepVerifier.create(results.map(ApartmentBulkResult::getStatus).collectList())
+                .expectNextMatches(statuses -> statuses.size() == 3 &&
+                        statuses.stream().filter(BulkStatus.CREATED::equals).count() == 2 &&
+                        statuses.get(1) == BulkStatus.CREATED &&
+                        statuses.contains(BulkStatus.ALREADY_EXISTS))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("PatchAll reports a result per patch including stale versions, duplicate names, missing and repeated ids")
+    void patchAll_ReturnsResultPerPatch_WhenSomePatchesFail() {
+        //when
+        Flux<BulkStatus> statuses = repository.deleteAll()
+                .thenMany(repository.createAll(OWNER, List.of(new ApartmentDto("Apartment A"), new ApartmentDto("Apartment B"),
+                        new ApartmentDto("Apartment C"))))
+                .map(ApartmentBulkResult::getApartment)
+                .collectList()
+                .flatMapMany(a -> repository.patchAll(OWNER, List.of(
+                        new ApartmentPatch(a.get(0).getId(), 0L, "Apartment D"),
+                        new ApartmentPatch(a.get(1).getId(), 5L, "Apartment E"),
+                        new ApartmentPatch(a.get(2).getId(), null, "Apartment D"),
+                        new ApartmentPatch("1", null, "Apartment F"),
+                        new ApartmentPatch(a.get(2).getId(), null, null),
+                        new ApartmentPatch("2", null, "Apartment G"),
+                        new ApartmentPatch("2", null, "Apartment H"))))
+                .map(ApartmentBulkResult::getStatus);
+
+        // then
+        StepVerifier.create(statuses)
+                .expectNext(BulkStatus.UPDATED, BulkStatus.PRECONDITION_FAILED, BulkStatus.ALREADY_EXISTS, BulkStatus.NOT_FOUND,
+                        BulkStatus.FAILED, BulkStatus.FAILED, BulkStatus.FAILED)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("DeleteByIds deletes the apartments that exist, leaves tombstones for them and reports the rest as not found")
+    void deleteByIds_ReturnsResultPerId_WhenSomeIdsDoNotExist() {
+        // given
+        LocalDateTime start = LocalDateTime.now().minusSeconds(1);
+        SyncToken token = new SyncToken(start, null, start);
+        LocalDateTime until = LocalDateTime.now().plusMinutes(1);
+
+        //when
+        Flux<String> deleted = repository.deleteAll()
+                .then(template.remove(new Query(), ApartmentTombstone.class))
+                .then(repository.create(OWNER, new ApartmentDto("Apartment A")))
+                .flatMapMany(a -> repository.deleteByIds(OWNER, List.of(a.getId(), "1")))
+                .map(result -> result.getStatus().name())
+                .concatWith(repository.findDeletedSince(OWNER, token, until, 10).map(tombstone -> "tombstone"));
+
+        // then
+        StepVerifier.create(deleted)
+                .expectNext("DELETED", "NOT_FOUND", "tombstone")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("DeleteByIds reports an id given twice as deleted once and moves an older tombstone to the new delete")
+    void deleteByIds_ReportsEachApartmentDeletedOnce_WhenIdIsRepeated() {
+        // given
+        LocalDateTime start = LocalDateTime.now().minusSeconds(1);
+        SyncToken token = new SyncToken(start, null, start);
+        LocalDateTime until = LocalDateTime.now().plusMinutes(1);
+        LocalDateTime earlier = start.minusDays(1);
+
+        //when
+        Flux<String> deleted = repository.deleteAll()
+                .then(template.remove(new Query(), ApartmentTombstone.class))
+                .then(repository.create(OWNER, new ApartmentDto("Apartment A")))
+                .flatMap(a -> template.insert(new ApartmentTombstone(a.getId(), OWNER, earlier, earlier.plusDays(30))).thenReturn(a))
+                .flatMapMany(a -> repository.deleteByIds(OWNER, List.of(a.getId(), a.getId())))
+                .map(result -> result.getStatus().name())
+                .concatWith(repository.findDeletedSince(OWNER, token, until, 10).map(tombstone -> "tombstone"));
+
+        // then
+        StepVerifier.create(deleted)
+                .expectNext("DELETED", "NOT_FOUND", "tombstone")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("DeleteByNamePrefix deletes every matching apartment of the owner across batches and no other owner's")
+    void deleteByNamePrefix_DeletesOnlyTheOwnersApartments_WhenNamesMatch() {
+        //when
+        Flux<String> deletedThenRemaining = repository.deleteAll()
+                .thenMany(repository.createAll(OWNER, List.of(new ApartmentDto("Apartment A"), new ApartmentDto("apartment B"),
+                        new ApartmentDto("Apartment C"), new ApartmentDto("Block D"))))
+                .then(repository.create("owner-b", new ApartmentDto("Apartment E")))
+                .thenMany(repository.deleteByNamePrefix(OWNER, "APARTMENT", 2))
+                .map(result -> result.getIndex() + " " + result.getApartment().getName())
+                .concatWith(repository.findAll().map(Apartment::getName).sort());
+
+        // then
+        StepVerifier.create(deletedThenRemaining)
+                .expectNext("0 Apartment A", "1 apartment B", "2 Apartment C")
+                .expectNext("Apartment E", "Block D")
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,130 @@
+package co.ke.proaktivio.qwanguapi.repositories;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.configurations.MongoIndexConfiguration;
+import co.ke.proaktivio.qwanguapi.configurations.ReactiveMongoTemplateConfiguration;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomNotFoundException;
+import co.ke.proaktivio.qwanguapi.indexes.IndexManager;
+import co.ke.proaktivio.qwanguapi.metrics.OperationMetrics;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.models.ApartmentTombstone;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentDto;
+import co.ke.proaktivio.qwanguapi.pojos.OrderType;
+import co.ke.proaktivio.qwanguapi.services.implementations.InProcessApartmentChangeSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.Set;
+
+import static co.ke.proaktivio.qwanguapi.models.ApartmentFixture.OWNER;
+
+@Testcontainers
+@DataMongoTest
+@Import({ReactiveMongoTemplateConfiguration.class, MongoIndexConfiguration.class, InProcessApartmentChangeSource.class,
+        OperationMetrics.class, SimpleMeterRegistry.class})
+@EnableConfigurationProperties(ApartmentProperties.class)
+@ExtendWith(SpringExtension.class)
+class CustomApartmentRepositoryImplOwnerTest {
+
+    @Container
+    private static MongoDBContainer container = new MongoDBContainer(DockerImageName.parse("mongo:latest"));
+
+    @DynamicPropertySource
+    public static void overrideProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", container::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private ApartmentRepository repository;
+    @Autowired
+    private ReactiveMongoTemplate template;
+    @Autowired
+    private IndexManager indexManager;
+
+    @BeforeEach
+    void setUp() {
+        // the unique index on owner and name has to exist before the tests that rely on it
+        indexManager.ensureIndexes().block();
+    }
+
+    @Test
+    @DisplayName("Create allows the same name for different owners, each of whom only sees their own")
+    void create_ReturnsApartmentsForEachOwner_WhenOwnersShareAName() {
+        // given
+        String name = "Luxury Apartments";
+
+        // when
+        Flux<Apartment> found = repository.deleteAll()
+                .then(repository.create(OWNER, new ApartmentDto(name)))
+                .then(repository.create("owner-b", new ApartmentDto(name)))
+                .thenMany(repository.findPaginated(OWNER, Optional.empty(), Optional.of(name), 0, 10, OrderType.ASC, Set.of()));
+
+        // then
+        StepVerifier.create(found)
+                .expectNextMatches(apartment -> apartment.getOwner().equals(OWNER) && apartment.getName().equals(name))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("An apartment written before apartments had owners is found under the default owner once indexes are ensured")
+    void findByIdAndOwner_ReturnsApartment_WhenApartmentPredatesOwners() {
+        // given
+        Document legacy = new Document("name", "Luxury Apartments")
+                .append("created", new Date())
+                .append("modified", new Date())
+                .append("version", 0L);
+
+        //when
+        Mono<Apartment> found = repository.deleteAll()
+                .then(template.getCollection(template.getCollectionName(Apartment.class)))
+                .flatMap(collection -> Mono.from(collection.insertOne(legacy)))
+                .then(indexManager.ensureIndexes())
+                .then(Mono.defer(() -> repository.findByIdAndOwner(legacy.getObjectId("_id").toHexString(), "default")));
+
+        // then
+        StepVerifier.create(found)
+                .expectNextMatches(apartment -> apartment.getName().equals("Luxury Apartments") &&
+                        apartment.getOwner().equals("default"))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Delete of another owner's apartment returns a CustomNotFoundException and leaves no tombstone")
+    void delete_ReturnsCustomNotFoundExceptionWithoutTombstone_WhenApartmentBelongsToAnotherOwner() {
+        //when
+        Mono<Long> tombstones = repository.deleteAll()
+                .then(template.remove(new Query(), ApartmentTombstone.class))
+                .then(repository.create(OWNER, new ApartmentDto("Apartment A")))
+                .flatMap(a -> repository.delete("owner-b", a.getId())
+                        .onErrorResume(CustomNotFoundException.class, e -> Mono.just("not found"))
+                        .filter("not found"::equals))
+                .then(template.count(new Query(), ApartmentTombstone.class));
+
+        // then
+        StepVerifier.create(tombstones)
+                .expectNext(0L)
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,89 @@
+package co.ke.proaktivio.qwanguapi.repositories;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.configurations.MongoIndexConfiguration;
+import co.ke.proaktivio.qwanguapi.configurations.ReactiveMongoTemplateConfiguration;
+import co.ke.proaktivio.qwanguapi.indexes.IndexManager;
+import co.ke.proaktivio.qwanguapi.metrics.OperationMetrics;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.models.ApartmentTombstone;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentDto;
+import co.ke.proaktivio.qwanguapi.pojos.SyncToken;
+import co.ke.proaktivio.qwanguapi.services.implementations.InProcessApartmentChangeSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static co.ke.proaktivio.qwanguapi.models.ApartmentFixture.OWNER;
+
+@Testcontainers
+@DataMongoTest
+@Import({ReactiveMongoTemplateConfiguration.class, MongoIndexConfiguration.class, InProcessApartmentChangeSource.class,
+        OperationMetrics.class, SimpleMeterRegistry.class})
+@EnableConfigurationProperties(ApartmentProperties.class)
+@ExtendWith(SpringExtension.class)
+class CustomApartmentRepositoryImplSyncTest {
+
+    @Container
+    private static MongoDBContainer container = new MongoDBContainer(DockerImageName.parse("mongo:latest"));
+
+    @DynamicPropertySource
+    public static void overrideProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", container::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private ApartmentRepository repository;
+    @Autowired
+    private ReactiveMongoTemplate template;
+    @Autowired
+    private IndexManager indexManager;
+
+    @BeforeEach
+    void setUp() {
+        indexManager.ensureIndexes().block();
+    }
+
+    @Test
+    @DisplayName("Delete leaves a tombstone that sync finds after the apartment is gone")
+    void delete_LeavesTombstoneForSync_WhenIdExists() {
+        // given
+        LocalDateTime start = LocalDateTime.now().minusSeconds(1);
+        SyncToken token = new SyncToken(start, null, start);
+        LocalDateTime until = LocalDateTime.now().plusMinutes(1);
+
+        //when
+        Flux<String> synced = repository.deleteAll()
+                .then(template.remove(new Query(), ApartmentTombstone.class))
+                .then(repository.create(OWNER, new ApartmentDto("Apartment A")))
+                .then(repository.create(OWNER, new ApartmentDto("Apartment B")))
+                .flatMap(b -> repository.delete(OWNER, b.getId()).thenReturn(b.getId()))
+                .thenMany(repository.findModifiedSince(OWNER, Optional.of(token), until, 10).map(Apartment::getName)
+                        .concatWith(repository.findDeletedSince(OWNER, token, until, 10).map(tombstone -> "deleted")));
+
+        // then
+        StepVerifier.create(synced)
+                .expectNext("Apartment A", "deleted")
+                .verifyComplete();
+    }
+}
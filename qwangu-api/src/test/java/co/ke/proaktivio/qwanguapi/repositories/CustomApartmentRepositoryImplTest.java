@@ -0,0 +1,410 @@
+package co.ke.proaktivio.qwanguapi.repositories;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.configurations.MongoIndexConfiguration;
+import co.ke.proaktivio.qwanguapi.configurations.ReactiveMongoTemplateConfiguration;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomAlreadyExistsException;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomNotFoundException;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomPreconditionFailedException;
+import co.ke.proaktivio.qwanguapi.indexes.IndexManager;
+import co.ke.proaktivio.qwanguapi.metrics.OperationMetrics;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentDto;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentField;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentPatch;
+import co.ke.proaktivio.qwanguapi.pojos.OrderType;
+import co.ke.proaktivio.qwanguapi.services.implementations.InProcessApartmentChangeSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.StringUtils;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static co.ke.proaktivio.qwanguapi.models.ApartmentFixture.OWNER;
+
+@Testcontainers
+@DataMongoTest
+@Import({ReactiveMongoTemplateConfiguration.class, MongoIndexConfiguration.class, InProcessApartmentChangeSource.class,
+        OperationMetrics.class, SimpleMeterRegistry.class})
+@EnableConfigurationProperties(ApartmentProperties.class)
+@ExtendWith(SpringExtension.class)
+class CustomApartmentRepositoryImplTest {
+
+    @Container
+    private static MongoDBContainer container = new MongoDBContainer(DockerImageName.parse("mongo:latest"));
+
+    @DynamicPropertySource
+    public static void overrideProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", container::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private ApartmentRepository repository;
+    @Autowired
+    private ReactiveMongoTemplate template;
+    @Autowired
+    private IndexManager indexManager;
+
+    @BeforeEach
+    void setUp() {
+        // the unique index on owner and name has to exist before the tests that rely on it
+        indexManager.ensureIndexes().block();
+    }
+
+    @Test
+    @DisplayName("Create returns a Mono of Apartment when name does not exist")
+    void create_ReturnMonoOfApartment_WhenSuccessful() {
+
+        // given
+        String name = "Luxury Apartment";
+        ApartmentDto dto = new ApartmentDto(name);
+
+        // when
+        Mono<Apartment> saved = repository.create(OWNER, dto);
+
+        // then
+        StepVerifier.create(saved)
+                .expectNextMatches(apartment ->
+                        StringUtils.hasText(apartment.getId()) &&
+                                apartment.getName().equalsIgnoreCase(name) &&
+                                apartment.getCreated() != null &&
+                                apartment.getModified() != null)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Create returns a CustomAlreadyExistsException when name already exists")
+    void create_ReturnsCustomAlreadyExistsException_WhenApartmentNameExists() {
+
+        // given
+        String name = "Luxury Apartments";
+        ApartmentDto dto = new ApartmentDto(name);
+
+        // when
+        Mono<Apartment> saved = repository.create(OWNER, dto)
+                .thenReturn(dto)
+                .flatMap(d -> repository.create(OWNER, d));
+
+        // then
+        StepVerifier.create(saved)
+                .expectErrorMatches(e -> e instanceof CustomAlreadyExistsException &&
+                        e.getMessage().equalsIgnoreCase("Apartment %s already exists!".formatted(name)))
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Create allows exactly one of many concurrent creates with the same name")
+    void create_ReturnsOneApartmentAndCustomAlreadyExistsExceptions_WhenCreatedConcurrently() {
+        // given
+        String name = "Concurrent Apartments";
+        int attempts = 50;
+
+        // when
+        Mono<List<String>> outcomes = repository.deleteAll()
+                .thenMany(Flux.range(0, attempts)
+                        .parallel(attempts)
+                        .runOn(Schedulers.parallel())
+                        .flatMap(i -> repository.create(OWNER, new ApartmentDto(name))
+                                .map(a -> "created")
+                                .onErrorResume(CustomAlreadyExistsException.class, e -> Mono.just("exists")))
+                        .sequential())
+                .collectList();
+
+        // then
+        StepVerifier.create(outcomes)
+                .expectNextMatches(results -> results.size() == attempts &&
+                        results.stream().filter("created"::equals).count() == 1 &&
+                        results.stream().filter("exists"::equals).count() == attempts - 1)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Update returns an updated apartment when successful")
+    void update_ReturnsMonoOfAnUpdatedApartment_WhenSuccessful() {
+        // given
+        String updatedName = "Thika road Apartments";
+
+        //when
+        Mono<Apartment> updated =
+                repository.deleteAll()
+                .thenReturn(new ApartmentDto("Luxury Apartments"))
+                .flatMap(d -> repository.create(OWNER, d))
+                .flatMap(d -> repository.update(OWNER, d.getId(), new ApartmentDto(updatedName), Optional.empty()));
+
+        // then
+        StepVerifier.create(updated)
+                .expectNextMatches(result -> StringUtils.hasText(result.getId()) &&
+                        result.getName().equalsIgnoreCase(updatedName))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Update returns a CustomNotFoundException when id does not exist")
+    void update_ReturnsCustomNotFoundException_WhenIdDoesNotExist() {
+
+        // given
+        String id = "1";
+        ApartmentDto dto = new ApartmentDto("Luxury Apartments");
+
+        // when
+        Mono<Apartment> saved = repository.update(OWNER, id, dto, Optional.empty());
+
+        // then
+        StepVerifier.create(saved)
+                .expectErrorMatches(e -> e instanceof CustomNotFoundException &&
+                        e.getMessage().equalsIgnoreCase("Apartment with id %s does not exists!".formatted(id)))
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Update returns a CustomAlreadyExistsException when name already exists")
+    void update_ReturnsCustomAlreadyExistsException_WhenNameAlreadyExists() {
+
+        // given
+        String name = "Luxury Apartments";
+        ApartmentDto dto = new ApartmentDto(name);
+
+        // when
+        Mono<Apartment> saved = repository.create(OWNER, dto)
+                .thenReturn(new ApartmentDto("Luxury Apartments B"))
+                .flatMap(a -> repository.create(OWNER, a))
+                .flatMap(a -> repository.update(OWNER, a.getId(), dto, Optional.empty()));
+
+        // then
+        StepVerifier.create(saved)
+                .expectErrorMatches(e -> e instanceof CustomAlreadyExistsException &&
+                        e.getMessage().equalsIgnoreCase("Apartment %s already exists!".formatted(name)))
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Update keeps the name when an apartment is renamed to its own name")
+    void update_ReturnsMonoOfApartment_WhenNameIsUnchanged() {
+        // given
+        String name = "Kilimani Apartments";
+
+        //when
+        Mono<Apartment> updated = repository.deleteAll()
+                .thenReturn(new ApartmentDto(name))
+                .flatMap(d -> repository.create(OWNER, d))
+                .flatMap(d -> repository.update(OWNER, d.getId(), new ApartmentDto(name), Optional.empty()));
+
+        // then
+        StepVerifier.create(updated)
+                .expectNextMatches(result -> result.getName().equals(name))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Update increments the version when the expected version matches")
+    void update_ReturnsApartmentWithNextVersion_WhenVersionMatches() {
+        // given
+        Mono<Apartment> saved = repository.deleteAll()
+                .then(repository.create(OWNER, new ApartmentDto("Apartment A")));
+
+        //when
+        Mono<Apartment> updated = saved
+                .flatMap(a -> repository.update(OWNER, a.getId(), new ApartmentDto("Apartment B"), Optional.of(a.getVersion())));
+
+        // then
+        StepVerifier.create(updated)
+                .expectNextMatches(a -> a.getName().equals("Apartment B") && a.getVersion() == 1L)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Update returns a CustomPreconditionFailedException when the expected version is stale")
+    void update_ReturnsCustomPreconditionFailedException_WhenVersionIsStale() {
+        // given
+        Mono<Apartment> saved = repository.deleteAll()
+                .then(repository.create(OWNER, new ApartmentDto("Apartment A")))
+                .flatMap(a -> repository.update(OWNER, a.getId(), new ApartmentDto("Apartment B"), Optional.of(0L)));
+
+        //when
+        Mono<Apartment> updated = saved
+                .flatMap(a -> repository.update(OWNER, a.getId(), new ApartmentDto("Apartment C"), Optional.of(0L)));
+
+        // then
+        StepVerifier.create(updated)
+                .expectErrorMatches(e -> e instanceof CustomPreconditionFailedException &&
+                        e.getMessage().endsWith("has been modified!"))
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Patch sets only the fields it is given and keeps the version check")
+    void patch_ReturnsPatchedApartment_WhenVersionMatches() {
+        //when
+        Flux<Apartment> patched = repository.deleteAll()
+                .then(repository.create(OWNER, new ApartmentDto("Luxury Apartments")))
+                .flatMapMany(a -> repository.patch(OWNER, a.getId(), new ApartmentPatch(null, null, "Kilimani Apartments"), Optional.of(0L))
+                        .concatWith(repository.patch(OWNER, a.getId(), new ApartmentPatch(null, null, "Thika road Apartments"), Optional.of(0L))));
+
+        // then
+        StepVerifier.create(patched)
+                .expectNextMatches(result -> result.getName().equals("Kilimani Apartments") && result.getVersion() == 1)
+                .expectError(CustomPreconditionFailedException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Delete returns a success message when apartment with id exists")
+    void delete_ReturnsSuccessMessage_WhenIdExists() {
+        //when
+        Mono<String> deleted = repository.deleteAll()
+                .thenReturn(new ApartmentDto("Luxury Apartments"))
+                .flatMap(d -> repository.create(OWNER, d))
+                .flatMap(d -> repository.delete(OWNER, d.getId()));
+
+        // then
+        StepVerifier.create(deleted)
+                .expectNext("Deleted Successfully")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Delete returns a CustomNotFoundException when id does not exist")
+    void delete_ReturnsCustomNotFoundException_WhenIdDoesNotExist() {
+        // given
+        String id = "1";
+
+        // then
+        StepVerifier.create(repository.delete(OWNER, id))
+                .expectErrorMatches(e -> e instanceof CustomNotFoundException &&
+                        e.getMessage().equalsIgnoreCase("Apartment with id %s does not exist!".formatted(id)))
+                .verify();
+    }
+
+    @Test
+    @DisplayName("FindPaginated returns a flux of apartments when successful")
+    void findPaginated_ReturnsFluxOfApartments_WhenSuccessful() {
+        //when
+        Flux<Apartment> saved = repository.deleteAll()
+                .thenMany(Flux.just(new ApartmentDto("Luxury Apartments"), new ApartmentDto("Luxury Apartments B")))
+                .flatMap(a -> repository.create(OWNER, a))
+                .thenMany(repository.findPaginated(OWNER, Optional.empty(),
+                        Optional.empty(), 0, 10,
+                        OrderType.ASC, Set.of()));
+
+        // then
+        StepVerifier.create(saved)
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("FindPaginated returns an empty page when none exist")
+    void findPaginated_ReturnsEmptyPage_WhenNoApartmentsExists() {
+        //when
+        Flux<Apartment> saved = repository.deleteAll()
+                .thenMany(repository.findPaginated(OWNER, Optional.empty(),
+                        Optional.empty(), 0, 10,
+                        OrderType.ASC, Set.of()));
+
+        // then
+        StepVerifier.create(saved)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("FindPaginated reads only the requested fields from Mongo")
+    void findPaginated_ReturnsOnlyRequestedFields_WhenFieldsAreGiven() {
+        // given
+        Flux<Apartment> saved = repository.deleteAll()
+                .thenMany(Flux.just(new ApartmentDto("Apartment A"), new ApartmentDto("Apartment B")))
+                .concatMap(a -> repository.create(OWNER, a));
+
+        //when
+        Flux<Apartment> found = saved.thenMany(repository.findPaginated(OWNER, Optional.empty(), Optional.empty(), 0, 10,
+                OrderType.ASC, EnumSet.of(ApartmentField.NAME)));
+
+        // then
+        StepVerifier.create(found)
+                .expectNextMatches(a -> StringUtils.hasText(a.getId()) && a.getName().equals("Apartment A") &&
+                        a.getCreated() == null && a.getModified() == null)
+                .expectNextMatches(a -> a.getName().equals("Apartment B") && a.getCreated() == null)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Export resumes after the checkpoint id in ascending id order")
+    void export_ReturnsApartmentsAfterCheckpoint_WhenResumed() {
+        // given
+        Flux<Apartment> saved = repository.deleteAll()
+                .thenMany(Flux.just(new ApartmentDto("Apartment A"), new ApartmentDto("Apartment B"), new ApartmentDto("Apartment C")))
+                .concatMap(a -> repository.create(OWNER, a));
+
+        //when
+        Flux<Apartment> exported = saved.collectList()
+                .flatMapMany(apartments -> repository.export(OWNER, Optional.empty(), Optional.of(apartments.get(0).getId()), 1));
+
+        // then
+        StepVerifier.create(exported.map(Apartment::getName))
+                .expectNext("Apartment B", "Apartment C")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("FindByCursor walks forwards and backwards through apartments by id")
+    void findByCursor_ReturnsFluxOfApartmentsAroundCursor_WhenSuccessful() {
+        // given
+        Flux<Apartment> saved = repository.deleteAll()
+                .thenMany(Flux.just(new ApartmentDto("Apartment A"), new ApartmentDto("Apartment B"), new ApartmentDto("Apartment C")))
+                .concatMap(a -> repository.create(OWNER, a));
+
+        //when
+        Mono<List<Apartment>> result = saved.collectList()
+                .flatMap(apartments -> repository.findByCursor(OWNER, Optional.empty(),
+                                Optional.of(apartments.get(0).getId()), Optional.empty(), 10, OrderType.ASC, Set.of())
+                        .concatWith(repository.findByCursor(OWNER, Optional.empty(),
+                                Optional.empty(), Optional.of(apartments.get(2).getId()), 10, OrderType.ASC, Set.of()))
+                        .collectList());
+
+        // then
+        StepVerifier.create(result)
+                .expectNextMatches(apartments -> apartments.stream().map(Apartment::getName).toList()
+                        .equals(List.of("Apartment B", "Apartment C", "Apartment A", "Apartment B")))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Search returns case-insensitive prefix matches in name order")
+    void search_ReturnsCaseInsensitivePrefixMatchesInNameOrder_WhenSuccessful() {
+        // given
+        Flux<Apartment> saved = repository.deleteAll()
+                .then(template.indexOps(Apartment.class).ensureIndex(CustomApartmentRepositoryImpl.NAME_SEARCH_INDEX))
+                .thenMany(Flux.just(new ApartmentDto("luxury Heights"), new ApartmentDto("Garden View"),
+                        new ApartmentDto("LUXURY"), new ApartmentDto("Lux Towers")))
+                .concatMap(a -> repository.create(OWNER, a));
+
+        //when
+        Flux<Apartment> found = saved.thenMany(repository.search(OWNER, "luxury", 10));
+
+        // then
+        StepVerifier.create(found.map(Apartment::getName))
+                .expectNext("LUXURY", "luxury Heights")
+                .verifyComplete();
+    }
+}
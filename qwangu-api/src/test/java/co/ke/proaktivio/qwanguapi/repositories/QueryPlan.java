@@ -0,0 +1,63 @@
+package co.ke.proaktivio.qwanguapi.repositories;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Assertions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parts of an {@code executionStats} explain that tell whether a query is served by an index:
+ * the stages of the winning plan and how many documents were examined per document returned.
+ */
+final class QueryPlan {
+    /**
+     * Most documents a query may examine per document it returns. An index that matches the
+     * filter examines one, anything well above means documents are fetched only to be filtered out.
+     */
+    static final double MAX_DOCS_EXAMINED_PER_RETURNED = 2.0;
+
+    private final List<String> stages;
+    private final long docsExamined;
+    private final long returned;
+
+    private QueryPlan(List<String> stages, long docsExamined, long returned) {
+        this.stages = stages;
+        this.docsExamined = docsExamined;
+        this.returned = returned;
+    }
+
+    static QueryPlan of(Document explain) {
+        Document winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+        // servers running the slot based engine nest the classic plan one level deeper
+        Document plan = winningPlan.containsKey("queryPlan") ? winningPlan.get("queryPlan", Document.class) : winningPlan;
+        List<String> stages = new ArrayList<>();
+        collect(plan, stages);
+        Document stats = explain.get("executionStats", Document.class);
+        return new QueryPlan(stages, stats.get("totalDocsExamined", Number.class).longValue(),
+                stats.get("nReturned", Number.class).longValue());
+    }
+
+    List<String> getStages() {
+        return stages;
+    }
+
+    /**
+     * Fails on a collection scan, on a blocking in-memory sort and on examining too many documents.
+     * Merging sorted index scans ({@code SORT_MERGE}) does not block and is allowed.
+     */
+    void assertIndexed() {
+        Assertions.assertFalse(stages.contains("COLLSCAN"), () -> "Collection scan in " + stages);
+        Assertions.assertFalse(stages.contains("SORT"), () -> "Blocking sort in " + stages);
+        Assertions.assertTrue(docsExamined <= MAX_DOCS_EXAMINED_PER_RETURNED * Math.max(returned, 1),
+                () -> "%d documents examined for %d returned by %s".formatted(docsExamined, returned, stages));
+    }
+
+    private static void collect(Document stage, List<String> stages) {
+        stages.add(stage.getString("stage"));
+        if (stage.get("inputStage") instanceof Document input)
+            collect(input, stages);
+        if (stage.get("inputStages") instanceof List<?> inputs)
+            inputs.forEach(input -> collect((Document) input, stages));
+    }
+}
@@ -0,0 +1,54 @@
+package co.ke.proaktivio.qwanguapi.repositories;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+
+import java.util.List;
+
+class QueryPlanTest {
+
+    @Test
+    @DisplayName("AssertIndexed passes sorted index scans merged for an $or")
+    void assertIndexed_Passes_WhenIndexScansAreMerged() {
+        // given
+        Document plan = stage("LIMIT", stage("FETCH", new Document("stage", "SORT_MERGE")
+                .append("inputStages", List.of(stage("IXSCAN", null), stage("IXSCAN", null)))));
+
+        // when
+        QueryPlan queryPlan = QueryPlan.of(explain(new Document("queryPlan", plan), 20, 20));
+
+        // then
+        Assertions.assertEquals(List.of("LIMIT", "FETCH", "SORT_MERGE", "IXSCAN", "IXSCAN"), queryPlan.getStages());
+        queryPlan.assertIndexed();
+    }
+
+    @Test
+    @DisplayName("AssertIndexed fails on a collection scan, a blocking sort and a high docs examined ratio")
+    void assertIndexed_Fails_WhenQueryIsNotServedByAnIndex() {
+        // given
+        Document collectionScan = explain(stage("SORT", stage("COLLSCAN", null)), 1000, 20);
+        Document blockingSort = explain(stage("SORT", stage("FETCH", stage("IXSCAN", null))), 1, 1);
+        Document filtered = explain(stage("FETCH", stage("IXSCAN", null)), 100, 1);
+
+        // then
+        Assertions.assertThrows(AssertionFailedError.class, () -> QueryPlan.of(collectionScan).assertIndexed());
+        Assertions.assertThrows(AssertionFailedError.class, () -> QueryPlan.of(blockingSort).assertIndexed());
+        Assertions.assertThrows(AssertionFailedError.class, () -> QueryPlan.of(filtered).assertIndexed());
+    }
+
+    private static Document stage(String name, Document input) {
+        Document stage = new Document("stage", name);
+        if (input != null)
+            stage.append("inputStage", input);
+        return stage;
+    }
+
+    private static Document explain(Document winningPlan, int docsExamined, int returned) {
+        return new Document("queryPlanner", new Document("winningPlan", winningPlan))
+                .append("executionStats", new Document("totalDocsExamined", docsExamined)
+                        .append("nReturned", returned));
+    }
+}
@@ -0,0 +1,113 @@
+package co.ke.proaktivio.qwanguapi.services.implementations;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentChange;
+import co.ke.proaktivio.qwanguapi.pojos.ChangeType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Objects;
+
+class ApartmentChangeBroadcasterTest {
+    private static final String OWNER = "owner-a";
+
+    private InProcessApartmentChangeSource source;
+    private ApartmentProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        source = new InProcessApartmentChangeSource();
+        properties = new ApartmentProperties();
+        properties.getChanges().setHeartbeat(Duration.ofHours(1));
+    }
+
+    @Test
+    @DisplayName("Subscribe fans every published change out to all subscribers")
+    void subscribe_DeliversChangesToEverySubscriber_WhenPublished() {
+        // given
+        ApartmentChangeBroadcaster broadcaster = new ApartmentChangeBroadcaster(source, properties, new SimpleMeterRegistry());
+        Flux<String> first = changeIds(broadcaster.subscribe(OWNER)).take(2);
+        Flux<String> second = changeIds(broadcaster.subscribe(OWNER)).take(2);
+
+        // then
+        StepVerifier.create(Flux.zip(first, second))
+                .then(() -> {
+                    source.publish(new ApartmentChange(ChangeType.INSERT, "1", OWNER, null));
+                    source.publish(new ApartmentChange(ChangeType.DELETE, "2", OWNER, null));
+                })
+                .expectNextMatches(ids -> ids.getT1().equals("1") && ids.getT2().equals("1"))
+                .expectNextMatches(ids -> ids.getT1().equals("2") && ids.getT2().equals("2"))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Subscribe only delivers the changes of the subscriber's owner, never changes whose owner is unknown")
+    void subscribe_DeliversOwnChanges_WhenOtherOwnersChange() {
+        // given
+        ApartmentChangeBroadcaster broadcaster = new ApartmentChangeBroadcaster(source, properties, new SimpleMeterRegistry());
+
+        // then
+        StepVerifier.create(changeIds(broadcaster.subscribe(OWNER)).take(2))
+                .then(() -> {
+                    source.publish(new ApartmentChange(ChangeType.INSERT, "1", "owner-b", null));
+                    source.publish(new ApartmentChange(ChangeType.INSERT, "2", OWNER, null));
+                    source.publish(new ApartmentChange(ChangeType.UPDATE, "3", null, null));
+                    source.publish(new ApartmentChange(ChangeType.DELETE, "4", null, null));
+                    source.publish(new ApartmentChange(ChangeType.DELETE, "5", OWNER, null));
+                })
+                .expectNext("2", "5")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Subscribe drops the oldest changes for a subscriber that falls a full buffer behind")
+    void subscribe_DropsOldestChanges_WhenSubscriberIsSlow() {
+        // given
+        properties.getChanges().setSubscriberBufferSize(2);
+        properties.getChanges().setOverflow(ApartmentProperties.Changes.Overflow.DROP_OLDEST);
+        ApartmentChangeBroadcaster broadcaster = new ApartmentChangeBroadcaster(source, properties, new SimpleMeterRegistry());
+
+        // then
+        StepVerifier.create(changeIds(broadcaster.subscribe(OWNER)), 0)
+                .then(() -> {
+                    for (int i = 1; i <= 5; i++)
+                        source.publish(new ApartmentChange(ChangeType.INSERT, String.valueOf(i), OWNER, null));
+                })
+                .thenRequest(3)
+                .expectNext("1", "4", "5")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Subscribe completes a subscriber that falls a full buffer behind when the policy is disconnect")
+    void subscribe_Completes_WhenSubscriberIsSlowAndPolicyIsDisconnect() {
+        // given
+        properties.getChanges().setSubscriberBufferSize(2);
+        properties.getChanges().setOverflow(ApartmentProperties.Changes.Overflow.DISCONNECT);
+        ApartmentChangeBroadcaster broadcaster = new ApartmentChangeBroadcaster(source, properties, new SimpleMeterRegistry());
+
+        // then
+        StepVerifier.create(changeIds(broadcaster.subscribe(OWNER)), 0)
+                .then(() -> {
+                    for (int i = 1; i <= 5; i++)
+                        source.publish(new ApartmentChange(ChangeType.INSERT, String.valueOf(i), OWNER, null));
+                })
+                .thenRequest(10)
+                .expectNext("1", "2", "3")
+                .verifyComplete();
+    }
+
+    private static Flux<String> changeIds(Flux<ServerSentEvent<ApartmentChange>> events) {
+        return events
+                .map(ServerSentEvent::data)
+                .filter(Objects::nonNull)
+                .map(ApartmentChange::getId);
+    }
+}
@@ -0,0 +1,151 @@
+package co.ke.proaktivio.qwanguapi.services.implementations;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomAlreadyExistsException;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentBulkResult;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentDto;
+import co.ke.proaktivio.qwanguapi.pojos.BulkStatus;
+import co.ke.proaktivio.qwanguapi.repositories.ApartmentRepository;
+import com.mongodb.MongoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static co.ke.proaktivio.qwanguapi.models.ApartmentFixture.apartment;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ApartmentCreateCoalescerTest {
+    private static final String OWNER = "owner-a";
+
+    private ApartmentRepository repository;
+    private ApartmentProperties properties;
+    private ApartmentCreateCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ApartmentRepository.class);
+        properties = new ApartmentProperties();
+        properties.getCreateCoalescing().setEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.destroy();
+    }
+
+    @Test
+    @DisplayName("Create writes concurrent creates with one bulk insert and completes each with its own result")
+    void create_WritesOneBatchAndCompletesEachCaller_WhenBatchIsFull() {
+        // given
+        properties.getCreateCoalescing().setMaxBatchSize(3);
+        properties.getCreateCoalescing().setMaxLinger(Duration.ofHours(1));
+        coalescer = new ApartmentCreateCoalescer(repository, properties, new SimpleMeterRegistry());
+        ApartmentDto a = new ApartmentDto("Apartment A");
+        ApartmentDto b = new ApartmentDto("Apartment B");
+        ApartmentDto c = new ApartmentDto("Apartment C");
+
+        // when
+        when(repository.createAll(OWNER, List.of(a, b, c))).thenReturn(Flux.just(
+                new ApartmentBulkResult(0, BulkStatus.CREATED, apartment().id("1").name(a.getName()).build(), null),
+                new ApartmentBulkResult(1, BulkStatus.ALREADY_EXISTS, null, "Apartment Apartment B already exists!"),
+                new ApartmentBulkResult(2, BulkStatus.CREATED, apartment().id("3").name(c.getName()).build(), null)));
+        Mono<Apartment> first = coalescer.create(OWNER, a).cache();
+        Mono<Apartment> second = coalescer.create(OWNER, b).cache();
+        Mono<Apartment> third = coalescer.create(OWNER, c).cache();
+        Flux.merge(first, second.onErrorResume(e -> Mono.empty()), third).subscribe();
+
+        // then
+        StepVerifier.create(first)
+                .expectNextMatches(apartment -> apartment.getId().equals("1"))
+                .verifyComplete();
+        StepVerifier.create(second)
+                .expectErrorMatches(e -> e instanceof CustomAlreadyExistsException &&
+                        e.getMessage().equals("Apartment Apartment B already exists!"))
+                .verify();
+        StepVerifier.create(third)
+                .expectNextMatches(apartment -> apartment.getId().equals("3"))
+                .verifyComplete();
+        verify(repository, times(1)).createAll(any(), any());
+    }
+
+    @Test
+    @DisplayName("Create writes each owner's share of a batch with its own bulk insert")
+    void create_WritesOneBulkInsertPerOwner_WhenBatchHasSeveralOwners() {
+        // given
+        properties.getCreateCoalescing().setMaxBatchSize(2);
+        properties.getCreateCoalescing().setMaxLinger(Duration.ofHours(1));
+        coalescer = new ApartmentCreateCoalescer(repository, properties, new SimpleMeterRegistry());
+        ApartmentDto dto = new ApartmentDto("Apartment A");
+
+        // when
+        when(repository.createAll(OWNER, List.of(dto))).thenReturn(Flux.just(
+                new ApartmentBulkResult(0, BulkStatus.CREATED, apartment().id("1").name(dto.getName()).build(), null)));
+        when(repository.createAll("owner-b", List.of(dto))).thenReturn(Flux.just(
+                new ApartmentBulkResult(0, BulkStatus.CREATED, apartment().id("2").name(dto.getName()).build(), null)));
+        Mono<Apartment> first = coalescer.create(OWNER, dto).cache();
+        Mono<Apartment> second = coalescer.create("owner-b", dto).cache();
+        Flux.merge(first, second).subscribe();
+
+        // then
+        StepVerifier.create(first)
+                .expectNextMatches(apartment -> apartment.getId().equals("1"))
+                .verifyComplete();
+        StepVerifier.create(second)
+                .expectNextMatches(apartment -> apartment.getId().equals("2"))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Create writes a partial batch once the linger time has passed")
+    void create_WritesPartialBatch_WhenLingerTimePasses() {
+        // given
+        properties.getCreateCoalescing().setMaxBatchSize(100);
+        properties.getCreateCoalescing().setMaxLinger(Duration.ofMillis(10));
+        coalescer = new ApartmentCreateCoalescer(repository, properties, new SimpleMeterRegistry());
+        ApartmentDto dto = new ApartmentDto("Apartment A");
+
+        // when
+        when(repository.createAll(OWNER, List.of(dto))).thenReturn(Flux.just(
+                new ApartmentBulkResult(0, BulkStatus.CREATED, apartment().id("1").name(dto.getName()).build(), null)));
+
+        // then
+        StepVerifier.create(coalescer.create(OWNER, dto))
+                .expectNextMatches(apartment -> apartment.getName().equals(dto.getName()))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("Create fails every caller of a failed batch and keeps serving later creates")
+    void create_FailsBatchCallersAndRecovers_WhenBulkInsertFails() {
+        // given
+        properties.getCreateCoalescing().setMaxBatchSize(1);
+        coalescer = new ApartmentCreateCoalescer(repository, properties, new SimpleMeterRegistry());
+        ApartmentDto failed = new ApartmentDto("Apartment A");
+        ApartmentDto created = new ApartmentDto("Apartment B");
+
+        // when
+        when(repository.createAll(OWNER, List.of(failed))).thenReturn(Flux.error(new MongoException("Connection reset")));
+        when(repository.createAll(OWNER, List.of(created))).thenReturn(Flux.just(
+                new ApartmentBulkResult(0, BulkStatus.CREATED, apartment().id("2").name(created.getName()).build(), null)));
+
+        // then
+        StepVerifier.create(coalescer.create(OWNER, failed))
+                .expectError(MongoException.class)
+                .verify(Duration.ofSeconds(5));
+        StepVerifier.create(coalescer.create(OWNER, created))
+                .expectNextMatches(apartment -> apartment.getId().equals("2"))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,167 @@
+package co.ke.proaktivio.qwanguapi.services.implementations;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomAlreadyExistsException;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomBadRequestException;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomConflictException;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.models.IdempotencyRecord;
+import co.ke.proaktivio.qwanguapi.repositories.IdempotencyRecordRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static co.ke.proaktivio.qwanguapi.models.ApartmentFixture.apartment;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ApartmentIdempotencyTest {
+
+    private IdempotencyRecordRepository repository;
+    private ApartmentProperties properties;
+    private ApartmentIdempotency idempotency;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IdempotencyRecordRepository.class);
+        properties = new ApartmentProperties();
+        properties.getIdempotency().setWait(Duration.ofMillis(50));
+        properties.getIdempotency().setPollInterval(Duration.ofMillis(10));
+        idempotency = new ApartmentIdempotency(repository, properties);
+        when(repository.save(any(IdempotencyRecord.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(repository.deleteById(any(String.class))).thenReturn(Mono.empty());
+    }
+
+    @Test
+    @DisplayName("Execute writes once and stores the response when the key is new")
+    void execute_WritesAndStoresResponse_WhenKeyIsNew() {
+        // given
+        Apartment apartment = apartment().id("1").build();
+        AtomicInteger writes = new AtomicInteger();
+
+        // when
+        when(repository.insert(any(IdempotencyRecord.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // then
+        StepVerifier.create(idempotency.execute("key", "fingerprint", () -> Mono.fromCallable(() -> {
+                    writes.incrementAndGet();
+                    return apartment;
+                })))
+                .expectNext(apartment)
+                .verifyComplete();
+        verify(repository).save(argThat(record -> record.getStatus() == IdempotencyRecord.Status.COMPLETED &&
+                record.getResponse() == apartment));
+        Assertions.assertEquals(1, writes.get());
+    }
+
+    @Test
+    @DisplayName("Execute replays the stored response without writing when the key has completed")
+    void execute_ReplaysStoredResponse_WhenKeyHasCompleted() {
+        // given
+        Apartment apartment = apartment().id("1").build();
+        IdempotencyRecord record = new IdempotencyRecord("key", "fingerprint", IdempotencyRecord.Status.COMPLETED,
+                apartment, LocalDateTime.now().plusHours(1));
+
+        // when
+        when(repository.insert(any(IdempotencyRecord.class))).thenReturn(Mono.error(new DuplicateKeyException("key")));
+        when(repository.findById("key")).thenReturn(Mono.just(record));
+
+        // then
+        StepVerifier.create(idempotency.execute("key", "fingerprint", () -> Mono.error(new IllegalStateException("written"))))
+                .expectNext(apartment)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Execute shares one write between concurrent duplicates on the same node")
+    void execute_SharesOneWrite_WhenDuplicatesAreConcurrent() {
+        // given
+        Apartment apartment = apartment().id("1").build();
+        Sinks.One<Apartment> write = Sinks.one();
+        AtomicInteger writes = new AtomicInteger();
+
+        // when
+        when(repository.insert(any(IdempotencyRecord.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        Mono<Apartment> first = idempotency.execute("key", "fingerprint", () -> {
+            writes.incrementAndGet();
+            return write.asMono();
+        });
+        Mono<Apartment> second = idempotency.execute("key", "fingerprint", () -> {
+            writes.incrementAndGet();
+            return write.asMono();
+        });
+
+        // then
+        StepVerifier.create(Flux.merge(first, second))
+                .then(() -> write.tryEmitValue(apartment))
+                .expectNext(apartment, apartment)
+                .verifyComplete();
+        verify(repository, times(1)).insert(any(IdempotencyRecord.class));
+        Assertions.assertEquals(1, writes.get());
+    }
+
+    @Test
+    @DisplayName("Execute returns CustomBadRequestException when the key was used for a different request")
+    void execute_ReturnsCustomBadRequestException_WhenFingerprintDiffers() {
+        // given
+        IdempotencyRecord record = new IdempotencyRecord("key", "other", IdempotencyRecord.Status.COMPLETED,
+                apartment().id("1").build(), LocalDateTime.now().plusHours(1));
+
+        // when
+        when(repository.insert(any(IdempotencyRecord.class))).thenReturn(Mono.error(new DuplicateKeyException("key")));
+        when(repository.findById("key")).thenReturn(Mono.just(record));
+
+        // then
+        StepVerifier.create(idempotency.execute("key", "fingerprint", () -> Mono.just(apartment().id("2").build())))
+                .expectErrorMatches(e -> e instanceof CustomBadRequestException &&
+                        e.getMessage().equals("Idempotency key key has already been used for a different request!"))
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Execute returns CustomConflictException when the write holding the key does not complete in time")
+    void execute_ReturnsCustomConflictException_WhenKeyStaysInProgress() {
+        // given
+        IdempotencyRecord record = new IdempotencyRecord("key", "fingerprint", IdempotencyRecord.Status.IN_PROGRESS,
+                null, LocalDateTime.now().plusMinutes(1));
+        AtomicInteger polls = new AtomicInteger();
+
+        // when
+        when(repository.insert(any(IdempotencyRecord.class))).thenReturn(Mono.error(new DuplicateKeyException("key")));
+        when(repository.findById("key")).thenReturn(Mono.fromSupplier(() -> {
+            polls.incrementAndGet();
+            return record;
+        }));
+
+        // then
+        StepVerifier.create(idempotency.execute("key", "fingerprint", () -> Mono.just(apartment().id("2").build())))
+                .expectError(CustomConflictException.class)
+                .verify();
+        Assertions.assertTrue(polls.get() > 1);
+    }
+
+    @Test
+    @DisplayName("Execute releases the key when the write fails so a retry writes again")
+    void execute_ReleasesKey_WhenWriteFails() {
+        // when
+        when(repository.insert(any(IdempotencyRecord.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // then
+        StepVerifier.create(idempotency.execute("key", "fingerprint",
+                        () -> Mono.error(new CustomAlreadyExistsException("Apartment Luxury Apartment already exists!"))))
+                .expectError(CustomAlreadyExistsException.class)
+                .verify();
+        verify(repository).deleteById("key");
+        verify(repository, never()).save(any(IdempotencyRecord.class));
+    }
+}
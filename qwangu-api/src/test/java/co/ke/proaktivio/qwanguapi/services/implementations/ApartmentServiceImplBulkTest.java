@@ -0,0 +1,144 @@
+package co.ke.proaktivio.qwanguapi.services.implementations;
+
+import co.ke.proaktivio.qwanguapi.caches.ApartmentCache;
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.metrics.OperationMetrics;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentBulkDelete;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentBulkResult;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentDto;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentPatch;
+import co.ke.proaktivio.qwanguapi.pojos.BulkStatus;
+import co.ke.proaktivio.qwanguapi.pojos.OrderType;
+import co.ke.proaktivio.qwanguapi.repositories.ApartmentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static co.ke.proaktivio.qwanguapi.models.ApartmentFixture.OWNER;
+import static co.ke.proaktivio.qwanguapi.models.ApartmentFixture.apartment;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+class ApartmentServiceImplBulkTest {
+
+    @Mock
+    private ApartmentRepository repository;
+    @Spy
+    private ApartmentProperties properties = new ApartmentProperties();
+    @Spy
+    private ApartmentCache cache = new ApartmentCache(new ApartmentProperties());
+    @Spy
+    private OperationMetrics metrics = new OperationMetrics(new SimpleMeterRegistry());
+    @Mock
+    private ApartmentCreateCoalescer createCoalescer;
+    @Mock
+    private ApartmentIdempotency idempotency;
+    @InjectMocks
+    private ApartmentServiceImpl apartmentService;
+
+    @Test
+    @DisplayName("ImportAll writes apartments in batches and numbers results across batches")
+    void importAll_ReturnsResultsIndexedAcrossBatches_WhenSuccessful() {
+        // given
+        properties.getBulkImport().setBatchSize(2);
+        ApartmentDto a = new ApartmentDto("Apartment A");
+        ApartmentDto b = new ApartmentDto("Apartment B");
+        ApartmentDto c = new ApartmentDto("Apartment C");
+
+        // when
+        when(repository.createAll(OWNER, List.of(a, b))).thenReturn(Flux.just(
+                new ApartmentBulkResult(0, BulkStatus.CREATED, new Apartment(), null),
+                new ApartmentBulkResult(1, BulkStatus.ALREADY_EXISTS, null, "Apartment Apartment B already exists!")));
+        when(repository.createAll(OWNER, List.of(c))).thenReturn(Flux.just(
+                new ApartmentBulkResult(0, BulkStatus.CREATED, new Apartment(), null)));
+
+        // then
+        StepVerifier.create(apartmentService.importAll(OWNER, Flux.just(a, b, c)))
+                .expectNextMatches(r -> r.getIndex() == 0 && r.getStatus() == BulkStatus.CREATED)
+                .expectNextMatches(r -> r.getIndex() == 1 && r.getStatus() == BulkStatus.ALREADY_EXISTS)
+                .expectNextMatches(r -> r.getIndex() == 2 && r.getStatus() == BulkStatus.CREATED)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("PatchAll writes patches in batches, numbers results across batches and invalidates patched apartments")
+    void patchAll_ReturnsResultsIndexedAcrossBatches_WhenSuccessful() {
+        // given
+        properties.getBulkImport().setBatchSize(2);
+        ApartmentPatch a = new ApartmentPatch("1", 0L, "Apartment A");
+        ApartmentPatch b = new ApartmentPatch("2", 3L, "Apartment B");
+        ApartmentPatch c = new ApartmentPatch("3", null, "Apartment C");
+
+        // when
+        when(repository.patchAll(OWNER, List.of(a, b))).thenReturn(Flux.just(
+                new ApartmentBulkResult(0, BulkStatus.UPDATED, new Apartment(), null),
+                new ApartmentBulkResult(1, BulkStatus.PRECONDITION_FAILED, null, "Apartment with id 2 has been modified!")));
+        when(repository.patchAll(OWNER, List.of(c))).thenReturn(Flux.just(
+                new ApartmentBulkResult(0, BulkStatus.NOT_FOUND, null, "Apartment with id 3 does not exist!")));
+
+        // then
+        StepVerifier.create(apartmentService.patchAll(OWNER, Flux.just(a, b, c)))
+                .expectNextMatches(r -> r.getIndex() == 0 && r.getStatus() == BulkStatus.UPDATED)
+                .expectNextMatches(r -> r.getIndex() == 1 && r.getStatus() == BulkStatus.PRECONDITION_FAILED)
+                .expectNextMatches(r -> r.getIndex() == 2 && r.getStatus() == BulkStatus.NOT_FOUND)
+                .verifyComplete();
+        verify(cache).invalidateAll(List.of("1", "2"));
+        verify(cache).invalidateAll(List.of("3"));
+    }
+
+    @Test
+    @DisplayName("DeleteAll deletes ids in batches and numbers results across batches")
+    void deleteAll_ReturnsResultsIndexedAcrossBatches_WhenIdsAreGiven() {
+        // given
+        properties.getBulkImport().setBatchSize(2);
+        Apartment apartment = apartment().id("3").name("Apartment C").build();
+
+        // when
+        when(repository.deleteByIds(OWNER, List.of("1", "2"))).thenReturn(Flux.just(
+                new ApartmentBulkResult(0, BulkStatus.NOT_FOUND, null, "Apartment with id 1 does not exist!"),
+                new ApartmentBulkResult(1, BulkStatus.NOT_FOUND, null, "Apartment with id 2 does not exist!")));
+        when(repository.deleteByIds(OWNER, List.of("3"))).thenReturn(Flux.just(
+                new ApartmentBulkResult(0, BulkStatus.DELETED, apartment, null)));
+
+        // then
+        StepVerifier.create(apartmentService.deleteAll(OWNER, new ApartmentBulkDelete(List.of("1", "2", "3"), null)))
+                .expectNextMatches(r -> r.getIndex() == 0 && r.getStatus() == BulkStatus.NOT_FOUND)
+                .expectNextMatches(r -> r.getIndex() == 1 && r.getStatus() == BulkStatus.NOT_FOUND)
+                .expectNextMatches(r -> r.getIndex() == 2 && r.getStatus() == BulkStatus.DELETED)
+                .verifyComplete();
+        verify(cache).invalidateAll(List.of("3"));
+    }
+
+    @Test
+    @DisplayName("DeleteAll deletes by name prefix and invalidates the deleted apartments")
+    void deleteAll_InvalidatesCachedApartments_WhenNamePrefixIsGiven() {
+        // given
+        String id = "1";
+        Apartment apartment = apartment().id(id).build();
+
+        // when
+        when(repository.findByIdAndOwner(id, OWNER)).thenReturn(Mono.just(apartment)).thenReturn(Mono.empty());
+        when(repository.deleteByNamePrefix(OWNER, "Luxury", properties.getBulkImport().getBatchSize()))
+                .thenReturn(Flux.just(new ApartmentBulkResult(0, BulkStatus.DELETED, apartment, null)));
+        Flux<Apartment> lookups = apartmentService.findById(OWNER, id)
+                .thenMany(apartmentService.deleteAll(OWNER, new ApartmentBulkDelete(null, " Luxury ")))
+                .thenMany(apartmentService.findPaginated(OWNER, Optional.of(id), Optional.empty(), 0, 10, OrderType.ASC, Set.of()));
+
+        // then
+        StepVerifier.create(lookups)
+                .verifyComplete();
+    }
+}
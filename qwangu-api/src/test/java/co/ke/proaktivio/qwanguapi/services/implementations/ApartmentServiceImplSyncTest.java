@@ -0,0 +1,95 @@
+package co.ke.proaktivio.qwanguapi.services.implementations;
+
+import co.ke.proaktivio.qwanguapi.caches.ApartmentCache;
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.metrics.OperationMetrics;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.models.ApartmentTombstone;
+import co.ke.proaktivio.qwanguapi.pojos.SyncToken;
+import co.ke.proaktivio.qwanguapi.repositories.ApartmentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static co.ke.proaktivio.qwanguapi.models.ApartmentFixture.OWNER;
+import static co.ke.proaktivio.qwanguapi.models.ApartmentFixture.apartment;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+class ApartmentServiceImplSyncTest {
+
+    @Mock
+    private ApartmentRepository repository;
+    @Spy
+    private ApartmentProperties properties = new ApartmentProperties();
+    @Spy
+    private ApartmentCache cache = new ApartmentCache(new ApartmentProperties());
+    @Spy
+    private OperationMetrics metrics = new OperationMetrics(new SimpleMeterRegistry());
+    @Mock
+    private ApartmentCreateCoalescer createCoalescer;
+    @Mock
+    private ApartmentIdempotency idempotency;
+    @InjectMocks
+    private ApartmentServiceImpl apartmentService;
+
+    @Test
+    @DisplayName("Sync merges changes and deletes in modified order and resumes from the last one when more remain")
+    void sync_ReturnsChangesAndDeletesInOrder_WhenMoreRemain() {
+        // given
+        LocalDateTime time = LocalDateTime.now().minusMinutes(10).truncatedTo(ChronoUnit.MILLIS);
+        SyncToken token = new SyncToken(time, "1", time);
+        Apartment a = apartment().id("2").name("Luxury Apartment A").created(time).modified(time.plusSeconds(1)).build();
+        Apartment c = apartment().id("4").name("Luxury Apartment C").created(time).modified(time.plusSeconds(3)).build();
+        ApartmentTombstone b = new ApartmentTombstone("3", OWNER, time.plusSeconds(2), time.plusDays(30));
+
+        // when
+        when(repository.findModifiedSince(eq(OWNER), eq(Optional.of(token)), any(LocalDateTime.class), eq(3))).thenReturn(Flux.just(a, c));
+        when(repository.findDeletedSince(eq(OWNER), eq(token), any(LocalDateTime.class), eq(3))).thenReturn(Flux.just(b));
+
+        // then
+        StepVerifier.create(apartmentService.sync(OWNER, Optional.of(token), Optional.of(2)))
+                .expectNextMatches(page -> page.getChanged().equals(List.of(a)) &&
+                        page.getDeleted().equals(List.of("3")) &&
+                        page.isMore() &&
+                        !page.isReset() &&
+                        SyncToken.decode(page.getToken(), "Token").equals(new SyncToken(time.plusSeconds(2), "3", time)))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Sync starts over without deletes when the token is older than the tombstone retention")
+    void sync_ResetsWithoutDeletes_WhenTokenIsOlderThanTombstoneRetention() {
+        // given
+        LocalDateTime time = LocalDateTime.now().minusDays(31);
+        SyncToken token = new SyncToken(time, null, time);
+        Apartment apartment = apartment().created(time).modified(time).build();
+
+        // when
+        when(repository.findModifiedSince(eq(OWNER), eq(Optional.empty()), any(LocalDateTime.class), eq(501))).thenReturn(Flux.just(apartment));
+
+        // then
+        StepVerifier.create(apartmentService.sync(OWNER, Optional.of(token), Optional.empty()))
+                .expectNextMatches(page -> page.getChanged().equals(List.of(apartment)) &&
+                        page.getDeleted().isEmpty() &&
+                        !page.isMore() &&
+                        page.isReset() &&
+                        SyncToken.decode(page.getToken(), "Token").getModified().isAfter(time))
+                .verifyComplete();
+        verify(repository, never()).findDeletedSince(any(String.class), any(SyncToken.class), any(LocalDateTime.class), any(Integer.class));
+    }
+}
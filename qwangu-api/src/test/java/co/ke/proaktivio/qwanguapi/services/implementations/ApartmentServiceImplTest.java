@@ -1,32 +1,40 @@
 package co.ke.proaktivio.qwanguapi.services.implementations;
 
+import co.ke.proaktivio.qwanguapi.caches.ApartmentCache;
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
 import co.ke.proaktivio.qwanguapi.exceptions.CustomAlreadyExistsException;
 import co.ke.proaktivio.qwanguapi.exceptions.CustomNotFoundException;
+import co.ke.proaktivio.qwanguapi.metrics.OperationMetrics;
 import co.ke.proaktivio.qwanguapi.models.Apartment;
 import co.ke.proaktivio.qwanguapi.pojos.ApartmentDto;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentField;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentPatch;
+import co.ke.proaktivio.qwanguapi.pojos.Cursor;
 import co.ke.proaktivio.qwanguapi.pojos.OrderType;
 import co.ke.proaktivio.qwanguapi.repositories.ApartmentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
-import org.springframework.test.context.DynamicPropertyRegistry;
-import org.springframework.test.context.DynamicPropertySource;
+import org.mockito.Spy;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
-import org.springframework.util.StringUtils;
-import org.testcontainers.containers.MongoDBContainer;
-import org.testcontainers.junit.jupiter.Container;
-import org.testcontainers.junit.jupiter.Testcontainers;
-import org.testcontainers.utility.DockerImageName;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.Optional;
+import java.util.Set;
 
+import static co.ke.proaktivio.qwanguapi.models.ApartmentFixture.OWNER;
+import static co.ke.proaktivio.qwanguapi.models.ApartmentFixture.apartment;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
@@ -34,6 +42,17 @@ class ApartmentServiceImplTest {
 
     @Mock
     private ApartmentRepository repository;
+    @Spy
+    private ApartmentProperties properties = new ApartmentProperties();
+    @Spy
+    private ApartmentCache cache = new ApartmentCache(new ApartmentProperties());
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    @Spy
+    private OperationMetrics metrics = new OperationMetrics(registry);
+    @Mock
+    private ApartmentCreateCoalescer createCoalescer;
+    @Mock
+    private ApartmentIdempotency idempotency;
     @InjectMocks
     private ApartmentServiceImpl apartmentService;
 
@@ -44,19 +63,13 @@ class ApartmentServiceImplTest {
         // given
         String name = "Luxury Apartment";
         ApartmentDto dto = new ApartmentDto(name);
-
-        LocalDateTime now = LocalDateTime.now();
-        Apartment apartment = new Apartment();
-        apartment.setId("1");
-        apartment.setName(name);
-        apartment.setCreated(now);
-        apartment.setModified(now);
+        Apartment apartment = apartment().name(name).build();
 
         // when
-        when(repository.create(dto)).thenReturn(Mono.just(apartment));
+        when(repository.create(OWNER, dto)).thenReturn(Mono.just(apartment));
 
         // then
-        StepVerifier.create(apartmentService.create(dto))
+        StepVerifier.create(apartmentService.create(OWNER, dto, Optional.empty()))
                 .expectNext(apartment)
                 .verifyComplete();
     }
@@ -69,218 +82,248 @@ class ApartmentServiceImplTest {
         String name = "Luxury Apartment";
         ApartmentDto dto = new ApartmentDto(name);
 
-        LocalDateTime now = LocalDateTime.now();
-        Apartment apartment = new Apartment();
-        apartment.setId("1");
-        apartment.setName(name);
-        apartment.setCreated(now);
-        apartment.setModified(now);
-
         // when
-        when(repository.create(dto)).thenReturn(Mono.error(new CustomAlreadyExistsException("Apartment %s already exists!".formatted(name))));
+        when(repository.create(OWNER, dto)).thenReturn(Mono.error(new CustomAlreadyExistsException("Apartment %s already exists!".formatted(name))));
 
         // then
-        StepVerifier.create(apartmentService.create(dto))
+        StepVerifier.create(apartmentService.create(OWNER, dto, Optional.empty()))
                 .expectError(CustomAlreadyExistsException.class)
                 .verify();
     }
 
+    @Test
+    @DisplayName("Create answers through the idempotency store when an idempotency key is sent")
+    void create_ReturnsStoredApartment_WhenIdempotencyKeyIsSent() {
+        // given
+        ApartmentDto dto = new ApartmentDto("Luxury Apartment");
+        Apartment apartment = apartment().name(dto.getName()).build();
+
+        // when
+        when(idempotency.execute(eq(OWNER + ":key"), eq(ApartmentIdempotency.fingerprint("create", dto.getName())), any()))
+                .thenReturn(Mono.just(apartment));
+
+        // then
+        StepVerifier.create(apartmentService.create(OWNER, dto, Optional.of("key")))
+                .expectNext(apartment)
+                .verifyComplete();
+        verify(repository, never()).create(any(), any());
+    }
+
     @Test
     @DisplayName("Update returns a Mono of Apartment when apartment with id exists")
     void update_ReturnMonoOfApartment_WhenSuccessful() {
         // given
-        String name = "Luxury Apartment";
-        ApartmentDto dto = new ApartmentDto(name);
-
-        LocalDateTime now = LocalDateTime.now();
-        Apartment apartment = new Apartment();
         String id = "1";
-        apartment.setId(id);
-        apartment.setName(name);
-        apartment.setCreated(now);
-        apartment.setModified(now);
+        ApartmentDto dto = new ApartmentDto("Luxury Apartment");
+        Apartment apartment = apartment().id(id).name(dto.getName()).build();
 
         // when
-        when(repository.update(id, dto)).thenReturn(Mono.just(apartment));
+        when(repository.update(OWNER, id, dto, Optional.empty())).thenReturn(Mono.just(apartment));
 
         // then
-        StepVerifier.create(apartmentService.update(id, dto))
+        StepVerifier.create(apartmentService.update(OWNER, id, dto, Optional.empty(), Optional.empty()))
                 .expectNext(apartment)
                 .verifyComplete();
     }
-//
-//    @Test
-//    void findPaginated() {
-//    }
-//
-//    @Test
-//    void deleteById() {
-//    }
-}
 
-@Testcontainers
-@DataMongoTest
-@ExtendWith(SpringExtension.class)
-class ApartmentServiceImplIntegrationTest {
+    @Test
+    @DisplayName("Update records its latency with a not_found outcome when apartment with id does not exist")
+    void update_RecordsNotFoundOutcome_WhenIdDoesNotExist() {
+        // given
+        String id = "1";
+        ApartmentDto dto = new ApartmentDto("Luxury Apartment");
 
-    @Container
-    private static MongoDBContainer container = new MongoDBContainer(DockerImageName.parse("mongo:latest"));
+        // when
+        when(repository.update(OWNER, id, dto, Optional.empty()))
+                .thenReturn(Mono.error(new CustomNotFoundException("Apartment with id %s does not exists!".formatted(id))));
 
-    @DynamicPropertySource
-    public static void overrideProperties(DynamicPropertyRegistry registry) {
-        registry.add("spring.data.mongodb.uri", container::getReplicaSetUrl);
+        // then
+        StepVerifier.create(apartmentService.update(OWNER, id, dto, Optional.empty(), Optional.empty()))
+                .expectError(CustomNotFoundException.class)
+                .verify();
+        Timer timer = registry.find(OperationMetrics.SERVICE)
+                .tags("operation", "update", "outcome", "not_found")
+                .timer();
+        Assertions.assertNotNull(timer);
+        Assertions.assertEquals(1, timer.count());
     }
 
-    @Autowired
-    private ApartmentRepository repository;
-
     @Test
-    @DisplayName("Create returns a Mono of Apartment when name does not exist")
-    void create_ReturnMonoOfApartment_WhenSuccessful() {
+    @DisplayName("FindById returns a CustomNotFoundException when apartment with id does not exist")
+    void findById_ReturnsCustomNotFoundException_WhenIdDoesNotExist() {
+        // given
+        String id = "1";
 
+        // when
+        when(repository.findByIdAndOwner(id, OWNER)).thenReturn(Mono.empty());
+
+        // then
+        StepVerifier.create(apartmentService.findById(OWNER, id))
+                .expectErrorMatches(e -> e instanceof CustomNotFoundException &&
+                        e.getMessage().equals("Apartment with id %s does not exist!".formatted(id)))
+                .verify();
+    }
+
+    @Test
+    @DisplayName("FindPaginated by id reads the apartment once and serves repeats from the cache")
+    void findPaginated_ReturnsCachedApartment_WhenLookedUpByIdAgain() {
         // given
-        String name = "Luxury Apartment";
-        ApartmentDto dto = new ApartmentDto(name);
+        String id = "1";
+        Apartment apartment = apartment().id(id).build();
 
         // when
-        Mono<Apartment> saved = repository.create(dto);
+        when(repository.findByIdAndOwner(id, OWNER)).thenReturn(Mono.just(apartment));
+        Flux<Apartment> lookups = apartmentService.findPaginated(OWNER, Optional.of(id), Optional.empty(), 0, 10, OrderType.ASC, Set.of())
+                .concatWith(apartmentService.findPaginated(OWNER, Optional.of(id), Optional.empty(), 0, 10, OrderType.ASC, Set.of()));
 
         // then
-        StepVerifier.create(saved)
-                .expectNextMatches(apartment ->
-                        StringUtils.hasText(apartment.getId()) &&
-                                apartment.getName().equalsIgnoreCase(name) &&
-                                apartment.getCreated() != null &&
-                                apartment.getModified() != null)
+        StepVerifier.create(lookups)
+                .expectNext(apartment, apartment)
                 .verifyComplete();
+        verify(repository, times(1)).findByIdAndOwner(id, OWNER);
     }
 
     @Test
-    @DisplayName("Create returns a CustomAlreadyExistsException when name already exists")
-    void create_ReturnsCustomAlreadyExistsException_WhenApartmentNameExists() {
-
+    @DisplayName("FindPaginated by id returns only the requested fields without trimming the cached apartment")
+    void findPaginated_ReturnsRequestedFields_WhenFieldsAreGiven() {
         // given
-        String name = "Luxury Apartments";
-        ApartmentDto dto = new ApartmentDto(name);
+        String id = "1";
+        Apartment apartment = apartment().id(id).build();
 
         // when
-        Mono<Apartment> saved = repository.create(dto)
-                .thenReturn(dto)
-                .flatMap(d -> repository.create(d));
+        when(repository.findByIdAndOwner(id, OWNER)).thenReturn(Mono.just(apartment));
+        Flux<Apartment> lookups = apartmentService.findPaginated(OWNER, Optional.of(id), Optional.empty(), 0, 10, OrderType.ASC,
+                        EnumSet.of(ApartmentField.NAME))
+                .concatWith(apartmentService.findPaginated(OWNER, Optional.of(id), Optional.empty(), 0, 10, OrderType.ASC, Set.of()));
 
         // then
-        StepVerifier.create(saved)
-                .expectErrorMatches(e -> e instanceof CustomAlreadyExistsException &&
-                        e.getMessage().equalsIgnoreCase("Apartment %s already exists!".formatted(name)))
-                .verify();
+        StepVerifier.create(lookups)
+                .expectNextMatches(a -> a.getId().equals(id) && a.getName().equals(apartment.getName()) &&
+                        a.getCreated() == null && a.getModified() == null)
+                .expectNext(apartment)
+                .verifyComplete();
     }
 
     @Test
-    @DisplayName("Update returns an updated apartment when successful")
-    void update_ReturnsMonoOfAnUpdatedApartment_WhenSuccessful() {
+    @DisplayName("FindPaginated runs identical concurrent listings as one query")
+    void findPaginated_SharesOneQuery_WhenIdenticalListingsRunConcurrently() {
         // given
-        String updatedName = "Thika road Apartments";
+        Apartment apartment = apartment().build();
 
-        //when
-        Mono<Apartment> updated =
-                repository.deleteAll()
-                .thenReturn(new ApartmentDto("Luxury Apartments"))
-                .flatMap(d -> repository.create(d))
-                .flatMap(d -> repository.update(d.getId(), new ApartmentDto(updatedName)));
+        // when
+        when(repository.findPaginated(OWNER, Optional.empty(), Optional.empty(), 1, 10, OrderType.ASC, Set.of()))
+                .thenReturn(Flux.just(apartment).delaySubscription(Duration.ofMillis(100)));
+        Flux<Apartment> listings = Flux.merge(
+                apartmentService.findPaginated(OWNER, Optional.empty(), Optional.empty(), 1, 10, OrderType.ASC, Set.of()),
+                apartmentService.findPaginated(OWNER, Optional.empty(), Optional.empty(), 1, 10, OrderType.ASC, Set.of()));
 
         // then
-        StepVerifier.create(updated)
-                .expectNextMatches(result -> StringUtils.hasText(result.getId()) &&
-                        result.getName().equalsIgnoreCase(updatedName))
+        StepVerifier.create(listings)
+                .expectNext(apartment, apartment)
                 .verifyComplete();
+        verify(repository, times(1)).findPaginated(OWNER, Optional.empty(), Optional.empty(), 1, 10, OrderType.ASC, Set.of());
     }
 
     @Test
-    @DisplayName("Update returns a CustomNotFoundException when id does not exist")
-    void update_ReturnsCustomNotFoundException_WhenIdDoesNotExist() {
-
+    @DisplayName("Patch invalidates the cached apartment")
+    void patch_InvalidatesCachedApartment_WhenSuccessful() {
         // given
         String id = "1";
-        ApartmentDto dto = new ApartmentDto("Luxury Apartments");
+        ApartmentPatch patch = new ApartmentPatch(null, null, "Renamed Apartment");
+        Apartment apartment = apartment().id(id).build();
+        Apartment patched = apartment().id(id).name(patch.getName()).created(apartment.getCreated()).modified(LocalDateTime.now()).build();
 
         // when
-        Mono<Apartment> saved = repository.update(id, dto);
-//                repository.deleteAll()
-//                .thenReturn(dto)
-//                .flatMap(d -> repository.update(id, d));
+        when(repository.findByIdAndOwner(id, OWNER)).thenReturn(Mono.just(apartment)).thenReturn(Mono.just(patched));
+        when(repository.patch(OWNER, id, patch, Optional.of(0L))).thenReturn(Mono.just(patched));
+        Flux<Apartment> lookups = apartmentService.findById(OWNER, id)
+                .concatWith(apartmentService.patch(OWNER, id, patch, Optional.of(0L), Optional.empty()))
+                .concatWith(apartmentService.findById(OWNER, id));
 
         // then
-        StepVerifier.create(saved)
-                .expectErrorMatches(e -> e instanceof CustomNotFoundException &&
-                        e.getMessage().equalsIgnoreCase("Apartment with id %s does not exists!".formatted(id)))
-                .verify();
+        StepVerifier.create(lookups.map(Apartment::getName))
+                .expectNext("Luxury Apartment", "Renamed Apartment", "Renamed Apartment")
+                .verifyComplete();
+        verify(repository, times(2)).findByIdAndOwner(id, OWNER);
     }
 
     @Test
-    @DisplayName("Update returns a CustomAlreadyExistsException when name already exists")
-    void update_ReturnsCustomAlreadyExistsException_WhenNameAlreadyExists() {
-
+    @DisplayName("DeleteById invalidates the cached apartment")
+    void deleteById_InvalidatesCachedApartment_WhenSuccessful() {
         // given
-        String name = "Luxury Apartments";
-        ApartmentDto dto = new ApartmentDto(name);
+        String id = "1";
+        Apartment apartment = apartment().id(id).build();
 
         // when
-        Mono<Apartment> saved = repository.create(dto)
-//                repository.deleteAll()
-//                .thenReturn(dto)
-//                .flatMap(a -> repository.create(a))
-                .thenReturn(new ApartmentDto("Luxury Apartments B"))
-                .flatMap(a -> repository.create(a))
-                .flatMap(a -> repository.update(a.getId(), dto));
+        when(repository.findByIdAndOwner(id, OWNER)).thenReturn(Mono.just(apartment)).thenReturn(Mono.empty());
+        when(repository.delete(OWNER, id)).thenReturn(Mono.just("Deleted Successfully"));
+        Flux<Apartment> lookups = apartmentService.findPaginated(OWNER, Optional.of(id), Optional.empty(), 0, 10, OrderType.ASC, Set.of())
+                .concatWith(apartmentService.deleteById(OWNER, id).then(Mono.empty()))
+                .concatWith(apartmentService.findPaginated(OWNER, Optional.of(id), Optional.empty(), 0, 10, OrderType.ASC, Set.of()));
 
         // then
-        StepVerifier.create(saved)
-                .expectErrorMatches(e -> e instanceof CustomAlreadyExistsException &&
-                        e.getMessage().equalsIgnoreCase("Apartment %s already exists!".formatted(name)))
-                .verify();
+        StepVerifier.create(lookups)
+                .expectNext(apartment)
+                .verifyComplete();
     }
 
     @Test
-    @DisplayName("FindPaginated returns a flux of apartments when successful")
-    void findPaginated_ReturnsFluxOfApartments_WhenSuccessful() {
+    @DisplayName("FindByCursor returns a page with a next cursor when more apartments exist")
+    void findByCursor_ReturnsPageWithNextCursor_WhenMoreApartmentsExist() {
         // given
+        Apartment a = apartment().id("1").name("Luxury Apartment A").build();
+        Apartment b = apartment().id("2").name("Luxury Apartment B").build();
+        Apartment c = apartment().id("3").name("Luxury Apartment C").build();
 
-        //when
-        Flux<Apartment> saved = Flux.just(new ApartmentDto("Luxury Apartments"), new ApartmentDto("Luxury Apartments B"))
-//                repository.deleteAll()
-//                .thenMany(Flux.just(new ApartmentDto("Luxury Apartments"), new ApartmentDto("Luxury Apartments B")))
-                .flatMap(a -> repository.create(a))
-                .thenMany(repository.findPaginated(Optional.empty(),
-                        Optional.empty(), 0, 10,
-                        OrderType.ASC));
+        // when
+        when(repository.findByCursor(OWNER, Optional.empty(), Optional.of("0"), Optional.empty(), 3, OrderType.DESC, Set.of()))
+                .thenReturn(Flux.just(a, b, c));
 
         // then
-        StepVerifier.create(saved)
-                .expectNextCount(2)
+        StepVerifier.create(apartmentService.findByCursor(OWNER, Optional.empty(),
+                        Optional.of(new Cursor("0", OrderType.DESC)), Optional.empty(), 2, OrderType.ASC, Set.of()))
+                .expectNextMatches(page -> page.getContent().size() == 2 &&
+                        Cursor.decode(page.getNext(), "Next").equals(new Cursor("2", OrderType.DESC)) &&
+                        Cursor.decode(page.getPrevious(), "Previous").equals(new Cursor("1", OrderType.DESC)))
                 .verifyComplete();
     }
 
     @Test
-    @DisplayName("FindPaginated returns a CustomNotFoundException when none exist!")
-    void findPaginated_ReturnsCustomNotFoundException_WhenNoApartmentsExists() {
+    @DisplayName("FindByCursor returns an empty page without cursors when no apartments remain")
+    void findByCursor_ReturnsEmptyPage_WhenNoApartmentsRemain() {
+        // when
+        when(repository.findByCursor(OWNER, Optional.empty(), Optional.empty(), Optional.empty(), 11, OrderType.ASC, Set.of()))
+                .thenReturn(Flux.empty());
+
+        // then
+        StepVerifier.create(apartmentService.findByCursor(OWNER, Optional.empty(), Optional.empty(), Optional.empty(), 10, OrderType.ASC, Set.of()))
+                .expectNextMatches(page -> page.getContent().isEmpty() &&
+                        page.getNext() == null &&
+                        page.getPrevious() == null)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Search caps the number of apartments at the configured maximum limit")
+    void search_CapsLimitAtMaximum_WhenLimitIsTooLarge() {
         // given
+        Apartment apartment = apartment().build();
 
-        //when
-        Flux<Apartment> saved = repository.deleteAll()
-                .thenMany(repository.findPaginated(Optional.empty(),
-                        Optional.empty(), 0, 10,
-                        OrderType.ASC));
-//                repository.deleteAll()
-//                .thenMany(Flux.just(new ApartmentDto("Luxury Apartments"), new ApartmentDto("Luxury Apartments B")))
-//                .flatMap(a -> repository.create(a))
-//                .thenMany(repository.findPaginated(Optional.empty(),
-//                        Optional.empty(), 0, 10,
-//                        OrderType.ASC));
+        // when
+        when(repository.search(OWNER, "lux", 50)).thenReturn(Flux.just(apartment));
 
         // then
-        StepVerifier.create(saved)
-                .expectErrorMatches(e -> e instanceof CustomNotFoundException &&
-                        e.getMessage().equalsIgnoreCase("Apartments do not exist!"))
-                .verify();
+        StepVerifier.create(apartmentService.search(OWNER, " lux ", Optional.of(1000)))
+                .expectNext(apartment)
+                .verifyComplete();
+        verify(repository).search(OWNER, "lux", 50);
     }
-}
\ No newline at end of file
+//
+//    @Test
+//    void findPaginated() {
+//    }
+//
+//    @Test
+//    void deleteById() {
+//    }
+}
@@ -0,0 +1,56 @@
+package co.ke.proaktivio.qwanguapi.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SingleFlightTest {
+
+    @Test
+    @DisplayName("Execute shares one upstream between concurrent callers with the same key")
+    void execute_SharesUpstream_WhenKeyIsInFlight() {
+        // given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger subscriptions = new AtomicInteger();
+        Sinks.Many<Integer> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        Flux<Integer> first = singleFlight.execute("key", () -> upstream.asFlux()
+                .doOnSubscribe(s -> subscriptions.incrementAndGet()));
+        Flux<Integer> second = singleFlight.execute("key", () -> Flux.error(new IllegalStateException("Not shared!")));
+
+        // then
+        StepVerifier.create(Flux.zip(first, second))
+                .then(() -> {
+                    upstream.tryEmitNext(1);
+                    upstream.tryEmitNext(2);
+                    upstream.tryEmitComplete();
+                })
+                .expectNextMatches(t -> t.getT1() == 1 && t.getT2() == 1)
+                .expectNextMatches(t -> t.getT1() == 2 && t.getT2() == 2)
+                .verifyComplete();
+        Assertions.assertEquals(1, subscriptions.get());
+        Assertions.assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    @DisplayName("Execute runs the upstream again once the previous flight has completed")
+    void execute_RunsUpstreamAgain_WhenPreviousFlightCompleted() {
+        // given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        // when
+        Flux<Integer> flights = singleFlight.execute("key", () -> Flux.just(calls.incrementAndGet()))
+                .concatWith(singleFlight.execute("key", () -> Flux.just(calls.incrementAndGet())));
+
+        // then
+        StepVerifier.create(flights)
+                .expectNext(1, 2)
+                .verifyComplete();
+        Assertions.assertEquals(0, singleFlight.inFlight());
+    }
+}
@@ -0,0 +1,79 @@
+package co.ke.proaktivio.qwanguapi.benchmarks;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.filters.ApartmentAdmissionFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link ApartmentAdmissionFilter} for a request it admits and for one it sheds, with and
+ * without the per-client rate limit. Shedding should stay in the order of microseconds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ApartmentAdmissionBenchmark {
+    private static final WebFilterChain CHAIN = exchange -> Mono.empty();
+
+    private ApartmentAdmissionFilter admitting;
+    private ApartmentAdmissionFilter shedding;
+    private MockServerWebExchange exchange;
+
+    @Param({"false", "true"})
+    private boolean clients;
+
+    @Setup
+    public void setUp() {
+        ApartmentProperties properties = new ApartmentProperties();
+        properties.getAdmission().getClients().setEnabled(clients);
+        properties.getAdmission().getClients().setRate(Integer.MAX_VALUE);
+        properties.getAdmission().getClients().setBurst(Integer.MAX_VALUE);
+        admitting = new ApartmentAdmissionFilter(properties, new SimpleMeterRegistry());
+
+        ApartmentProperties full = new ApartmentProperties();
+        full.getAdmission().getClients().setEnabled(clients);
+        full.getAdmission().getReads().setInitialLimit(1);
+        full.getAdmission().getReads().setMinLimit(1);
+        full.getAdmission().getReads().setMaxLimit(1);
+        shedding = new ApartmentAdmissionFilter(full, new SimpleMeterRegistry());
+        // holds the only read permit for the whole trial
+        shedding.filter(exchange(), exchange -> Sinks.empty().asMono().then()).subscribe();
+        exchange = exchange();
+    }
+
+    @Benchmark
+    public HttpStatus admitted() {
+        return filter(admitting);
+    }
+
+    @Benchmark
+    public HttpStatus shed() {
+        return filter(shedding);
+    }
+
+    private HttpStatus filter(ApartmentAdmissionFilter filter) {
+        // building a mock exchange costs far more than the filter, only the response is new per request
+        ServerWebExchange request = exchange.mutate()
+                .response(new MockServerHttpResponse())
+                .build();
+        filter.filter(request, CHAIN).block();
+        return request.getResponse().getStatusCode();
+    }
+
+    private static MockServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/v1/apartments/1").header("X-Client-Id", "benchmark"));
+    }
+}
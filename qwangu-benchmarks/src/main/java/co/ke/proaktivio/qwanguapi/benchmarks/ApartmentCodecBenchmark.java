@@ -0,0 +1,96 @@
+package co.ke.proaktivio.qwanguapi.benchmarks;
+
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON encoding and decoding of apartments through the WebFlux Jackson codecs, as done for request
+ * and response bodies of the apartment endpoints.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ApartmentCodecBenchmark {
+    private static final ResolvableType APARTMENT = ResolvableType.forClass(Apartment.class);
+    private static final ResolvableType APARTMENT_DTO = ResolvableType.forClass(ApartmentDto.class);
+    private static final ResolvableType APARTMENTS = ResolvableType.forClassWithGenerics(List.class, Apartment.class);
+
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+    private Jackson2JsonEncoder encoder;
+    private Jackson2JsonDecoder decoder;
+    private Apartment apartment;
+    private ApartmentDto dto;
+    private List<Apartment> page;
+    private byte[] apartmentJson;
+    private byte[] dtoJson;
+    private byte[] pageJson;
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper mapper = Fixtures.objectMapper();
+        encoder = new Jackson2JsonEncoder(mapper);
+        decoder = new Jackson2JsonDecoder(mapper);
+        apartment = Fixtures.apartment(1);
+        dto = new ApartmentDto("Luxury Apartments");
+        page = Fixtures.apartments(pageSize);
+        apartmentJson = mapper.writeValueAsBytes(apartment);
+        dtoJson = mapper.writeValueAsBytes(dto);
+        pageJson = mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public int encodeApartment() {
+        return encode(apartment, APARTMENT);
+    }
+
+    @Benchmark
+    public int encodeApartmentDto() {
+        return encode(dto, APARTMENT_DTO);
+    }
+
+    @Benchmark
+    public int encodePage() {
+        return encode(page, APARTMENTS);
+    }
+
+    @Benchmark
+    public Object decodeApartment() {
+        return decoder.decode(bufferFactory.wrap(apartmentJson), APARTMENT, MediaType.APPLICATION_JSON, Collections.emptyMap());
+    }
+
+    @Benchmark
+    public Object decodeApartmentDto() {
+        return decoder.decode(bufferFactory.wrap(dtoJson), APARTMENT_DTO, MediaType.APPLICATION_JSON, Collections.emptyMap());
+    }
+
+    @Benchmark
+    public Object decodePage() {
+        return decoder.decode(bufferFactory.wrap(pageJson), APARTMENTS, MediaType.APPLICATION_JSON, Collections.emptyMap());
+    }
+
+    private int encode(Object value, ResolvableType type) {
+        DataBuffer buffer = encoder.encodeValue(value, bufferFactory, type, MediaType.APPLICATION_JSON, Collections.emptyMap());
+        int size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+}
@@ -0,0 +1,111 @@
+package co.ke.proaktivio.qwanguapi.benchmarks;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.controllers.ApartmentController;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentDto;
+import co.ke.proaktivio.qwanguapi.services.ApartmentService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end handler throughput of the apartment endpoints: request decoding, parameter parsing,
+ * the service layer and response encoding, with the repository replaced by an in-memory stand-in.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ApartmentControllerBenchmark {
+    private final AtomicLong sequence = new AtomicLong();
+    private HttpHandler handler;
+    private String id;
+
+    @Param({"1000"})
+    private int apartments;
+
+    @Setup
+    public void setUp() {
+        ApartmentProperties properties = new ApartmentProperties();
+        InMemoryApartmentRepository repository = new InMemoryApartmentRepository();
+        ApartmentService service = Fixtures.service(repository, properties);
+        handler = Fixtures.httpHandler(Fixtures.controller(service, properties));
+        List<Apartment> created = Flux.range(0, apartments)
+                .concatMap(i -> service.create(Fixtures.OWNER, new ApartmentDto("Apartment " + i), Optional.empty()))
+                .collectList()
+                .block();
+        id = created.get(created.size() / 2).getId();
+    }
+
+    @Benchmark
+    public String create() {
+        return exchange(MockServerHttpRequest.post("/v1/apartments")
+                .header(ApartmentController.OWNER_ID, Fixtures.OWNER)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{\"name\":\"Created Apartment " + sequence.incrementAndGet() + "\"}"));
+    }
+
+    @Benchmark
+    public String findPage() {
+        return exchange(MockServerHttpRequest.get("/v1/apartments?page=5&pageSize=20&order=ASC")
+                .header(ApartmentController.OWNER_ID, Fixtures.OWNER)
+                .build());
+    }
+
+    @Benchmark
+    public String findPageWithFields() {
+        return exchange(MockServerHttpRequest.get("/v1/apartments?page=5&pageSize=20&order=ASC&fields=id,name")
+                .header(ApartmentController.OWNER_ID, Fixtures.OWNER)
+                .build());
+    }
+
+    @Benchmark
+    public String findByCursor() {
+        return exchange(MockServerHttpRequest.get("/v1/apartments?pageSize=20&order=DESC")
+                .header(ApartmentController.OWNER_ID, Fixtures.OWNER)
+                .build());
+    }
+
+    @Benchmark
+    public String findById() {
+        return exchange(MockServerHttpRequest.get("/v1/apartments?id={id}&page=1&pageSize=1&order=ASC", id)
+                .header(ApartmentController.OWNER_ID, Fixtures.OWNER)
+                .build());
+    }
+
+    @Benchmark
+    public String findOne() {
+        return exchange(MockServerHttpRequest.get("/v1/apartments/{id}", id)
+                .header(ApartmentController.OWNER_ID, Fixtures.OWNER)
+                .build());
+    }
+
+    @Benchmark
+    public String findOneNotModified() {
+        return exchange(MockServerHttpRequest.get("/v1/apartments/{id}", id)
+                .header(ApartmentController.OWNER_ID, Fixtures.OWNER)
+                .ifNoneMatch("\"0\"")
+                .build());
+    }
+
+    private String exchange(MockServerHttpRequest request) {
+        MockServerHttpResponse response = new MockServerHttpResponse();
+        handler.handle(request, response).block();
+        HttpStatus status = response.getStatusCode();
+        if (status != null && status.isError())
+            throw new IllegalStateException("%s %s returned %s".formatted(request.getMethod(), request.getURI(), status));
+        return response.getBodyAsString().block();
+    }
+}
@@ -0,0 +1,142 @@
+package co.ke.proaktivio.qwanguapi.benchmarks;
+
+import co.ke.proaktivio.qwanguapi.codecs.CollectingCborEncoder;
+import co.ke.proaktivio.qwanguapi.configurations.CodecConfiguration;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.json.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding and decoding of an apartment listing in each of the formats the api negotiates, through
+ * the codecs registered by {@link CodecConfiguration}. The payload sizes, with gzip'd JSON for
+ * comparison, are printed once per trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ApartmentEncodingBenchmark {
+    private static final ResolvableType APARTMENT = ResolvableType.forClass(Apartment.class);
+    private static final ResolvableType APARTMENTS = ResolvableType.forClassWithGenerics(List.class, Apartment.class);
+
+    public enum Format {
+        JSON(MediaType.APPLICATION_JSON),
+        SMILE(CodecConfiguration.APPLICATION_SMILE),
+        CBOR(MediaType.APPLICATION_CBOR);
+
+        private final MimeType mimeType;
+
+        Format(MimeType mimeType) {
+            this.mimeType = mimeType;
+        }
+    }
+
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+    private AbstractJackson2Encoder encoder;
+    private Decoder<Object> decoder;
+    private List<Apartment> page;
+    private byte[] encodedPage;
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    private Format format;
+
+    @Param({"100", "1000"})
+    private int pageSize;
+
+    @Setup
+    public void setUp() throws Exception {
+        MimeType mimeType = format.mimeType;
+        switch (format) {
+            case JSON -> {
+                ObjectMapper mapper = objectMapper(new JsonFactory());
+                encoder = new Jackson2JsonEncoder(mapper, mimeType);
+                decoder = new Jackson2JsonDecoder(mapper, mimeType);
+            }
+            case SMILE -> {
+                ObjectMapper mapper = objectMapper(new SmileFactory());
+                encoder = new Jackson2SmileEncoder(mapper, mimeType);
+                decoder = new Jackson2SmileDecoder(mapper, mimeType);
+            }
+            case CBOR -> {
+                ObjectMapper mapper = objectMapper(new CBORFactory());
+                encoder = new CollectingCborEncoder(mapper);
+                decoder = new Jackson2CborDecoder(mapper, mimeType);
+            }
+        }
+        page = Fixtures.apartments(pageSize);
+        encodedPage = encodePage();
+        System.out.printf("%n%s page of %d: %d bytes%s%n", format, pageSize, encodedPage.length,
+                format == Format.JSON ? ", %d bytes gzip'd".formatted(gzip(encodedPage).length) : "");
+    }
+
+    @Benchmark
+    public int encodeList() {
+        DataBuffer buffer = encoder.encodeValue(page, bufferFactory, APARTMENTS, format.mimeType, Collections.emptyMap());
+        int size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+
+    @Benchmark
+    public List<DataBuffer> encodeStream() {
+        // how a Flux<Apartment> returned by the controller reaches the codec
+        List<DataBuffer> buffers = encoder
+                .encode(Flux.fromIterable(page), bufferFactory, APARTMENT, format.mimeType, Collections.emptyMap())
+                .collectList()
+                .block();
+        buffers.forEach(DataBufferUtils::release);
+        return buffers;
+    }
+
+    @Benchmark
+    public Object decodeList() {
+        return decoder.decode(bufferFactory.wrap(encodedPage), APARTMENTS, format.mimeType, Collections.emptyMap());
+    }
+
+    private byte[] encodePage() {
+        DataBuffer buffer = encoder.encodeValue(page, bufferFactory, APARTMENTS, format.mimeType, Collections.emptyMap());
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        DataBufferUtils.release(buffer);
+        return bytes;
+    }
+
+    private static ObjectMapper objectMapper(JsonFactory factory) {
+        // the settings of Fixtures#objectMapper on the format's factory, as CodecConfiguration does
+        return Jackson2ObjectMapperBuilder.json()
+                .factory(factory)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    private static byte[] gzip(byte[] bytes) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,81 @@
+package co.ke.proaktivio.qwanguapi.benchmarks;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.controllers.ApartmentController;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomNotFoundException;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentDto;
+import co.ke.proaktivio.qwanguapi.services.ApartmentService;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import reactor.core.publisher.Flux;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of requests for apartments that do not exist, answered with a problem response, and
+ * of a listing past the last page, answered with an empty page. {@code stackTrace} and
+ * {@code stackless} compare the exception alone with and without capturing a stack trace.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ApartmentNotFoundBenchmark {
+    private HttpHandler handler;
+    private String missingId;
+
+    @Param({"1000"})
+    private int apartments;
+
+    @Setup
+    public void setUp() {
+        ApartmentProperties properties = new ApartmentProperties();
+        ApartmentService service = Fixtures.service(new InMemoryApartmentRepository(), properties);
+        handler = Fixtures.httpHandler(Fixtures.controller(service, properties));
+        Flux.range(0, apartments)
+                .concatMap(i -> service.create(Fixtures.OWNER, new ApartmentDto("Apartment " + i), Optional.empty()))
+                .blockLast();
+        missingId = new ObjectId().toHexString();
+    }
+
+    @Benchmark
+    public String findOneMissing() {
+        return exchange(MockServerHttpRequest.get("/v1/apartments/{id}", missingId)
+                .header(ApartmentController.OWNER_ID, Fixtures.OWNER)
+                .build(), HttpStatus.NOT_FOUND);
+    }
+
+    @Benchmark
+    public String findPagePastTheEnd() {
+        return exchange(MockServerHttpRequest.get("/v1/apartments?page=1000&pageSize=20&order=ASC")
+                .header(ApartmentController.OWNER_ID, Fixtures.OWNER)
+                .build(), HttpStatus.OK);
+    }
+
+    @Benchmark
+    public RuntimeException stackTrace() {
+        return new RuntimeException("Apartment with id %s does not exist!".formatted(missingId));
+    }
+
+    @Benchmark
+    public RuntimeException stackless() {
+        return new CustomNotFoundException("Apartment with id %s does not exist!".formatted(missingId));
+    }
+
+    private String exchange(MockServerHttpRequest request, HttpStatus expected) {
+        MockServerHttpResponse response = new MockServerHttpResponse();
+        handler.handle(request, response).block();
+        // a handler that succeeds leaves the status unset
+        HttpStatus status = Optional.ofNullable(response.getStatusCode()).orElse(HttpStatus.OK);
+        if (status != expected)
+            throw new IllegalStateException("%s %s returned %s".formatted(request.getMethod(), request.getURI(), status));
+        return response.getBodyAsString().block();
+    }
+}
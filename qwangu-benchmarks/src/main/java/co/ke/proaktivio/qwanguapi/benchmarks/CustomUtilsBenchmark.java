@@ -0,0 +1,48 @@
+package co.ke.proaktivio.qwanguapi.benchmarks;
+
+import co.ke.proaktivio.qwanguapi.exceptions.CustomBadRequestException;
+import co.ke.proaktivio.qwanguapi.utils.CustomUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request parameter parsing done by the apartment controller on every listing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class CustomUtilsBenchmark {
+    private String page = "25";
+    private String invalidPage = "twenty five";
+    private String name = "Luxury Apartments";
+    private String blank = "  ";
+
+    @Benchmark
+    public Integer convertToInteger() {
+        return CustomUtils.convertToInteger(page, "Page");
+    }
+
+    @Benchmark
+    public Object convertToIntegerInvalid() {
+        try {
+            return CustomUtils.convertToInteger(invalidPage, "Page");
+        } catch (CustomBadRequestException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Optional<String> convertToOptional() {
+        return CustomUtils.convertToOptional(name);
+    }
+
+    @Benchmark
+    public Optional<String> convertToOptionalBlank() {
+        return CustomUtils.convertToOptional(blank);
+    }
+}
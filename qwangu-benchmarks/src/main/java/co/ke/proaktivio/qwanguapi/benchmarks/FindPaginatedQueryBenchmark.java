@@ -0,0 +1,124 @@
+package co.ke.proaktivio.qwanguapi.benchmarks;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.metrics.OperationMetrics;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentField;
+import co.ke.proaktivio.qwanguapi.pojos.OrderType;
+import co.ke.proaktivio.qwanguapi.pojos.SyncToken;
+import co.ke.proaktivio.qwanguapi.repositories.CustomApartmentRepositoryImpl;
+import co.ke.proaktivio.qwanguapi.services.implementations.InProcessApartmentChangeSource;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query construction in {@link CustomApartmentRepositoryImpl#findPaginated},
+ * {@link CustomApartmentRepositoryImpl#findByCursor} and
+ * {@link CustomApartmentRepositoryImpl#findModifiedSince}, with and without mapping the query to the
+ * document sent to Mongo. The template never talks to a server, it hands the built query back.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class FindPaginatedQueryBenchmark {
+    private static final Set<ApartmentField> FIELDS = EnumSet.of(ApartmentField.ID, ApartmentField.NAME);
+    private MongoClient client;
+    private CapturingMongoTemplate template;
+    private CustomApartmentRepositoryImpl repository;
+    private QueryMapper queryMapper;
+    private MongoPersistentEntity<?> entity;
+    private Optional<String> id;
+    private Optional<String> name;
+    private Optional<SyncToken> token;
+    private LocalDateTime until;
+
+    @Setup
+    public void setUp() {
+        client = MongoClients.create("mongodb://localhost:27017");
+        template = new CapturingMongoTemplate(client);
+        repository = new CustomApartmentRepositoryImpl(template, template, new ApartmentProperties(),
+                new InProcessApartmentChangeSource(), new OperationMetrics(new SimpleMeterRegistry()));
+        queryMapper = new QueryMapper(template.getConverter());
+        entity = template.getConverter().getMappingContext().getRequiredPersistentEntity(Apartment.class);
+        id = Optional.of(new ObjectId().toHexString());
+        name = Optional.of("Luxury Apartments");
+        until = LocalDateTime.now();
+        token = Optional.of(new SyncToken(until.minusHours(1), id.get(), until.minusHours(1)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public void findPaginatedUnfiltered(Blackhole blackhole) {
+        repository.findPaginated(Fixtures.OWNER, Optional.empty(), Optional.empty(), 3, 20, OrderType.DESC, Set.of())
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void findPaginatedByIdAndName(Blackhole blackhole) {
+        repository.findPaginated(Fixtures.OWNER, id, name, 0, 20, OrderType.ASC, Set.of())
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void findPaginatedWithFields(Blackhole blackhole) {
+        repository.findPaginated(Fixtures.OWNER, Optional.empty(), Optional.empty(), 3, 20, OrderType.DESC, FIELDS)
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void findByCursor(Blackhole blackhole) {
+        repository.findByCursor(Fixtures.OWNER, name, id, Optional.empty(), 21, OrderType.ASC, Set.of())
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void findModifiedSince(Blackhole blackhole) {
+        repository.findModifiedSince(Fixtures.OWNER, token, until, 501)
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public Document findPaginatedMapped() {
+        repository.findPaginated(Fixtures.OWNER, id, name, 0, 20, OrderType.ASC, Set.of()).subscribe();
+        return queryMapper.getMappedObject(template.lastQuery.getQueryObject(), entity);
+    }
+
+    static class CapturingMongoTemplate extends ReactiveMongoTemplate {
+        private final Apartment apartment = Fixtures.apartment(1);
+        private Query lastQuery;
+
+        CapturingMongoTemplate(MongoClient client) {
+            super(client, "benchmarks");
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> Flux<T> find(Query query, Class<T> entityClass) {
+            lastQuery = query;
+            return Flux.just((T) apartment);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package co.ke.proaktivio.qwanguapi.benchmarks;
+
+import co.ke.proaktivio.qwanguapi.caches.ApartmentCache;
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.controllers.ApartmentController;
+import co.ke.proaktivio.qwanguapi.handlers.GlobalExceptionHandler;
+import co.ke.proaktivio.qwanguapi.metrics.OperationMetrics;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.services.ApartmentService;
+import co.ke.proaktivio.qwanguapi.services.implementations.ApartmentChangeBroadcaster;
+import co.ke.proaktivio.qwanguapi.services.implementations.ApartmentCreateCoalescer;
+import co.ke.proaktivio.qwanguapi.services.implementations.ApartmentIdempotency;
+import co.ke.proaktivio.qwanguapi.services.implementations.ApartmentServiceImpl;
+import co.ke.proaktivio.qwanguapi.services.implementations.InProcessApartmentChangeSource;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.web.reactive.config.EnableWebFlux;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Builds the application objects the benchmarks drive, wired the way the Spring context wires them
+ * but backed by {@link InMemoryApartmentRepository}.
+ */
+final class Fixtures {
+    static final String OWNER = "benchmark";
+
+    private Fixtures() {
+    }
+
+    static ObjectMapper objectMapper() {
+        // the same date handling Spring Boot applies to the application's ObjectMapper
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    static Apartment apartment(int index) {
+        LocalDateTime now = LocalDateTime.of(2022, 5, 1, 10, 15, 30);
+        Apartment apartment = new Apartment("Luxury Apartments " + index, now, now.plusDays(index));
+        apartment.setId(new ObjectId().toHexString());
+        apartment.setOwner(OWNER);
+        return apartment;
+    }
+
+    static List<Apartment> apartments(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(Fixtures::apartment)
+                .toList();
+    }
+
+    static ApartmentService service(InMemoryApartmentRepository repository, ApartmentProperties properties) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ApartmentIdempotency idempotency = new ApartmentIdempotency(new InMemoryIdempotencyRecordRepository(), properties);
+        return new ApartmentServiceImpl(repository, properties, new ApartmentCache(properties),
+                new OperationMetrics(registry), new ApartmentCreateCoalescer(repository, properties, registry),
+                idempotency);
+    }
+
+    static ApartmentController controller(ApartmentService service, ApartmentProperties properties) {
+        ApartmentChangeBroadcaster broadcaster =
+                new ApartmentChangeBroadcaster(new InProcessApartmentChangeSource(), properties, new SimpleMeterRegistry());
+        return new ApartmentController(service, broadcaster);
+    }
+
+    /**
+     * The complete WebFlux handler chain (dispatcher, argument resolution, codecs, exception
+     * handling) around the controller. Requests are handled on the calling thread, without a server.
+     */
+    static HttpHandler httpHandler(ApartmentController controller) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.registerBean(WebFluxConfiguration.class);
+        context.registerBean(ApartmentController.class, () -> controller);
+        context.registerBean(GlobalExceptionHandler.class);
+        context.refresh();
+        return WebHttpHandlerBuilder.applicationContext(context).build();
+    }
+
+    @EnableWebFlux
+    static class WebFluxConfiguration implements WebFluxConfigurer {
+
+        @Override
+        public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+            configurer.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper()));
+            configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper()));
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package co.ke.proaktivio.qwanguapi.benchmarks;
+
+import co.ke.proaktivio.qwanguapi.configurations.ApartmentProperties;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomAlreadyExistsException;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomNotFoundException;
+import co.ke.proaktivio.qwanguapi.exceptions.CustomPreconditionFailedException;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.models.ApartmentTombstone;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentBulkResult;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentDto;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentField;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentPatch;
+import co.ke.proaktivio.qwanguapi.pojos.BulkStatus;
+import co.ke.proaktivio.qwanguapi.pojos.OrderType;
+import co.ke.proaktivio.qwanguapi.pojos.SyncToken;
+import co.ke.proaktivio.qwanguapi.repositories.ApartmentRepository;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Stand-in for the Mongo backed apartment repository, so the request path can be measured without
+ * database round trips. Apartments are kept in {@code _id} order like the APARTMENT collection.
+ */
+public class InMemoryApartmentRepository extends InMemoryMongoRepository<Apartment> implements ApartmentRepository {
+    // tombstones are never expired here, the retention only fills in the field
+    private static final Duration TOMBSTONE_RETENTION = new ApartmentProperties().getSync().getTombstoneRetention();
+
+    // names are unique per owner, keyed by owner and name
+    private final Map<NameKey, String> idsByName = new ConcurrentHashMap<>();
+    private final Map<String, ApartmentTombstone> tombstones = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<Apartment> create(String owner, ApartmentDto dto) {
+        return Mono.fromCallable(() -> insert(owner, dto.getName()));
+    }
+
+    @Override
+    public Flux<ApartmentBulkResult> createAll(String owner, List<ApartmentDto> dtos) {
+        return Flux.fromStream(IntStream.range(0, dtos.size()).mapToObj(index -> {
+            try {
+                return new ApartmentBulkResult(index, BulkStatus.CREATED, insert(owner, dtos.get(index).getName()), null);
+            } catch (CustomAlreadyExistsException e) {
+                return new ApartmentBulkResult(index, BulkStatus.ALREADY_EXISTS, null, e.getMessage());
+            }
+        }));
+    }
+
+    @Override
+    public Mono<Apartment> update(String owner, String id, ApartmentDto dto, Optional<Long> version) {
+        return Mono.fromCallable(() -> modify(owner, id, dto.getName(), version));
+    }
+
+    @Override
+    public Mono<Apartment> patch(String owner, String id, ApartmentPatch patch, Optional<Long> version) {
+        return Mono.fromCallable(() -> modify(owner, id, patch.getName(), version));
+    }
+
+    @Override
+    public Flux<ApartmentBulkResult> patchAll(String owner, List<ApartmentPatch> patches) {
+        Map<String, Long> occurrences = patches.stream()
+                .map(ApartmentPatch::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        return Flux.fromStream(IntStream.range(0, patches.size()).mapToObj(index -> {
+            ApartmentPatch patch = patches.get(index);
+            if (patch.getId() == null || patch.isEmpty())
+                return new ApartmentBulkResult(index, BulkStatus.FAILED, null, "Apartment patch has nothing to update!");
+            if (occurrences.get(patch.getId()) > 1)
+                return new ApartmentBulkResult(index, BulkStatus.FAILED, null,
+                        "Apartment with id %s is patched more than once in the batch!".formatted(patch.getId()));
+            try {
+                return new ApartmentBulkResult(index, BulkStatus.UPDATED,
+                        modify(owner, patch.getId(), patch.getName(), Optional.ofNullable(patch.getVersion())), null);
+            } catch (CustomNotFoundException e) {
+                return new ApartmentBulkResult(index, BulkStatus.NOT_FOUND, null, e.getMessage());
+            } catch (CustomPreconditionFailedException e) {
+                return new ApartmentBulkResult(index, BulkStatus.PRECONDITION_FAILED, null, e.getMessage());
+            } catch (CustomAlreadyExistsException e) {
+                return new ApartmentBulkResult(index, BulkStatus.ALREADY_EXISTS, null, e.getMessage());
+            }
+        }));
+    }
+
+    @Override
+    public Flux<Apartment> findPaginated(String owner, Optional<String> optionalId, Optional<String> optionalApartmentName, int page, int pageSize, OrderType order,
+                                         Set<ApartmentField> fields) {
+        NavigableMap<String, Apartment> ordered = order == OrderType.ASC ? byId : byId.descendingMap();
+        return Flux.fromStream(ordered.values().stream()
+                .filter(a -> owner.equals(a.getOwner()))
+                .filter(a -> optionalId.map(a.getId()::equals).orElse(true))
+                .filter(a -> optionalApartmentName.map(a.getName()::equals).orElse(true))
+                .skip((long) page * pageSize)
+                .limit(pageSize)
+                .map(a -> ApartmentField.project(a, fields)));
+    }
+
+    @Override
+    public Flux<Apartment> findByCursor(String owner, Optional<String> optionalApartmentName, Optional<String> optionalAfterId,
+                                        Optional<String> optionalBeforeId, int limit, OrderType order,
+                                        Set<ApartmentField> fields) {
+        NavigableMap<String, Apartment> ordered = order == OrderType.ASC ? byId : byId.descendingMap();
+        NavigableMap<String, Apartment> range = optionalAfterId.map(id -> ordered.tailMap(id, false))
+                .or(() -> optionalBeforeId.map(id -> ordered.headMap(id, false).descendingMap()))
+                .orElse(ordered);
+        return Flux.defer(() -> {
+            List<Apartment> page = new ArrayList<>(range.values().stream()
+                    .filter(a -> owner.equals(a.getOwner()))
+                    .filter(a -> optionalApartmentName.map(a.getName()::equals).orElse(true))
+                    .limit(limit)
+                    .map(a -> ApartmentField.project(a, fields))
+                    .toList());
+            if (optionalBeforeId.isPresent())
+                Collections.reverse(page);
+            return Flux.fromIterable(page);
+        });
+    }
+
+    @Override
+    public Flux<Apartment> search(String owner, String prefix, int limit) {
+        String lowerCasePrefix = prefix.toLowerCase();
+        return Flux.fromStream(idsByName.keySet().stream()
+                .filter(key -> key.owner().equals(owner) && key.name().toLowerCase().startsWith(lowerCasePrefix))
+                .sorted(Comparator.comparing(NameKey::name, String.CASE_INSENSITIVE_ORDER))
+                .limit(limit)
+                .map(idsByName::get)
+                .map(byId::get));
+    }
+
+    @Override
+    public Flux<Apartment> export(String owner, Optional<String> optionalApartmentName, Optional<String> optionalAfterId, int batchSize) {
+        return Flux.fromStream(optionalAfterId.map(id -> byId.tailMap(id, false)).orElse(byId).values().stream()
+                .filter(a -> owner.equals(a.getOwner()))
+                .filter(a -> optionalApartmentName.map(a.getName()::equals).orElse(true)));
+    }
+
+    @Override
+    public Flux<Apartment> findModifiedSince(String owner, Optional<SyncToken> since, LocalDateTime until, int limit) {
+        return Flux.defer(() -> Flux.fromIterable(changedSince(byId.values(), Apartment::getOwner, owner, Apartment::getModified,
+                Apartment::getId, since, until, limit)));
+    }
+
+    @Override
+    public Flux<ApartmentTombstone> findDeletedSince(String owner, SyncToken since, LocalDateTime until, int limit) {
+        return Flux.defer(() -> Flux.fromIterable(changedSince(tombstones.values(), ApartmentTombstone::getOwner, owner,
+                ApartmentTombstone::getDeleted, ApartmentTombstone::getId, Optional.of(since), until, limit)));
+    }
+
+    @Override
+    public Mono<String> delete(String owner, String id) {
+        return Mono.fromCallable(() -> {
+            if (remove(owner, id) == null)
+                throw new CustomNotFoundException("Apartment with id %s does not exist!".formatted(id));
+            return "Deleted Successfully";
+        });
+    }
+
+    @Override
+    public Flux<ApartmentBulkResult> deleteByIds(String owner, List<String> ids) {
+        return Flux.fromStream(IntStream.range(0, ids.size()).mapToObj(index -> {
+            Apartment removed = remove(owner, ids.get(index));
+            return removed != null ?
+                    new ApartmentBulkResult(index, BulkStatus.DELETED, removed, null) :
+                    new ApartmentBulkResult(index, BulkStatus.NOT_FOUND, null,
+                            "Apartment with id %s does not exist!".formatted(ids.get(index)));
+        }));
+    }
+
+    @Override
+    public Flux<ApartmentBulkResult> deleteByNamePrefix(String owner, String prefix, int batchSize) {
+        return search(owner, prefix, Integer.MAX_VALUE)
+                .collectList()
+                .flatMapIterable(Function.identity())
+                .index()
+                .mapNotNull(indexed -> Optional.ofNullable(remove(owner, indexed.getT2().getId()))
+                        .map(removed -> new ApartmentBulkResult(indexed.getT1(), BulkStatus.DELETED, removed, null))
+                        .orElse(null));
+    }
+
+    @Override
+    public Mono<Apartment> findByIdAndOwner(String id, String owner) {
+        return Mono.fromSupplier(() -> owned(owner, id));
+    }
+
+    @Override
+    public Mono<Apartment> findByOwnerAndName(String owner, String name) {
+        return Mono.justOrEmpty(idsByName.get(new NameKey(owner, name))).mapNotNull(byId::get);
+    }
+
+    @Override
+    protected String idOf(Apartment apartment) {
+        return apartment.getId();
+    }
+
+    @Override
+    protected void assignId(Apartment apartment, String id) {
+        apartment.setId(id);
+    }
+
+    /**
+     * A write through the Spring Data methods is versioned and held to the unique owner and name index,
+     * the way Mongo holds it.
+     */
+    @Override
+    protected void storing(Apartment previous, Apartment apartment, boolean insert) {
+        Long version = insert ? apartment.getVersion() : previous == null ? null : previous.getVersion();
+        if (!Objects.equals(version, apartment.getVersion()))
+            throw new OptimisticLockingFailureException("Apartment with id %s has been modified!".formatted(apartment.getId()));
+        NameKey name = new NameKey(apartment.getOwner(), apartment.getName());
+        String existing = idsByName.putIfAbsent(name, apartment.getId());
+        if (existing != null && !existing.equals(apartment.getId()))
+            throw new DuplicateKeyException("Apartment %s already exists!".formatted(apartment.getName()));
+        if (previous != null && !name.equals(new NameKey(previous.getOwner(), previous.getName())))
+            idsByName.remove(new NameKey(previous.getOwner(), previous.getName()), apartment.getId());
+        apartment.setVersion(version == null ? 0L : insert ? version : version + 1);
+    }
+
+    @Override
+    protected void removed(Apartment apartment) {
+        idsByName.remove(new NameKey(apartment.getOwner(), apartment.getName()), apartment.getId());
+    }
+
+    private Apartment owned(String owner, String id) {
+        Apartment apartment = byId.get(id);
+        return apartment != null && owner.equals(apartment.getOwner()) ? apartment : null;
+    }
+
+    private Apartment modify(String owner, String id, String name, Optional<Long> version) {
+        Apartment apartment = owned(owner, id);
+        if (apartment == null)
+            throw new CustomNotFoundException("Apartment with id %s does not exists!".formatted(id));
+        if (version.isPresent() && !version.get().equals(apartment.getVersion()))
+            throw new CustomPreconditionFailedException("Apartment with id %s has been modified!".formatted(id));
+        // a patch that leaves the name out keeps it
+        String finalName = name != null ? name : apartment.getName();
+        String existing = idsByName.putIfAbsent(new NameKey(owner, finalName), id);
+        if (existing != null && !existing.equals(id))
+            throw new CustomAlreadyExistsException("Apartment %s already exists!".formatted(finalName));
+        if (!apartment.getName().equals(finalName))
+            idsByName.remove(new NameKey(owner, apartment.getName()), id);
+        Apartment updated = new Apartment(finalName, apartment.getCreated(), LocalDateTime.now());
+        updated.setId(id);
+        updated.setOwner(owner);
+        updated.setVersion(apartment.getVersion() + 1);
+        byId.put(id, updated);
+        return updated;
+    }
+
+    private Apartment remove(String owner, String id) {
+        Apartment removed = owned(owner, id);
+        if (removed == null || !byId.remove(id, removed))
+            return null;
+        idsByName.remove(new NameKey(owner, removed.getName()), id);
+        LocalDateTime now = LocalDateTime.now();
+        tombstones.put(id, new ApartmentTombstone(id, owner, now, now.plus(TOMBSTONE_RETENTION)));
+        return removed;
+    }
+
+    private static <T> List<T> changedSince(Iterable<T> values, Function<T, String> ownerOf, String owner,
+                                            Function<T, LocalDateTime> modified,
+                                            Function<T, String> id, Optional<SyncToken> since,
+                                            LocalDateTime until, int limit) {
+        Comparator<T> order = Comparator.comparing(modified).thenComparing(id);
+        List<T> changed = new ArrayList<>();
+        for (T value : values) {
+            if (!owner.equals(ownerOf.apply(value)))
+                continue;
+            LocalDateTime time = modified.apply(value);
+            boolean after = since
+                    .map(token -> token.getId() == null ?
+                            !time.isBefore(token.getModified()) :
+                            time.isAfter(token.getModified()) ||
+                                    time.isEqual(token.getModified()) && id.apply(value).compareTo(token.getId()) > 0)
+                    .orElse(true);
+            if (after && time.isBefore(until))
+                changed.add(value);
+        }
+        return changed.stream()
+                .sorted(order)
+                .limit(limit)
+                .toList();
+    }
+
+    private Apartment insert(String owner, String name) {
+        String id = new ObjectId().toHexString();
+        if (idsByName.putIfAbsent(new NameKey(owner, name), id) != null)
+            throw new CustomAlreadyExistsException("Apartment %s already exists!".formatted(name));
+        LocalDateTime now = LocalDateTime.now();
+        Apartment apartment = new Apartment(name, now, now);
+        apartment.setId(id);
+        apartment.setOwner(owner);
+        apartment.setVersion(0L);
+        byId.put(id, apartment);
+        return apartment;
+    }
+
+    private record NameKey(String owner, String name) {
+    }
+}
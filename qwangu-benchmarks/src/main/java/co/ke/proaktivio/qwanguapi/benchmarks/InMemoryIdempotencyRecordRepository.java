@@ -0,0 +1,21 @@
+package co.ke.proaktivio.qwanguapi.benchmarks;
+
+import co.ke.proaktivio.qwanguapi.models.IdempotencyRecord;
+import co.ke.proaktivio.qwanguapi.repositories.IdempotencyRecordRepository;
+
+/**
+ * Stand-in for the Mongo backed idempotency key store. A key can only be inserted once, like the
+ * {@code _id} of a record, and records are never expired here.
+ */
+class InMemoryIdempotencyRecordRepository extends InMemoryMongoRepository<IdempotencyRecord> implements IdempotencyRecordRepository {
+
+    @Override
+    protected String idOf(IdempotencyRecord record) {
+        return record.getKey();
+    }
+
+    @Override
+    protected void assignId(IdempotencyRecord record, String id) {
+        record.setKey(id);
+    }
+}
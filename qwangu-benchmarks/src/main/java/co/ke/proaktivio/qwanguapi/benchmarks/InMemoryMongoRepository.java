@@ -0,0 +1,352 @@
+package co.ke.proaktivio.qwanguapi.benchmarks;
+
+import org.bson.types.ObjectId;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.data.support.ExampleMatcherAccessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.beans.PropertyDescriptor;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Stand-in for a Mongo backed Spring Data repository, so a stand-in implements its repository interface
+ * in full and a method the application starts calling cannot reach a benchmark unimplemented. Documents
+ * are kept in {@code _id} order like a collection, and writes through this class are serialised.
+ */
+abstract class InMemoryMongoRepository<T> implements ReactiveMongoRepository<T, String> {
+    private static final SpelAwareProxyProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
+    protected final NavigableMap<String, T> byId = new ConcurrentSkipListMap<>();
+
+    protected abstract String idOf(T entity);
+
+    protected abstract void assignId(T entity, String id);
+
+    /**
+     * Checks a write against the collection's unique indexes and versioning before it is stored.
+     * {@code previous} is the document a save replaces, {@code null} when the write adds one.
+     */
+    protected void storing(T previous, T entity, boolean insert) {
+    }
+
+    protected void removed(T entity) {
+    }
+
+    @Override
+    public <S extends T> Mono<S> insert(S entity) {
+        return Mono.fromCallable(() -> write(entity, true));
+    }
+
+    @Override
+    public <S extends T> Flux<S> insert(Iterable<S> entities) {
+        return Flux.fromIterable(entities).concatMap(this::insert);
+    }
+
+    @Override
+    public <S extends T> Flux<S> insert(Publisher<S> entities) {
+        return Flux.from(entities).concatMap(this::insert);
+    }
+
+    @Override
+    public <S extends T> Mono<S> save(S entity) {
+        return Mono.fromCallable(() -> write(entity, false));
+    }
+
+    @Override
+    public <S extends T> Flux<S> saveAll(Iterable<S> entities) {
+        return Flux.fromIterable(entities).concatMap(this::save);
+    }
+
+    @Override
+    public <S extends T> Flux<S> saveAll(Publisher<S> entities) {
+        return Flux.from(entities).concatMap(this::save);
+    }
+
+    @Override
+    public Mono<T> findById(String id) {
+        return Mono.fromSupplier(() -> byId.get(id));
+    }
+
+    @Override
+    public Mono<T> findById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(String id) {
+        return Mono.fromSupplier(() -> byId.containsKey(id));
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<T> findAll() {
+        return Flux.defer(() -> Flux.fromIterable(List.copyOf(byId.values())));
+    }
+
+    @Override
+    public Flux<T> findAll(Sort sort) {
+        return Flux.defer(() -> Flux.fromStream(byId.values().stream().sorted(comparator(sort))));
+    }
+
+    @Override
+    public Flux<T> findAllById(Iterable<String> ids) {
+        return Flux.fromIterable(ids).concatMap(this::findById);
+    }
+
+    @Override
+    public Flux<T> findAllById(Publisher<String> ids) {
+        return Flux.from(ids).concatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Mono.fromSupplier(() -> (long) byId.size());
+    }
+
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return Mono.fromRunnable(() -> remove(id));
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(T entity) {
+        return deleteById(idOf(entity));
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends String> ids) {
+        return Flux.fromIterable(ids).concatMap(this::deleteById).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends T> entities) {
+        return Flux.fromIterable(entities).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends T> entities) {
+        return Flux.from(entities).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return Flux.fromIterable(List.copyOf(byId.keySet())).concatMap(this::deleteById).then();
+    }
+
+    @Override
+    public <S extends T> Mono<S> findOne(Example<S> example) {
+        return Mono.defer(() -> new Query<>(matching(example), Sort.unsorted()).one());
+    }
+
+    @Override
+    public <S extends T> Flux<S> findAll(Example<S> example) {
+        return findAll(example, Sort.unsorted());
+    }
+
+    @Override
+    public <S extends T> Flux<S> findAll(Example<S> example, Sort sort) {
+        return Flux.defer(() -> new Query<>(matching(example), sort).all());
+    }
+
+    @Override
+    public <S extends T> Mono<Long> count(Example<S> example) {
+        return Mono.fromSupplier(() -> (long) matching(example).size());
+    }
+
+    @Override
+    public <S extends T> Mono<Boolean> exists(Example<S> example) {
+        return Mono.fromSupplier(() -> !matching(example).isEmpty());
+    }
+
+    @Override
+    public <S extends T, R, P extends Publisher<R>> P findBy(Example<S> example,
+                                                             Function<FluentQuery.ReactiveFluentQuery<S>, P> queryFunction) {
+        return queryFunction.apply(new Query<>(matching(example), Sort.unsorted()));
+    }
+
+    private synchronized <S extends T> S write(S entity, boolean insert) {
+        if (idOf(entity) == null)
+            assignId(entity, new ObjectId().toHexString());
+        T previous = byId.get(idOf(entity));
+        if (insert && previous != null)
+            throw new DuplicateKeyException("Document with id %s already exists!".formatted(idOf(entity)));
+        storing(previous, entity, insert);
+        byId.put(idOf(entity), entity);
+        return entity;
+    }
+
+    private synchronized void remove(String id) {
+        T removed = byId.remove(id);
+        if (removed != null)
+            removed(removed);
+    }
+
+    /**
+     * Matches documents the way Mongo matches a query built from the example: every property the
+     * matcher does not ignore is compared, and only documents of the probe's type are returned.
+     */
+    private <S extends T> List<S> matching(Example<S> example) {
+        ExampleMatcher matcher = example.getMatcher();
+        ExampleMatcherAccessor accessor = new ExampleMatcherAccessor(matcher);
+        BeanWrapper probe = new BeanWrapperImpl(example.getProbe());
+        List<String> paths = Stream.of(probe.getPropertyDescriptors())
+                .filter(property -> property.getReadMethod() != null && !"class".equals(property.getName()))
+                .map(PropertyDescriptor::getName)
+                .filter(path -> !accessor.isIgnoredPath(path))
+                .filter(path -> probe.getPropertyValue(path) != null || accessor.getNullHandler() == ExampleMatcher.NullHandler.INCLUDE)
+                .toList();
+        return byId.values().stream()
+                .filter(example.getProbeType()::isInstance)
+                .map(example.getProbeType()::cast)
+                .filter(candidate -> {
+                    BeanWrapper document = new BeanWrapperImpl(candidate);
+                    Stream<Boolean> matches = paths.stream()
+                            .map(path -> matches(accessor, path, probe.getPropertyValue(path), document.getPropertyValue(path)));
+                    return paths.isEmpty() || (matcher.isAllMatching() ? matches.allMatch(match -> match) : matches.anyMatch(match -> match));
+                })
+                .toList();
+    }
+
+    private static boolean matches(ExampleMatcherAccessor accessor, String path, Object expected, Object actual) {
+        Object transformed = accessor.getValueTransformerForPath(path).apply(Optional.ofNullable(expected)).orElse(null);
+        if (transformed == null || actual == null)
+            return transformed == actual;
+        if (!(transformed instanceof String probe) || !(actual instanceof String value))
+            return transformed.equals(actual);
+        boolean ignoreCase = accessor.isIgnoreCaseForPath(path);
+        if (ignoreCase) {
+            probe = probe.toLowerCase();
+            value = value.toLowerCase();
+        }
+        return switch (accessor.getStringMatcherForPath(path)) {
+            case DEFAULT, EXACT -> value.equals(probe);
+            case STARTING -> value.startsWith(probe);
+            case ENDING -> value.endsWith(probe);
+            case CONTAINING -> value.contains(probe);
+            case REGEX -> Pattern.compile((String) transformed, ignoreCase ? Pattern.CASE_INSENSITIVE : 0)
+                    .matcher((String) actual).matches();
+        };
+    }
+
+    private static <S> Comparator<S> comparator(Sort sort) {
+        Comparator<S> comparator = (left, right) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<Object> values = Comparator.nullsFirst((left, right) -> order.isIgnoreCase() && left instanceof String l && right instanceof String r ?
+                    l.compareToIgnoreCase(r) :
+                    compare(left, right));
+            Comparator<S> property = Comparator.comparing(document -> new BeanWrapperImpl(document).getPropertyValue(order.getProperty()), values);
+            comparator = comparator.thenComparing(order.isAscending() ? property : property.reversed());
+        }
+        return comparator;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object left, Object right) {
+        return ((Comparable) left).compareTo(right);
+    }
+
+    /**
+     * A query over the documents an example matched. The documents are whole, so a projection of some of
+     * their fields is already satisfied.
+     */
+    private record Query<S>(List<S> matches, Sort sort) implements FluentQuery.ReactiveFluentQuery<S> {
+
+        @Override
+        public FluentQuery.ReactiveFluentQuery<S> sortBy(Sort sort) {
+            return new Query<>(matches, this.sort.and(sort));
+        }
+
+        @Override
+        public <R> FluentQuery.ReactiveFluentQuery<R> as(Class<R> type) {
+            return new Query<>(matches.stream().map(match -> as(match, type)).toList(), sort);
+        }
+
+        @Override
+        public FluentQuery.ReactiveFluentQuery<S> project(Collection<String> properties) {
+            return this;
+        }
+
+        @Override
+        public Mono<S> one() {
+            return matches.size() > 1 ?
+                    Mono.error(new IncorrectResultSizeDataAccessException(1, matches.size())) :
+                    Mono.justOrEmpty(matches.stream().findFirst());
+        }
+
+        @Override
+        public Mono<S> first() {
+            return Mono.justOrEmpty(sorted(sort).findFirst());
+        }
+
+        @Override
+        public Flux<S> all() {
+            return Flux.fromStream(sorted(sort));
+        }
+
+        @Override
+        public Mono<Page<S>> page(Pageable pageable) {
+            if (pageable.isUnpaged())
+                return Mono.just(new PageImpl<>(sorted(sort).toList()));
+            return Mono.just(new PageImpl<>(sorted(sort.and(pageable.getSort()))
+                    .skip(pageable.getOffset())
+                    .limit(pageable.getPageSize())
+                    .toList(), pageable, matches.size()));
+        }
+
+        @Override
+        public Mono<Long> count() {
+            return Mono.just((long) matches.size());
+        }
+
+        @Override
+        public Mono<Boolean> exists() {
+            return Mono.just(!matches.isEmpty());
+        }
+
+        private Stream<S> sorted(Sort sort) {
+            return sort.isSorted() ? matches.stream().sorted(comparator(sort)) : matches.stream();
+        }
+
+        private static <R> R as(Object match, Class<R> type) {
+            if (type.isInstance(match))
+                return type.cast(match);
+            if (type.isInterface())
+                return PROJECTIONS.createProjection(type, match);
+            R projected = BeanUtils.instantiateClass(type);
+            BeanUtils.copyProperties(match, projected);
+            return projected;
+        }
+    }
+}
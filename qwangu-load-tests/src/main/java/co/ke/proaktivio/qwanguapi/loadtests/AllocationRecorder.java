@@ -0,0 +1,74 @@
+package co.ke.proaktivio.qwanguapi.loadtests;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Bytes allocated during a recorded window, summed from each thread's own counter. A thread started
+ * in the window counts from zero and one that ends in it keeps what it had allocated by the last
+ * sample, so threads coming and going do not skew the total the way the difference of two sums over
+ * the live threads does. The stand-in's own threads are left out, its scans would otherwise outweigh the api.
+ */
+class AllocationRecorder {
+    private static final String SAMPLER = "allocation-sampler";
+    private static final Duration INTERVAL = Duration.ofMillis(100);
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final Map<Long, Long> before = new HashMap<>();
+    private final Map<Long, Long> latest = new HashMap<>();
+    private ScheduledExecutorService sampler;
+
+    void start() {
+        before.putAll(sample());
+        sampler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, SAMPLER);
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(this::record, INTERVAL.toMillis(), INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    long stop() throws InterruptedException {
+        sampler.shutdown();
+        sampler.awaitTermination(1, TimeUnit.SECONDS);
+        record();
+        synchronized (latest) {
+            return latest.entrySet().stream()
+                    .mapToLong(thread -> thread.getValue() - before.getOrDefault(thread.getKey(), 0L))
+                    .filter(bytes -> bytes > 0)
+                    .sum();
+        }
+    }
+
+    private void record() {
+        Map<Long, Long> sample = sample();
+        synchronized (latest) {
+            latest.putAll(sample);
+        }
+    }
+
+    private Map<Long, Long> sample() {
+        long[] ids = Stream.of(threads.getThreadInfo(threads.getAllThreadIds()))
+                .filter(Objects::nonNull)
+                .filter(thread -> !thread.getThreadName().startsWith(LoadTestConfiguration.STAND_IN_THREADS))
+                .filter(thread -> !thread.getThreadName().equals(SAMPLER))
+                .mapToLong(ThreadInfo::getThreadId)
+                .toArray();
+        long[] allocated = threads.getThreadAllocatedBytes(ids);
+        Map<Long, Long> sample = new HashMap<>();
+        for (int i = 0; i < ids.length; i++)
+            // a thread that ended since its id was read reports -1
+            if (allocated[i] >= 0)
+                sample.put(ids[i], allocated[i]);
+        return sample;
+    }
+}
@@ -0,0 +1,129 @@
+package co.ke.proaktivio.qwanguapi.loadtests;
+
+import co.ke.proaktivio.qwanguapi.controllers.ApartmentController;
+import co.ke.proaktivio.qwanguapi.models.Apartment;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentBulkResult;
+import co.ke.proaktivio.qwanguapi.pojos.ApartmentDto;
+import co.ke.proaktivio.qwanguapi.pojos.BulkStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Sends the requests of each {@link Operation} for a random owner. Updates and deletes take an
+ * apartment out of its owner's pool while they run, so no two requests race on the same apartment
+ * and every error counted is one the api chose to return.
+ */
+class ApartmentWorkload {
+    private final WebClient client;
+    private final LoadTestProperties properties;
+    private final List<String> owners;
+    private final List<List<String>> ids;
+    private final AtomicLong sequence = new AtomicLong();
+
+    ApartmentWorkload(WebClient client, LoadTestProperties properties) {
+        this.client = client;
+        this.properties = properties;
+        this.owners = IntStream.range(0, properties.getOwners())
+                .mapToObj(i -> "load-test-" + i)
+                .toList();
+        this.ids = IntStream.range(0, properties.getOwners())
+                .mapToObj(i -> (List<String>) new ArrayList<String>())
+                .toList();
+    }
+
+    /**
+     * Imports the seed apartments of every owner.
+     */
+    Mono<Void> seed() {
+        return Flux.range(0, owners.size())
+                .flatMap(owner -> client.post()
+                        .uri("/v1/apartments/import")
+                        .header(ApartmentController.OWNER_ID, owners.get(owner))
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .body(Flux.range(0, properties.getSeedApartments()).map(i -> dto()), ApartmentDto.class)
+                        .retrieve()
+                        .bodyToFlux(ApartmentBulkResult.class)
+                        .filter(result -> result.getStatus() == BulkStatus.CREATED)
+                        .doOnNext(result -> add(owner, result.getApartment().getId())))
+                .then();
+    }
+
+    /**
+     * Sends one request and emits whether the api answered it successfully.
+     */
+    Mono<Boolean> send(Operation operation) {
+        int owner = ThreadLocalRandom.current().nextInt(owners.size());
+        String ownerId = owners.get(owner);
+        return switch (operation) {
+            case CREATE -> client.post()
+                    .uri("/v1/apartments")
+                    .header(ApartmentController.OWNER_ID, ownerId)
+                    .bodyValue(dto())
+                    .exchangeToMono(response -> response.statusCode().is2xxSuccessful() ?
+                            response.bodyToMono(Apartment.class)
+                                    .doOnNext(apartment -> add(owner, apartment.getId()))
+                                    .thenReturn(true) :
+                            response.releaseBody().thenReturn(false));
+            case UPDATE -> take(owner)
+                    .map(id -> exchange(client.put()
+                            .uri("/v1/apartments/{id}", id)
+                            .header(ApartmentController.OWNER_ID, ownerId)
+                            .bodyValue(dto()))
+                            .doFinally(signal -> add(owner, id)))
+                    .orElseGet(() -> Mono.just(false));
+            case LIST -> list(ownerId, 1 + ThreadLocalRandom.current().nextInt(3));
+            case DEEP_LIST -> list(ownerId, properties.getDeepPage());
+            case DELETE -> take(owner)
+                    .map(id -> exchange(client.delete()
+                            .uri("/v1/apartments/{id}", id)
+                            .header(ApartmentController.OWNER_ID, ownerId)))
+                    .orElseGet(() -> Mono.just(false));
+        };
+    }
+
+    private Mono<Boolean> list(String ownerId, int page) {
+        return exchange(client.get()
+                .uri("/v1/apartments?page={page}&pageSize={pageSize}&order=DESC", page, properties.getPageSize())
+                .header(ApartmentController.OWNER_ID, ownerId));
+    }
+
+    private static Mono<Boolean> exchange(WebClient.RequestHeadersSpec<?> request) {
+        // the body is read in full, so a response counts once its last byte has arrived
+        return request.exchangeToMono(response -> response.releaseBody()
+                .thenReturn(response.statusCode().is2xxSuccessful()));
+    }
+
+    private ApartmentDto dto() {
+        return new ApartmentDto("Load Apartment " + sequence.incrementAndGet());
+    }
+
+    private Optional<String> take(int owner) {
+        List<String> pool = ids.get(owner);
+        synchronized (pool) {
+            if (pool.isEmpty())
+                return Optional.empty();
+            int index = ThreadLocalRandom.current().nextInt(pool.size());
+            String id = pool.get(index);
+            pool.set(index, pool.get(pool.size() - 1));
+            pool.remove(pool.size() - 1);
+            return Optional.of(id);
+        }
+    }
+
+    private void add(int owner, String id) {
+        List<String> pool = ids.get(owner);
+        synchronized (pool) {
+            pool.add(id);
+        }
+    }
+}
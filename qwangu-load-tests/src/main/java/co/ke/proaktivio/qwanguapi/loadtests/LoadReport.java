@@ -0,0 +1,57 @@
+package co.ke.proaktivio.qwanguapi.loadtests;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of a load test run, written as JSON so a later run can be compared against it.
+ * Allocation covers the whole process, the load generating client included, so it is only meaningful
+ * next to another run of the same harness.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@EqualsAndHashCode
+@ToString
+public class LoadReport {
+    private int rate;
+    private Map<Operation, Integer> mix;
+    private Map<Operation, OperationReport> operations;
+    /**
+     * Megabytes allocated per second.
+     */
+    private double allocationRate;
+    private long allocatedPerRequest;
+
+    /**
+     * Describes every way this run is worse than the baseline by more than the tolerances allow.
+     */
+    public List<String> regressions(LoadReport baseline, LoadTestProperties.Baseline tolerances) {
+        List<String> regressions = new ArrayList<>();
+        // the same api under a different load is not comparable
+        if (rate != baseline.getRate() || !mix.equals(baseline.getMix())) {
+            regressions.add("Baseline was recorded at %d requests/s with mix %s, this run used %d requests/s with mix %s"
+                    .formatted(baseline.getRate(), baseline.getMix(), rate, mix));
+            return regressions;
+        }
+        baseline.getOperations().forEach((operation, expected) -> {
+            OperationReport actual = operations.get(operation);
+            if (actual.getP99() > expected.getP99() * (1 + tolerances.getLatencyTolerance()))
+                regressions.add("%s p99 latency %.2fms is above the baseline %.2fms"
+                        .formatted(operation, actual.getP99(), expected.getP99()));
+            if (actual.getThroughput() < expected.getThroughput() * (1 - tolerances.getThroughputTolerance()))
+                regressions.add("%s throughput %.1f/s is below the baseline %.1f/s"
+                        .formatted(operation, actual.getThroughput(), expected.getThroughput()));
+            if (actual.getErrorRate() > expected.getErrorRate() + tolerances.getErrorRateTolerance())
+                regressions.add("%s error rate %.4f is above the baseline %.4f"
+                        .formatted(operation, actual.getErrorRate(), expected.getErrorRate()));
+        });
+        if (allocatedPerRequest > baseline.getAllocatedPerRequest() * (1 + tolerances.getAllocationTolerance()))
+            regressions.add("%d bytes allocated per request is above the baseline %d"
+                    .formatted(allocatedPerRequest, baseline.getAllocatedPerRequest()));
+        return regressions;
+    }
+}
@@ -0,0 +1,37 @@
+package co.ke.proaktivio.qwanguapi.loadtests;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Points the application at an in-memory Mongo stand-in. Declaring the client settings replaces the
+ * ones built from {@code spring.data.mongodb}, whose credentials the stand-in would reject, while the
+ * application's own driver tuning is still applied on top.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(LoadTestProperties.class)
+public class LoadTestConfiguration {
+    /**
+     * Prefix of the names of the threads the stand-in runs on.
+     */
+    static final String STAND_IN_THREADS = "mongo-server-";
+
+    @Bean(destroyMethod = "shutdownNow")
+    public MongoServer mongoServer() {
+        MongoServer server = new MongoServer(new MemoryBackend());
+        server.bind();
+        return server;
+    }
+
+    @Bean
+    public MongoClientSettings mongoClientSettings(MongoServer mongoServer) {
+        return MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(mongoServer.getConnectionString()))
+                .build();
+    }
+}
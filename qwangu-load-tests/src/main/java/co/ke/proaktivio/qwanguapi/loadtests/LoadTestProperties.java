@@ -0,0 +1,91 @@
+package co.ke.proaktivio.qwanguapi.loadtests;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "qwangu.load-test")
+public class LoadTestProperties {
+    /**
+     * Requests started per second. Requests start on schedule however long earlier ones take, so a
+     * slow api shows up as latency rather than as fewer requests.
+     */
+    private int rate = 50;
+    /**
+     * How long the load runs before anything is recorded, so the JIT, pools and caches settle.
+     */
+    private Duration warmup = Duration.ofSeconds(10);
+    /**
+     * How long the load is recorded for.
+     */
+    private Duration duration = Duration.ofSeconds(30);
+    /**
+     * How long a request may take before it is counted as an error.
+     */
+    private Duration timeout = Duration.ofSeconds(10);
+    /**
+     * Number of owners the requests are spread over.
+     */
+    private int owners = 4;
+    /**
+     * Apartments imported for each owner before the load starts, so there are pages to list and
+     * apartments to update and delete.
+     */
+    private int seedApartments = 500;
+    private int pageSize = 20;
+    /**
+     * The page DEEP_LIST reads, counted from 1.
+     */
+    private int deepPage = 20;
+    /**
+     * Relative weight of each operation in the mix, operations left out are not sent.
+     */
+    private Map<Operation, Integer> mix = new EnumMap<>(Map.of(
+            Operation.CREATE, 20,
+            Operation.UPDATE, 20,
+            Operation.LIST, 40,
+            Operation.DEEP_LIST, 10,
+            Operation.DELETE, 10));
+    /**
+     * Seed the operations are drawn from the mix with.
+     */
+    private long seed = 1;
+    /**
+     * Where the report of the run is written.
+     */
+    private Path result = Path.of("target", "load-test-result.json");
+    private final Baseline baseline = new Baseline();
+
+    @Data
+    public static class Baseline {
+        /**
+         * The report a run is compared against.
+         */
+        private Path path = Path.of("baseline.json");
+        /**
+         * Writes the report of this run as the new baseline instead of comparing against it.
+         */
+        private boolean record = false;
+        /**
+         * How much higher than the baseline the p99 latency of an operation may be, as a fraction.
+         */
+        private double latencyTolerance = 0.5;
+        /**
+         * How much lower than the baseline the throughput of an operation may be, as a fraction.
+         */
+        private double throughputTolerance = 0.05;
+        /**
+         * How much higher than the baseline the error rate of an operation may be, in absolute terms.
+         */
+        private double errorRateTolerance = 0.01;
+        /**
+         * How much more than the baseline may be allocated per request, as a fraction.
+         */
+        private double allocationTolerance = 0.2;
+    }
+}
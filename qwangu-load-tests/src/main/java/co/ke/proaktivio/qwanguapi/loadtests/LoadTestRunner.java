@@ -0,0 +1,108 @@
+package co.ke.proaktivio.qwanguapi.loadtests;
+
+import co.ke.proaktivio.qwanguapi.QwanguApiApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the api in-process against an in-memory Mongo stand-in, drives the configured mix of
+ * requests through Reactor Netty at a fixed arrival rate and compares the result against a stored
+ * baseline, exiting with 1 on a regression. Settings are the {@code qwangu.load-test} properties,
+ * given as command line arguments ({@code --qwangu.load-test.rate=500}) or environment variables
+ * ({@code QWANGU_LOADTEST_RATE=500}).
+ *
+ * <p>The stand-in answers far faster than a real Mongo, so the numbers describe the api itself and
+ * are only comparable with other runs on the same machine.
+ */
+@Log4j2
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QwanguApiApplication.class, LoadTestConfiguration.class)
+                .properties("spring.config.name=application,load-test")
+                .run(args);
+        List<String> regressions = run(context);
+        System.exit(SpringApplication.exit(context, () -> regressions.isEmpty() ? 0 : 1));
+    }
+
+    private static List<String> run(ConfigurableApplicationContext context) throws InterruptedException, IOException {
+        LoadTestProperties properties = context.getBean(LoadTestProperties.class);
+        int port = ((ReactiveWebServerApplicationContext) context).getWebServer().getPort();
+        // requests queue in the client rather than fail once every connection is busy, their wait counts as latency
+        ConnectionProvider connections = ConnectionProvider.builder("load-test")
+                .maxConnections(1000)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        WebClient client = context.getBean(WebClient.Builder.class)
+                .baseUrl("http://localhost:" + port)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                .build();
+        ApartmentWorkload workload = new ApartmentWorkload(client, properties);
+        OpenLoadGenerator generator = new OpenLoadGenerator(workload, properties);
+
+        log.info("Seeding {} apartments for each of {} owners", properties.getSeedApartments(), properties.getOwners());
+        workload.seed().block();
+        log.info("Warming up at {} requests/s for {}", properties.getRate(), properties.getWarmup());
+        generator.run(properties.getWarmup());
+        log.info("Recording at {} requests/s for {}", properties.getRate(), properties.getDuration());
+        AllocationRecorder allocation = new AllocationRecorder();
+        allocation.start();
+        long start = System.nanoTime();
+        Map<Operation, OperationStats> stats = generator.run(properties.getDuration());
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long allocated = allocation.stop();
+        connections.dispose();
+
+        Map<Operation, OperationReport> operations = new EnumMap<>(Operation.class);
+        stats.forEach((operation, operationStats) -> operations.put(operation, operationStats.report(properties.getDuration())));
+        long requests = operations.values().stream().mapToLong(OperationReport::getRequests).sum();
+        LoadReport report = new LoadReport(properties.getRate(), new EnumMap<>(properties.getMix()), operations,
+                allocated / seconds / (1024 * 1024), requests == 0 ? 0 : allocated / requests);
+        print(report);
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        Files.createDirectories(properties.getResult().toAbsolutePath().getParent());
+        mapper.writeValue(properties.getResult().toFile(), report);
+        Path baselinePath = properties.getBaseline().getPath();
+        if (properties.getBaseline().isRecord()) {
+            mapper.writeValue(baselinePath.toFile(), report);
+            log.info("Recorded the baseline at {}", baselinePath.toAbsolutePath());
+            return List.of();
+        }
+        if (!Files.exists(baselinePath))
+            return List.of("There is no baseline at %s, record one with --qwangu.load-test.baseline.record=true"
+                    .formatted(baselinePath.toAbsolutePath()));
+        List<String> regressions = report.regressions(mapper.readValue(baselinePath.toFile(), LoadReport.class),
+                properties.getBaseline());
+        if (regressions.isEmpty())
+            log.info("No regression against the baseline at {}", baselinePath.toAbsolutePath());
+        regressions.forEach(log::error);
+        return regressions;
+    }
+
+    private static void print(LoadReport report) {
+        System.out.printf("%n%-10s %9s %8s %10s %9s %9s %9s %9s %9s%n",
+                "Operation", "Requests", "Errors", "Req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms");
+        report.getOperations().forEach((operation, result) -> System.out.printf("%-10s %9d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                operation, result.getRequests(), result.getErrors(), result.getThroughput(),
+                result.getP50(), result.getP90(), result.getP99(), result.getP999(), result.getMax()));
+        System.out.printf("Allocation: %.1f MB/s, %d bytes per request%n%n",
+                report.getAllocationRate(), report.getAllocatedPerRequest());
+    }
+}
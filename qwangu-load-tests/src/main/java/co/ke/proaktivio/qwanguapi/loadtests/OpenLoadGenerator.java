@@ -0,0 +1,76 @@
+package co.ke.proaktivio.qwanguapi.loadtests;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Starts requests at a fixed rate whatever the state of earlier ones (an open workload), the way
+ * independent clients arrive. A closed loop that waits for each response would slow down with the
+ * api and hide exactly the queueing a load test is meant to show, so latency is measured from when a
+ * request was due rather than from when it was sent.
+ */
+class OpenLoadGenerator {
+    private final ApartmentWorkload workload;
+    private final LoadTestProperties properties;
+    private final NavigableMap<Integer, Operation> mix = new TreeMap<>();
+    private final int totalWeight;
+
+    OpenLoadGenerator(ApartmentWorkload workload, LoadTestProperties properties) {
+        this.workload = workload;
+        this.properties = properties;
+        int weight = 0;
+        for (Map.Entry<Operation, Integer> entry : properties.getMix().entrySet()) {
+            if (entry.getValue() > 0) {
+                mix.put(weight, entry.getKey());
+                weight += entry.getValue();
+            }
+        }
+        this.totalWeight = weight;
+    }
+
+    /**
+     * Runs the mix for the given duration on the calling thread and returns once every request has
+     * completed or timed out.
+     */
+    Map<Operation, OperationStats> run(Duration duration) throws InterruptedException {
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        mix.values().forEach(operation -> stats.put(operation, new OperationStats()));
+        // the generator holds one count of its own until it has started the last request
+        AtomicLong inFlight = new AtomicLong(1);
+        CountDownLatch completed = new CountDownLatch(1);
+        // the same seed sends the same sequence of operations, so runs differ only in how the api answered
+        Random random = new Random(properties.getSeed());
+        long period = Duration.ofSeconds(1).toNanos() / properties.getRate();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long due = start; due < end; due += period) {
+            long wait = due - System.nanoTime();
+            if (wait > 0)
+                LockSupport.parkNanos(wait);
+            Operation operation = mix.floorEntry(random.nextInt(totalWeight)).getValue();
+            OperationStats operationStats = stats.get(operation);
+            long scheduled = due;
+            inFlight.incrementAndGet();
+            workload.send(operation)
+                    .timeout(properties.getTimeout())
+                    .onErrorReturn(false)
+                    .defaultIfEmpty(false)
+                    .subscribe(success -> {
+                        operationStats.record(System.nanoTime() - scheduled, success);
+                        if (inFlight.decrementAndGet() == 0)
+                            completed.countDown();
+                    });
+        }
+        if (inFlight.decrementAndGet() == 0)
+            completed.countDown();
+        completed.await();
+        return stats;
+    }
+}
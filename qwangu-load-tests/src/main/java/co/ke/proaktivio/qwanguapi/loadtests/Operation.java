@@ -0,0 +1,9 @@
+package co.ke.proaktivio.qwanguapi.loadtests;
+
+/**
+ * The apartment requests a load test mixes. LIST reads the first pages of a listing, DEEP_LIST reads
+ * one far into it, where skipping is most expensive.
+ */
+public enum Operation {
+    CREATE,UPDATE,LIST,DEEP_LIST,DELETE
+}
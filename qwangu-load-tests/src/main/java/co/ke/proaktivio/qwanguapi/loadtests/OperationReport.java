@@ -0,0 +1,25 @@
+package co.ke.proaktivio.qwanguapi.loadtests;
+
+import lombok.*;
+
+/**
+ * What one operation did during the recorded part of a run. Latencies are in milliseconds and are
+ * measured from when a request was due to start, not from when it was sent. Throughput counts the
+ * successful responses per second.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@EqualsAndHashCode
+@ToString
+public class OperationReport {
+    private long requests;
+    private long errors;
+    private double throughput;
+    private double errorRate;
+    private double p50;
+    private double p90;
+    private double p99;
+    private double p999;
+    private double max;
+}
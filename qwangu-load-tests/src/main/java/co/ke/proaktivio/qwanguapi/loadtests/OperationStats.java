@@ -0,0 +1,43 @@
+package co.ke.proaktivio.qwanguapi.loadtests;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and errors of one operation, recorded from the threads responses complete on.
+ */
+class OperationStats {
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Histogram latencies = new ConcurrentHistogram(3);
+    private final LongAdder errors = new LongAdder();
+
+    void record(long latencyNanos, boolean success) {
+        latencies.recordValue(latencyNanos);
+        if (!success)
+            errors.increment();
+    }
+
+    OperationReport report(Duration duration) {
+        long requests = latencies.getTotalCount();
+        long failed = errors.sum();
+        return new OperationReport(
+                requests,
+                failed,
+                (requests - failed) / (duration.toNanos() / 1e9),
+                requests == 0 ? 0 : (double) failed / requests,
+                millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(90)),
+                millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}